@@ -0,0 +1,24 @@
+package com.extazy.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码生成器产物包本地缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "generator.artifact")
+@Data
+public class GeneratorArtifactConfig {
+
+    /**
+     * 本地磁盘缓存上限（MB），超出后淘汰最久未使用的产物包
+     */
+    private long maxSizeMb = 2048;
+
+    /**
+     * 对象存储 ETag 校验间隔（秒），间隔内命中缓存不访问对象存储
+     */
+    private long etagCheckSeconds = 60;
+}
@@ -0,0 +1,19 @@
+package com.extazy.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码生成器制作配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "generator.make")
+@Data
+public class GeneratorMakeConfig {
+
+    /**
+     * 精简产物包的脚本在本地没有共享运行时时的下载地址（本服务的 /generator/runtime/download 接口），为空时只提示用户指定
+     */
+    private String runtimeUrl = "http://localhost:8121/api/generator/runtime/download";
+}
@@ -0,0 +1,29 @@
+package com.extazy.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码生成器使用结果缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "generator.result")
+@Data
+public class GeneratorResultConfig {
+
+    /**
+     * 是否开启结果缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地磁盘缓存上限（MB）
+     */
+    private long maxSizeMb = 1024;
+
+    /**
+     * 共享索引（Redis）过期时间（秒）
+     */
+    private long expireSeconds = 86400;
+}
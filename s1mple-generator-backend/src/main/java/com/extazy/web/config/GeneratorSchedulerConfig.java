@@ -0,0 +1,39 @@
+package com.extazy.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码生成器任务调度配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "generator.scheduler")
+@Data
+public class GeneratorSchedulerConfig {
+
+    /**
+     * 最大并发执行数，小于等于 0 时根据 CPU 核数和最大内存自动计算
+     */
+    private int maxConcurrency = 0;
+
+    /**
+     * 单个任务预估占用内存（MB），用于自动计算并发数
+     */
+    private long memoryPerTaskMb = 512;
+
+    /**
+     * 全局排队上限，超出后拒绝（HTTP 429）
+     */
+    private int maxQueueSize = 200;
+
+    /**
+     * 单个用户排队上限
+     */
+    private int maxUserQueueSize = 10;
+
+    /**
+     * 异步任务及结果保留时间（分钟，从任务完成开始计算）
+     */
+    private long jobExpireMinutes = 60;
+}
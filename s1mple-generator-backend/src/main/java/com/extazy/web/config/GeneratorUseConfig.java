@@ -0,0 +1,54 @@
+package com.extazy.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码生成器使用配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "generator.use")
+@Data
+public class GeneratorUseConfig {
+
+    /**
+     * 执行模式（process / classloader / interpreter）
+     */
+    private String mode = "process";
+
+    /**
+     * 类加载器缓存数量上限
+     */
+    private long classLoaderCacheSize = 32;
+
+    /**
+     * 批量使用时数据模型数量上限
+     */
+    private int batchMaxSize = 100;
+
+    /**
+     * 子进程执行超时时间（秒）
+     */
+    private long processTimeoutSeconds = 60;
+
+    /**
+     * 子进程 CPU 时间上限（秒），0 表示不限制
+     */
+    private long processCpuTimeoutSeconds = 0;
+
+    /**
+     * 子进程内存上限（MB），0 表示不限制（仅 Linux）
+     */
+    private long processMemoryLimitMb = 0;
+
+    /**
+     * 子进程 CPU 配额（百分比，100 表示一个核），0 表示不限制（仅 Linux）
+     */
+    private int processCpuQuotaPercent = 0;
+
+    /**
+     * 写入响应前在内存中缓冲的压缩结果大小（KB），还没写满时生成失败仍可正常返回错误信息，写满后边生成边写入响应，0 表示不缓冲
+     */
+    private int responseBufferKb = 8;
+}
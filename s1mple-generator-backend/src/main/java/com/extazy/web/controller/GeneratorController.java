@@ -1,6 +1,7 @@
 package com.extazy.web.controller;
 
 import cn.hutool.core.codec.Base64Encoder;
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.RandomUtil;
@@ -9,47 +10,52 @@ import cn.hutool.core.util.ZipUtil;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.extazy.maker.generator.Main.GenerateTemplate;
-import com.extazy.maker.generator.Main.ZipGenerator;
-import com.extazy.maker.meta.MetaValidator;
 import com.extazy.web.annotation.AuthCheck;
 import com.extazy.web.common.BaseResponse;
 import com.extazy.web.common.DeleteRequest;
 import com.extazy.web.common.ErrorCode;
 import com.extazy.web.common.ResultUtils;
+import com.extazy.web.config.GeneratorUseConfig;
 import com.extazy.web.constant.UserConstant;
 import com.extazy.web.exception.BusinessException;
 import com.extazy.web.exception.ThrowUtils;
 import com.extazy.web.manager.CacheManager;
 import com.extazy.web.manager.CosManager;
+import com.extazy.web.manager.GeneratorArtifactManager;
+import com.extazy.web.manager.GeneratorJobManager;
+import com.extazy.web.manager.GeneratorSchedulerManager;
+import com.extazy.maker.generator.JarGenerator;
 import com.extazy.maker.meta.Meta;
 import com.extazy.web.model.dto.generator.*;
         import com.extazy.web.model.entity.Generator;
 import com.extazy.web.model.entity.User;
+import com.extazy.web.model.enums.GeneratorJobStatusEnum;
+import com.extazy.web.model.enums.GeneratorJobTypeEnum;
+import com.extazy.web.model.vo.GeneratorJobVO;
 import com.extazy.web.model.vo.GeneratorVO;
 import com.extazy.web.service.GeneratorService;
 import com.extazy.web.service.UserService;
-import com.qcloud.cos.model.COSObject;
-import com.qcloud.cos.model.COSObjectInputStream;
-import com.qcloud.cos.utils.IOUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
         import javax.annotation.Resource;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
         import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.attribute.PosixFilePermission;
-import java.nio.file.attribute.PosixFilePermissions;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 生成器配置接口
@@ -70,6 +76,18 @@ public class GeneratorController {
     @Resource
     private CacheManager cacheManager;
 
+    @Resource
+    private GeneratorArtifactManager generatorArtifactManager;
+
+    @Resource
+    private GeneratorSchedulerManager generatorSchedulerManager;
+
+    @Resource
+    private GeneratorJobManager generatorJobManager;
+
+    @Resource
+    private GeneratorUseConfig generatorUseConfig;
+
     private static final String GENERATOR_LIST_VERSION_KEY = "generator:list:version";
 
     // region 增删改查
@@ -372,31 +390,32 @@ public class GeneratorController {
         response.setContentType("application/octet-stream;charset=UTF-8");
         response.setHeader("Content-Disposition", "attachment; filename=" + filepath);
 
-        // 优先从缓存读取
-        String zipFilePath = getCacheFilePath(id, filepath);
-        if (FileUtil.exist(zipFilePath)) {
+        // 从本地产物包缓存读取，未命中时才访问对象存储
+        try (GeneratorArtifactManager.Artifact artifact = generatorArtifactManager.acquire(filepath)) {
             // 写入响应
-            Files.copy(Paths.get(zipFilePath), response.getOutputStream());
-            return;
+            Files.copy(artifact.getZipFile().toPath(), response.getOutputStream());
+            response.getOutputStream().flush();
         }
+    }
 
-        COSObjectInputStream cosObjectInput = null;
+    /**
+     * 下载共享运行时（精简产物包运行时依赖）
+     *
+     * @param response
+     */
+    @GetMapping("/runtime/download")
+    public void downloadRuntime(HttpServletResponse response) throws IOException {
+        File runtimeJar;
         try {
-            COSObject cosObject = cosManager.getObject(filepath);
-            cosObjectInput = cosObject.getObjectContent();
-            // 处理下载到的流
-            byte[] bytes = IOUtils.toByteArray(cosObjectInput);
-            // 写入响应
-            response.getOutputStream().write(bytes);
-            response.getOutputStream().flush();
-        } catch (Exception e) {
-            log.error("file download error, filepath = " + filepath, e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "下载失败");
-        } finally {
-            if (cosObjectInput != null) {
-                cosObjectInput.close();
-            }
+            runtimeJar = JarGenerator.getRuntimeJar();
+        } catch (IOException e) {
+            log.error("获取共享运行时失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "共享运行时不可用");
         }
+        response.setContentType("application/octet-stream;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=" + runtimeJar.getName());
+        Files.copy(runtimeJar.toPath(), response.getOutputStream());
+        response.getOutputStream().flush();
     }
 
     /**
@@ -417,103 +436,182 @@ public class GeneratorController {
         User loginUser = userService.getLoginUser(request);
         log.info("userId = {} 使用了生成器 id = {}", loginUser.getId(), id);
 
-        Generator generator = generatorService.getById(id);
-        if (generator == null) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
-        }
+        Generator generator = getUsableGenerator(id);
+
+        // 在调度器中排队执行，生成完成后再设置响应头，失败时返回错误信息
+        executeAsync(loginUser.getId(), request, response, () -> {
+            generatorService.useGenerator(generator, dataModel, fileName -> {
+                // 设置响应头（不设置长度，分块传输）
+                response.setContentType("application/octet-stream;charset=UTF-8");
+                response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+                return response.getOutputStream();
+            });
+            return null;
+        });
+    }
 
-        // 生成器的存储路径
-        String distPath = generator.getDistPath();
-        if (StrUtil.isBlank(distPath)) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "产物包不存在");
+    /**
+     * 批量使用代码生成器（一个生成器，多个数据模型）
+     *
+     * @param generatorUseBatchRequest
+     * @param request
+     * @param response
+     */
+    @PostMapping("/use/batch")
+    public void useGeneratorBatch(@RequestBody GeneratorUseBatchRequest generatorUseBatchRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Long id = generatorUseBatchRequest.getId();
+        List<Map<String, Object>> dataModelList = generatorUseBatchRequest.getDataModelList();
+        if (CollUtil.isEmpty(dataModelList)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "数据模型列表为空");
         }
-
-        // 从对象存储下载生成器的压缩包
-
-        // 定义独立的工作空间
-        String projectPath = System.getProperty("user.dir");
-        String tempDirPath = String.format("%s/.temp/use/%s", projectPath, id);
-        String zipFilePath = tempDirPath + "/dist.zip";
-
-        if (!FileUtil.exist(zipFilePath)) {
-            FileUtil.touch(zipFilePath);
+        if (dataModelList.size() > generatorUseConfig.getBatchMaxSize()) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "数据模型数量过多");
         }
 
-        try {
-            cosManager.download(distPath, zipFilePath);
-        } catch (Exception e) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成器下载失败");
-        }
+        User loginUser = userService.getLoginUser(request);
+        log.info("userId = {} 批量使用了生成器 id = {}, 数量 = {}", loginUser.getId(), id, dataModelList.size());
+
+        Generator generator = getUsableGenerator(id);
+        executeAsync(loginUser.getId(), request, response, () -> {
+            generatorService.useGeneratorBatch(generator, dataModelList, fileName -> {
+                response.setContentType("application/octet-stream;charset=UTF-8");
+                response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+                return response.getOutputStream();
+            });
+            return null;
+        });
+    }
 
-        // 解压压缩包，得到脚本文件
-        File unzipDistDir = ZipUtil.unzip(zipFilePath);
+    /**
+     * 异步使用代码生成器
+     *
+     * @param generatorUseRequest
+     * @param request
+     * @return 任务 id
+     */
+    @PostMapping("/use/async")
+    public BaseResponse<String> useGeneratorAsync(@RequestBody GeneratorUseRequest generatorUseRequest, HttpServletRequest request) {
+        Long id = generatorUseRequest.getId();
+        Map<String, Object> dataModel = generatorUseRequest.getDataModel();
 
-        // 将用户输入的参数写到 json 文件中
-        String dataModelFilePath = tempDirPath + "/dataModel.json";
-        String jsonStr = JSONUtil.toJsonStr(dataModel);
-        FileUtil.writeUtf8String(jsonStr, dataModelFilePath);
+        User loginUser = userService.getLoginUser(request);
+        log.info("userId = {} 异步使用了生成器 id = {}", loginUser.getId(), id);
 
-        // 执行脚本
-        // 找到脚本文件所在路径
-        // 要注意，如果不是 windows 系统，找 generator 文件而不是 bat
-        File scriptFile = FileUtil.loopFiles(unzipDistDir, 2, null)
-                .stream()
-                .filter(file -> file.isFile()
-                        && "generator.bat".equals(file.getName()))
-                .findFirst()
-                .orElseThrow(RuntimeException::new);
+        Generator generator = getUsableGenerator(id);
+        String jobId = generatorJobManager.submit(loginUser.getId(), GeneratorJobTypeEnum.USE,
+                resultOutput -> generatorService.useGenerator(generator, dataModel, resultOutput));
+        return ResultUtils.success(jobId);
+    }
 
-        // 添加可执行权限
+    /**
+     * 在调度器中排队执行，排队和执行期间不占用请求线程
+     * <p>
+     * 请求转为异步，任务结束后再结束请求；任务失败且还没有开始写响应时返回错误信息，客户端断开时取消任务
+     *
+     * @param userId
+     * @param request
+     * @param response
+     * @param task     把结果写入响应
+     */
+    private void executeAsync(long userId, HttpServletRequest request, HttpServletResponse response, Callable<?> task) {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        // 不设置超时，执行时间由调度器排队上限和生成器超时控制
+        asyncContext.setTimeout(0);
+        CompletableFuture<?> future;
         try {
-            Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxrwxrwx");
-            Files.setPosixFilePermissions(scriptFile.toPath(), permissions);
-        } catch (Exception e) {
-
+            future = generatorSchedulerManager.submit(userId, task);
+        } catch (BusinessException e) {
+            writeError(response, e);
+            asyncContext.complete();
+            return;
         }
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
 
-        // 构造命令
-        File scriptDir = scriptFile.getParentFile();
-        // 注意，如果是 mac / linux 系统，要用 "./generator"
-        String scriptAbsolutePath = scriptFile.getAbsolutePath().replace("\\", "/");
-        String[] commands = new String[] {scriptAbsolutePath, "json-generate", "--file=" + dataModelFilePath};
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
 
-        // 这里一定要拆分！
-        ProcessBuilder processBuilder = new ProcessBuilder(commands);
-        processBuilder.directory(scriptDir);
+            @Override
+            public void onError(AsyncEvent event) {
+                future.cancel(true);
+            }
 
-        try {
-            Process process = processBuilder.start();
-
-            // 读取命令的输出
-            InputStream inputStream = process.getInputStream();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println(line);
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            try {
+                if (e != null) {
+                    writeError(response, e instanceof CompletionException ? e.getCause() : e);
+                }
+            } finally {
+                asyncContext.complete();
             }
+        });
+    }
 
-            // 等待命令执行完成
-            int exitCode = process.waitFor();
-            System.out.println("命令执行结束，退出码：" + exitCode);
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器脚本错误");
+    /**
+     * 异步请求失败时返回错误信息（和全局异常处理器的格式相同）
+     *
+     * @param response
+     * @param e
+     */
+    private void writeError(HttpServletResponse response, Throwable e) {
+        BaseResponse<?> baseResponse;
+        if (e instanceof BusinessException) {
+            BusinessException businessException = (BusinessException) e;
+            log.error("BusinessException", e);
+            baseResponse = ResultUtils.error(businessException.getCode(), businessException.getMessage());
+        } else {
+            log.error("生成器任务执行失败", e);
+            baseResponse = ResultUtils.error(ErrorCode.SYSTEM_ERROR, "系统错误");
+        }
+        // 已经开始写结果，无法再返回错误信息
+        if (response.isCommitted()) {
+            return;
         }
+        try {
+            response.reset();
+            // 排队已满时返回 429，方便客户端退避重试
+            if (baseResponse.getCode() == ErrorCode.TOO_MANY_REQUEST_ERROR.getCode()) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            }
+            response.setContentType("application/json;charset=UTF-8");
+            response.getOutputStream().write(JSONUtil.toJsonStr(baseResponse).getBytes(StandardCharsets.UTF_8));
+            response.getOutputStream().flush();
+        } catch (IOException | IllegalStateException ioException) {
+            log.warn("写入错误信息失败", ioException);
+        }
+    }
 
-        // 压缩得到的生成结果，返回给前端
-        String generatedPath = scriptDir.getAbsolutePath() + "/generated";
-        String resultPath = tempDirPath + "/result.zip";
-        File resultFile = ZipUtil.zip(generatedPath, resultPath);
-
-        // 设置响应头
-        response.setContentType("application/octet-stream;charset=UTF-8");
-        response.setHeader("Content-Disposition", "attachment; filename=" + resultFile.getName());
-        Files.copy(resultFile.toPath(), response.getOutputStream());
+    /**
+     * 获取可以使用的生成器（存在且有产物包）
+     *
+     * @param id
+     * @return
+     */
+    private Generator getUsableGenerator(Long id) {
+        if (id == null || id <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        Generator generator = generatorService.getById(id);
+        if (generator == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
+        }
 
-        // 清理文件
-        CompletableFuture.runAsync(() -> {
-            FileUtil.del(tempDirPath);
-        });
+        // 生成器的存储路径
+        String distPath = generator.getDistPath();
+        if (StrUtil.isBlank(distPath)) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "产物包不存在");
+        }
+        return generator;
     }
 
     /**
@@ -528,6 +626,7 @@ public class GeneratorController {
         // 1）输入参数
         String zipFilePath = generatorMakeRequest.getZipFilePath();
         Meta meta = generatorMakeRequest.getMeta();
+        boolean thin = Boolean.TRUE.equals(generatorMakeRequest.getThin());
 
         // 需要登录
         User loginUser = userService.getLoginUser(request);
@@ -537,58 +636,75 @@ public class GeneratorController {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "压缩包不存在");
         }
 
-        // 工作空间
-        String projectPath = System.getProperty("user.dir");
-        // 随机 id
-        String id = IdUtil.getSnowflakeNextId() + RandomUtil.randomString(6);
-        String tempDirPath = String.format("%s/.temp/make/%s", projectPath, id);
-        String localZipFilePath = tempDirPath + "/project.zip";
+        // 3）在调度器中排队制作，制作完成后再设置响应头，下载压缩的产物包文件
+        executeAsync(loginUser.getId(), request, response, () -> {
+            generatorService.makeGenerator(zipFilePath, meta, thin, fileName -> {
+                response.setContentType("application/octet-stream;charset=UTF-8");
+                response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+                return response.getOutputStream();
+            });
+            return null;
+        });
+    }
 
-        // 新建文件
-        if (!FileUtil.exist(localZipFilePath)) {
-            FileUtil.touch(localZipFilePath);
-        }
+    /**
+     * 异步制作代码生成器
+     *
+     * @param generatorMakeRequest
+     * @param request
+     * @return 任务 id
+     */
+    @PostMapping("/make/async")
+    public BaseResponse<String> makeGeneratorAsync(@RequestBody GeneratorMakeRequest generatorMakeRequest, HttpServletRequest request) {
+        String zipFilePath = generatorMakeRequest.getZipFilePath();
+        Meta meta = generatorMakeRequest.getMeta();
+        boolean thin = Boolean.TRUE.equals(generatorMakeRequest.getThin());
 
-        try {
-            cosManager.download(zipFilePath, localZipFilePath);
-        } catch (InterruptedException e) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "压缩包下载失败");
+        User loginUser = userService.getLoginUser(request);
+
+        if (StrUtil.isBlank(zipFilePath)) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "压缩包不存在");
         }
 
-        // 3）解压，得到项目模板文件
-        File unzipDistDir = ZipUtil.unzip(localZipFilePath);
+        String jobId = generatorJobManager.submit(loginUser.getId(), GeneratorJobTypeEnum.MAKE,
+                resultOutput -> generatorService.makeGenerator(zipFilePath, meta, thin, resultOutput));
+        return ResultUtils.success(jobId);
+    }
 
-        // 4）构造 meta 对象和输出路径
-        String sourceRootPath = unzipDistDir.getAbsolutePath();
-        meta.getFileConfig().setSourceRootPath(sourceRootPath);
-        MetaValidator.doValidAndFill(meta);
-        String outputPath = String.format("%s/generated/%s", tempDirPath, meta.getName());
+    /**
+     * 查询异步任务状态
+     *
+     * @param jobId
+     * @param request
+     * @return
+     */
+    @GetMapping("/job/get")
+    public BaseResponse<GeneratorJobVO> getGeneratorJob(String jobId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        GeneratorJobManager.GeneratorJob job = generatorJobManager.getJob(jobId, loginUser.getId());
+        return ResultUtils.success(job.toVO());
+    }
 
-        // 5）调用 maker 方法制作生成器
-        GenerateTemplate generateTemplate = new ZipGenerator();
-        try {
-            generateTemplate.doGenerate(meta, outputPath);
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "制作失败");
+    /**
+     * 下载异步任务的结果
+     *
+     * @param jobId
+     * @param request
+     * @param response
+     */
+    @GetMapping("/job/download")
+    public void downloadGeneratorJobResult(String jobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        User loginUser = userService.getLoginUser(request);
+        GeneratorJobManager.GeneratorJob job = generatorJobManager.getJob(jobId, loginUser.getId());
+        if (!GeneratorJobStatusEnum.SUCCEED.getValue().equals(job.getStatus())) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "任务尚未完成");
         }
 
-        // 6）下载压缩的产物包文件
-        String suffix = "-dist.zip";
-        String zipFileName = meta.getName() + suffix;
-        String distZipFilePath = outputPath + suffix;
-
-        // 下载文件
         // 设置响应头
         response.setContentType("application/octet-stream;charset=UTF-8");
-        response.setHeader("Content-Disposition", "attachment; filename=" + zipFileName);
+        response.setHeader("Content-Disposition", "attachment; filename=" + job.getFileName());
         // 写入响应
-        Files.copy(Paths.get(distZipFilePath), response.getOutputStream());
-
-        // 7）清理文件
-        CompletableFuture.runAsync(() -> {
-            FileUtil.del(tempDirPath);
-        });
+        Files.copy(job.getResultFile().toPath(), response.getOutputStream());
     }
 
     /**
@@ -617,37 +733,10 @@ public class GeneratorController {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "产物包不存在");
         }
 
-        // 缓存空间
-        String zipFilePath = getCacheFilePath(id, distPath);
-
-        // 新建文件
-        if (!FileUtil.exist(zipFilePath)) {
-            FileUtil.touch(zipFilePath);
-        }
-
-        // 下载生成器
-        try {
-            cosManager.download(distPath, zipFilePath);
-        } catch (InterruptedException e) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "压缩包下载失败");
-        }
+        // 下载并解压到本地产物包缓存
+        generatorArtifactManager.preload(distPath);
     }
 
-    /**
-     * 获取缓存文件路径
-     *
-     * @param id
-     * @param distPath
-     * @return
-     */
-    public String getCacheFilePath(long id, String distPath) {
-        String projectPath = System.getProperty("user.dir");
-        String tempDirPath = String.format("%s/.temp/cache/%s", projectPath, id);
-        String zipFilePath = String.format("%s/%s", tempDirPath, distPath);
-        return zipFilePath;
-    }
-
-
     private static String getPageCacheKey(GeneratorQueryRequest generatorQueryRequest, Long version) {
         String jsonStr = JSONUtil.toJsonStr(generatorQueryRequest);
         // 编码请求参数
@@ -4,9 +4,12 @@ import com.extazy.web.common.BaseResponse;
 import com.extazy.web.common.ErrorCode;
 import com.extazy.web.common.ResultUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.servlet.http.HttpServletResponse;
+
 /**
  * 全局异常处理器
  */
@@ -15,8 +18,12 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(BusinessException.class)
-    public BaseResponse<?> businessExceptionHandler(BusinessException e) {
+    public BaseResponse<?> businessExceptionHandler(BusinessException e, HttpServletResponse response) {
         log.error("BusinessException", e);
+        // 排队已满时返回 429，方便客户端退避重试
+        if (e.getCode() == ErrorCode.TOO_MANY_REQUEST_ERROR.getCode()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        }
         return ResultUtils.error(e.getCode(), e.getMessage());
     }
 
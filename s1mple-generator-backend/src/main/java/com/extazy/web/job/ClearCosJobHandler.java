@@ -2,6 +2,7 @@ package com.extazy.web.job;
 
 import cn.hutool.core.util.StrUtil;
 import com.extazy.web.manager.CosManager;
+import com.extazy.web.manager.GeneratorResultManager;
 import com.extazy.web.mapper.GeneratorMapper;
 import com.extazy.web.model.entity.Generator;
 import com.xxl.job.core.handler.annotation.XxlJob;
@@ -53,6 +54,10 @@ public class ClearCosJobHandler {
                 }
             }
 
+            // 3. 删除共享的生成器使用结果（generator_result），索引失效后会重新生成
+            cosManager.deleteDir(GeneratorResultManager.COS_DIR);
+            log.info("Deleted directory: {}", GeneratorResultManager.COS_DIR);
+
             // 明确通知任务执行成功
             log.info("clearCosJobHandler completed successfully.");
         } catch (Exception e) {
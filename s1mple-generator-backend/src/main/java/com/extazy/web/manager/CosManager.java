@@ -83,6 +83,16 @@ public class CosManager {
         return cosClient.getObject(getObjectRequest);
     }
 
+    /**
+     * 获取对象元信息（不下载内容）
+     *
+     * @param key 唯一键
+     * @return
+     */
+    public ObjectMetadata getObjectMetadata(String key) {
+        return cosClient.getObjectMetadata(cosClientConfig.getBucket(), key);
+    }
+
     /**
      * 下载对象到本地文件
      *
@@ -0,0 +1,361 @@
+package com.extazy.web.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.ZipUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.extazy.web.common.ErrorCode;
+import com.extazy.web.config.GeneratorArtifactConfig;
+import com.extazy.web.exception.BusinessException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.Closeable;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 代码生成器产物包本地缓存
+ * <p>
+ * 按 对象存储 key + ETag 寻址，第一次使用生成器时才解压（只下载产物包时不解压），按磁盘占用上限 LRU 淘汰；
+ * 同一产物包的并发未命中只会下载一次
+ */
+@Component
+@Slf4j
+public class GeneratorArtifactManager {
+
+    /**
+     * 产物包压缩文件名
+     */
+    private static final String ZIP_FILE_NAME = "dist.zip";
+
+    /**
+     * 产物包解压目录名
+     */
+    private static final String DIST_DIR_NAME = "dist";
+
+    /**
+     * 下载中的临时目录前缀
+     */
+    private static final String TEMP_DIR_PREFIX = "tmp-";
+
+    @Resource
+    private CosManager cosManager;
+
+    @Resource
+    private GeneratorArtifactConfig generatorArtifactConfig;
+
+    /**
+     * 缓存根目录
+     */
+    private Path artifactRootPath;
+
+    /**
+     * 产物包缓存（缓存键 => 产物包），权重为磁盘占用（KB）
+     */
+    private Cache<String, Artifact> artifactCache;
+
+    /**
+     * ETag 缓存（对象存储 key => ETag）
+     */
+    private Cache<String, String> etagCache;
+
+    /**
+     * 正在下载的产物包
+     */
+    private final Map<String, CompletableFuture<Artifact>> loadingMap = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        String projectPath = System.getProperty("user.dir");
+        artifactRootPath = Paths.get(projectPath, ".temp", "artifact");
+        FileUtil.mkdir(artifactRootPath.toFile());
+
+        artifactCache = Caffeine.newBuilder()
+                .maximumWeight(generatorArtifactConfig.getMaxSizeMb() * 1024)
+                .weigher((String key, Artifact artifact) -> artifact.getWeight())
+                .removalListener((String key, Artifact artifact, RemovalCause cause) -> {
+                    // 解压后重新放入缓存只是为了更新磁盘占用，不是淘汰
+                    if (artifact != null && cause != RemovalCause.REPLACED) {
+                        log.info("淘汰产物包缓存 key = {}, cause = {}", key, cause);
+                        artifact.markEvicted();
+                    }
+                })
+                .build();
+        etagCache = Caffeine.newBuilder()
+                .expireAfterWrite(generatorArtifactConfig.getEtagCheckSeconds(), TimeUnit.SECONDS)
+                .maximumSize(10_000)
+                .build();
+
+        // 恢复重启前已下载的产物包，清理未完成的下载
+        File[] entryDirs = FileUtil.ls(artifactRootPath.toString());
+        for (File entryDir : entryDirs) {
+            String entryName = entryDir.getName();
+            if (entryName.startsWith(TEMP_DIR_PREFIX) || !entryName.contains(".")) {
+                FileUtil.del(entryDir);
+                continue;
+            }
+            // 清理未完成的解压
+            for (File file : FileUtil.ls(entryDir.getAbsolutePath())) {
+                if (file.getName().startsWith(TEMP_DIR_PREFIX)) {
+                    FileUtil.del(file);
+                }
+            }
+            String cacheKey = StrUtil.subBefore(entryName, ".", false);
+            artifactCache.put(cacheKey, newArtifact(cacheKey, entryDir.toPath()));
+        }
+    }
+
+    /**
+     * 获取产物包（使用完后需调用 close 释放）
+     *
+     * @param distPath 产物包在对象存储中的 key
+     * @return
+     */
+    public Artifact acquire(String distPath) {
+        String cacheKey = getCacheKey(distPath, getETag(distPath));
+        while (true) {
+            Artifact artifact = artifactCache.getIfPresent(cacheKey);
+            if (artifact == null) {
+                artifact = load(cacheKey, distPath);
+            }
+            if (artifact.acquire()) {
+                return artifact;
+            }
+            // 刚好被淘汰，重新获取
+            artifactCache.asMap().remove(cacheKey, artifact);
+        }
+    }
+
+    /**
+     * 预热产物包缓存（下载并解压）
+     *
+     * @param distPath
+     */
+    public void preload(String distPath) {
+        try (Artifact artifact = acquire(distPath)) {
+            artifact.getDistDir();
+        }
+    }
+
+    /**
+     * 获取对象的 ETag，校验间隔内直接使用缓存的值
+     *
+     * @param distPath
+     * @return
+     */
+    public String getETag(String distPath) {
+        try {
+            return etagCache.get(distPath, key -> cosManager.getObjectMetadata(key).getETag());
+        } catch (Exception e) {
+            log.error("获取产物包元信息失败, distPath = {}", distPath, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成器下载失败");
+        }
+    }
+
+    /**
+     * 加载产物包，同一缓存键并发加载时只有一个线程真正下载
+     *
+     * @param cacheKey
+     * @param distPath
+     * @return
+     */
+    private Artifact load(String cacheKey, String distPath) {
+        CompletableFuture<Artifact> future = new CompletableFuture<>();
+        CompletableFuture<Artifact> loadingFuture = loadingMap.putIfAbsent(cacheKey, future);
+        if (loadingFuture != null) {
+            try {
+                return loadingFuture.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            // 等待期间可能已经加载完成
+            Artifact artifact = artifactCache.getIfPresent(cacheKey);
+            if (artifact == null) {
+                artifact = download(cacheKey, distPath);
+                artifactCache.put(cacheKey, artifact);
+            }
+            future.complete(artifact);
+            return artifact;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingMap.remove(cacheKey, future);
+        }
+    }
+
+    /**
+     * 下载产物包，完成后原子移动到缓存目录
+     *
+     * @param cacheKey
+     * @param distPath
+     * @return
+     */
+    private Artifact download(String cacheKey, String distPath) {
+        Path tempDirPath = artifactRootPath.resolve(TEMP_DIR_PREFIX + IdUtil.getSnowflakeNextIdStr());
+        File zipFile = tempDirPath.resolve(ZIP_FILE_NAME).toFile();
+        FileUtil.touch(zipFile);
+        try {
+            log.info("下载产物包 distPath = {}", distPath);
+            cosManager.download(distPath, zipFile.getAbsolutePath());
+            // 目录名带唯一后缀，避免和仍在使用的已淘汰目录冲突
+            Path entryDirPath = artifactRootPath.resolve(cacheKey + "." + IdUtil.getSnowflakeNextIdStr());
+            Files.move(tempDirPath, entryDirPath, StandardCopyOption.ATOMIC_MOVE);
+            return newArtifact(cacheKey, entryDirPath);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            FileUtil.del(tempDirPath);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成器下载失败");
+        } catch (Exception e) {
+            log.error("产物包下载失败, distPath = {}", distPath, e);
+            FileUtil.del(tempDirPath);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成器下载失败");
+        }
+    }
+
+    private Artifact newArtifact(String cacheKey, Path entryDirPath) {
+        // 解压后按新的磁盘占用重新计算权重
+        return new Artifact(entryDirPath, FileUtil.size(entryDirPath.toFile()),
+                artifact -> artifactCache.asMap().replace(cacheKey, artifact, artifact));
+    }
+
+    /**
+     * 缓存键：md5(key) + md5(ETag)
+     *
+     * @param distPath
+     * @param etag
+     * @return
+     */
+    private static String getCacheKey(String distPath, String etag) {
+        return DigestUtil.md5Hex(distPath) + "-" + DigestUtil.md5Hex(StrUtil.nullToEmpty(etag));
+    }
+
+    /**
+     * 本地缓存的产物包（只读）
+     * <p>
+     * 使用引用计数，保证淘汰时不会删除仍在使用的目录
+     */
+    public static class Artifact implements Closeable {
+
+        private final Path entryDirPath;
+
+        private volatile long size;
+
+        /**
+         * 解压完成后的回调
+         */
+        private final Consumer<Artifact> extractedListener;
+
+        private final AtomicInteger refCount = new AtomicInteger();
+
+        private volatile boolean evicted;
+
+        private Artifact(Path entryDirPath, long size, Consumer<Artifact> extractedListener) {
+            this.entryDirPath = entryDirPath;
+            this.size = size;
+            this.extractedListener = extractedListener;
+        }
+
+        /**
+         * 产物包压缩文件
+         *
+         * @return
+         */
+        public File getZipFile() {
+            return entryDirPath.resolve(ZIP_FILE_NAME).toFile();
+        }
+
+        /**
+         * 解压好的产物包目录（只读，不要在其中写文件），第一次获取时解压
+         *
+         * @return
+         */
+        public File getDistDir() {
+            Path distDirPath = entryDirPath.resolve(DIST_DIR_NAME);
+            if (Files.isDirectory(distDirPath)) {
+                return distDirPath.toFile();
+            }
+            synchronized (this) {
+                if (!Files.isDirectory(distDirPath)) {
+                    extract(distDirPath);
+                }
+            }
+            return distDirPath.toFile();
+        }
+
+        /**
+         * 解压到临时目录后原子移动，避免其他线程看到不完整的目录
+         *
+         * @param distDirPath
+         */
+        private void extract(Path distDirPath) {
+            Path tempDirPath = entryDirPath.resolve(TEMP_DIR_PREFIX + IdUtil.getSnowflakeNextIdStr());
+            try {
+                ZipUtil.unzip(getZipFile(), tempDirPath.toFile());
+                // 解压后统一添加脚本的可执行权限，使用时工作空间中的硬链接不需要再修改
+                FileUtil.loopFiles(tempDirPath.toFile(), 2, file -> file.getName().startsWith("generator"))
+                        .forEach(file -> file.setExecutable(true, false));
+                Files.move(tempDirPath, distDirPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (Exception e) {
+                log.error("产物包解压失败, path = {}", entryDirPath, e);
+                FileUtil.del(tempDirPath);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成器解压失败");
+            }
+            size = FileUtil.size(entryDirPath.toFile());
+            extractedListener.accept(this);
+        }
+
+        private int getWeight() {
+            return (int) Math.min(Integer.MAX_VALUE, size / 1024 + 1);
+        }
+
+        private synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            refCount.incrementAndGet();
+            return true;
+        }
+
+        private synchronized void markEvicted() {
+            evicted = true;
+            if (refCount.get() == 0) {
+                delete();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (refCount.decrementAndGet() == 0 && evicted) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            FileUtil.del(entryDirPath);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.extazy.web.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.extazy.maker.generator.JarGenerator;
+import com.extazy.web.common.ErrorCode;
+import com.extazy.web.config.GeneratorUseConfig;
+import com.extazy.web.exception.BusinessException;
+import com.extazy.web.model.entity.Generator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
+
+/**
+ * 代码生成器类加载器管理（进程内执行生成器）
+ * <p>
+ * 每个生成器产物（id + 版本 + 产物路径）对应一个隔离的类加载器，按数量上限淘汰
+ */
+@Component
+@Slf4j
+public class GeneratorClassLoaderManager {
+
+    @Resource
+    private GeneratorUseConfig generatorUseConfig;
+
+    /**
+     * 已加载的生成器缓存
+     */
+    private Cache<String, LoadedGenerator> loadedGeneratorCache;
+
+    @PostConstruct
+    public void init() {
+        loadedGeneratorCache = Caffeine.newBuilder()
+                .maximumSize(generatorUseConfig.getClassLoaderCacheSize())
+                .removalListener((String key, LoadedGenerator loadedGenerator, RemovalCause cause) -> {
+                    if (loadedGenerator != null) {
+                        log.info("卸载生成器类加载器 key = {}, cause = {}", key, cause);
+                        loadedGenerator.markEvicted();
+                    }
+                })
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        loadedGeneratorCache.invalidateAll();
+        loadedGeneratorCache.cleanUp();
+    }
+
+    /**
+     * 在当前进程内执行生成器
+     *
+     * @param generator      生成器
+     * @param jarFile        生成器 jar 包
+     * @param workDir        生成器工作目录（产物包解压目录，输入根路径相对于它）
+     * @param dataModel      数据模型
+     * @param outputRootPath 输出根路径
+     * @return 生成器不支持进程内执行时返回 false，调用方应回退为子进程执行
+     */
+    public boolean doGenerate(Generator generator, File jarFile, File workDir, Map<String, Object> dataModel, String outputRootPath) {
+        return invoke(generator, jarFile, workDir, dataModel, (loadedGenerator, model, inputRootPath) -> {
+            // 每次都生成到新的工作空间，不需要输出清单：通过输出目标生成到目录（不读写输出清单，也不修改全局的系统属性）
+            if (loadedGenerator.directorySinkMethod != null) {
+                Object outputSink = loadedGenerator.directorySinkMethod.invoke(null, outputRootPath);
+                loadedGenerator.doGenerateSinkMethod.invoke(null, model, inputRootPath, outputSink, 1);
+                ((Closeable) outputSink).close();
+                return true;
+            }
+            // 旧版本生成器（没有输出目标，也没有输出清单）
+            // 并发由调度器控制，单次生成只用当前线程，不再为每次使用创建 CPU 核数个线程
+            if (loadedGenerator.doGenerateMethod.getParameterCount() == 4) {
+                loadedGenerator.doGenerateMethod.invoke(null, model, inputRootPath, outputRootPath, 1);
+            } else {
+                loadedGenerator.doGenerateMethod.invoke(null, model, inputRootPath, outputRootPath);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 在当前进程内执行生成器，边生成边压缩写入输出流，不落地文件
+     *
+     * @param generator    生成器
+     * @param jarFile      生成器 jar 包
+     * @param workDir      生成器工作目录（只读取其中的模板文件）
+     * @param dataModel    数据模型
+     * @param outputStream 压缩包输出流（不会被关闭）
+     * @return 生成器不支持进程内执行或不支持输出到压缩流（旧版本）时返回 false，此时没有写入任何内容
+     */
+    public boolean doGenerate(Generator generator, File jarFile, File workDir, Map<String, Object> dataModel, OutputStream outputStream) {
+        return invoke(generator, jarFile, workDir, dataModel, (loadedGenerator, model, inputRootPath) -> {
+            if (loadedGenerator.zipSinkMethod == null) {
+                return false;
+            }
+            Object outputSink = loadedGenerator.zipSinkMethod.invoke(null, outputStream);
+            loadedGenerator.doGenerateSinkMethod.invoke(null, model, inputRootPath, outputSink, 1);
+            // 写入压缩包的目录区（生成失败时不写，避免返回看起来完整的压缩包）
+            ((Closeable) outputSink).close();
+            return true;
+        });
+    }
+
+    /**
+     * 加载生成器并在其类加载器下执行
+     *
+     * @param generator
+     * @param jarFile
+     * @param workDir
+     * @param dataModel
+     * @param call
+     * @return 生成器不支持进程内执行时返回 false
+     */
+    private boolean invoke(Generator generator, File jarFile, File workDir, Map<String, Object> dataModel, GenerateCall call) {
+        String key = getCacheKey(generator);
+        LoadedGenerator loadedGenerator = loadedGeneratorCache.get(key, k -> loadGenerator(k, generator, jarFile));
+        if (loadedGenerator == null || !loadedGenerator.acquire()) {
+            return false;
+        }
+
+        Thread currentThread = Thread.currentThread();
+        ClassLoader originClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(loadedGenerator.classLoader);
+            // 使用生成器自带的 JSON 工具转换数据模型，和 json-generate 命令保持一致
+            Map<String, Object> safeDataModel = dataModel == null ? Collections.emptyMap() : dataModel;
+            Object model = loadedGenerator.toBeanMethod.invoke(null, JSONUtil.toJsonStr(safeDataModel), loadedGenerator.dataModelClass);
+            String inputRootPath = Paths.get(workDir.getAbsolutePath()).resolve(loadedGenerator.defaultInputRootPath).toString();
+            return call.call(loadedGenerator, model, inputRootPath);
+        } catch (InvocationTargetException e) {
+            log.error("执行生成器错误, key = {}", key, e.getTargetException());
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器错误");
+        } catch (IllegalAccessException | IOException e) {
+            log.error("调用生成器失败, key = {}", key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器错误");
+        } finally {
+            currentThread.setContextClassLoader(originClassLoader);
+            loadedGenerator.release();
+        }
+    }
+
+    /**
+     * 调用生成入口
+     */
+    @FunctionalInterface
+    private interface GenerateCall {
+
+        boolean call(LoadedGenerator loadedGenerator, Object model, String inputRootPath)
+                throws InvocationTargetException, IllegalAccessException, IOException;
+    }
+
+    /**
+     * 加载生成器
+     *
+     * @param key
+     * @param generator
+     * @param jarFile
+     * @return
+     */
+    private LoadedGenerator loadGenerator(String key, Generator generator, File jarFile) {
+        // 复制 jar 包到独立目录，避免工作空间清理后无法继续加载类
+        String projectPath = System.getProperty("user.dir");
+        File cachedJarFile = new File(String.format("%s/.temp/classloader/%s-%s.jar", projectPath,
+                DigestUtil.md5Hex(key), IdUtil.getSnowflakeNextIdStr()));
+        FileUtil.copy(jarFile, cachedJarFile, true);
+
+        String basePackage = StrUtil.blankToDefault(generator.getBasePackage(), "com.extazy");
+        URLClassLoader classLoader = null;
+        try {
+            // 父加载器使用系统类加载器的父加载器（只加载 JDK 的类），与后端自身的依赖隔离
+            URL jarUrl = cachedJarFile.toURI().toURL();
+            URL[] urls = isThinJar(cachedJarFile)
+                    ? new URL[]{jarUrl, JarGenerator.getRuntimeJar().toURI().toURL()}
+                    : new URL[]{jarUrl};
+            classLoader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+            Class<?> mainGeneratorClass = classLoader.loadClass(basePackage + ".generator.MainGenerator");
+            Class<?> dataModelClass = classLoader.loadClass(basePackage + ".model.DataModel");
+            Method doGenerateMethod = getDoGenerateMethod(mainGeneratorClass, dataModelClass);
+            String defaultInputRootPath = (String) mainGeneratorClass.getField("DEFAULT_INPUT_ROOT_PATH").get(null);
+            Method toBeanMethod = classLoader.loadClass("cn.hutool.json.JSONUtil").getMethod("toBean", String.class, Class.class);
+            // 输出到输出目标（压缩流、目录）的入口（旧版本生成器没有）
+            Method zipSinkMethod = null;
+            Method directorySinkMethod = null;
+            Method doGenerateSinkMethod = null;
+            try {
+                Class<?> outputSinkClass = classLoader.loadClass(basePackage + ".generator.OutputSink");
+                doGenerateSinkMethod = mainGeneratorClass.getMethod("doGenerate", dataModelClass, String.class, outputSinkClass, int.class);
+                zipSinkMethod = outputSinkClass.getMethod("zip", OutputStream.class);
+                directorySinkMethod = outputSinkClass.getMethod("directory", String.class);
+            } catch (ReflectiveOperationException e) {
+                zipSinkMethod = null;
+                directorySinkMethod = null;
+            }
+            log.info("加载生成器类加载器 key = {}", key);
+            return new LoadedGenerator(classLoader, cachedJarFile, dataModelClass, doGenerateMethod, zipSinkMethod,
+                    directorySinkMethod, doGenerateSinkMethod, toBeanMethod, defaultInputRootPath);
+        } catch (ReflectiveOperationException | IOException e) {
+            // 旧版本生成器没有进程内调用入口，缓存空结果，调用方回退为子进程执行
+            log.warn("生成器不支持进程内执行, key = {}, reason = {}", key, e.toString());
+            closeQuietly(classLoader);
+            FileUtil.del(cachedJarFile);
+            return LoadedGenerator.UNSUPPORTED;
+        }
+    }
+
+    /**
+     * 获取生成入口：优先使用可以指定并行度的方法，旧版本生成器没有时使用默认并行度的方法
+     *
+     * @param mainGeneratorClass
+     * @param dataModelClass
+     * @return
+     * @throws NoSuchMethodException
+     */
+    private Method getDoGenerateMethod(Class<?> mainGeneratorClass, Class<?> dataModelClass) throws NoSuchMethodException {
+        try {
+            return mainGeneratorClass.getMethod("doGenerate", dataModelClass, String.class, String.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return mainGeneratorClass.getMethod("doGenerate", dataModelClass, String.class, String.class);
+        }
+    }
+
+    /**
+     * 是否是精简的 jar 包（不包含依赖，需要加上共享运行时）
+     *
+     * @param jarFile
+     * @return
+     * @throws IOException
+     */
+    private boolean isThinJar(File jarFile) throws IOException {
+        try (JarFile jar = new JarFile(jarFile)) {
+            return jar.getEntry("cn/hutool/json/JSONUtil.class") == null;
+        }
+    }
+
+    /**
+     * 缓存键：生成器 id + 版本 + 产物路径
+     *
+     * @param generator
+     * @return
+     */
+    private String getCacheKey(Generator generator) {
+        return String.format("%s:%s:%s", generator.getId(), generator.getVersion(), generator.getDistPath());
+    }
+
+    private static void closeQuietly(URLClassLoader classLoader) {
+        if (classLoader == null) {
+            return;
+        }
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            log.warn("关闭类加载器失败", e);
+        }
+    }
+
+    /**
+     * 已加载的生成器
+     * <p>
+     * 使用引用计数，保证淘汰时不会关闭仍在执行中的类加载器
+     */
+    private static class LoadedGenerator {
+
+        private static final LoadedGenerator UNSUPPORTED = new LoadedGenerator(null, null, null, null, null, null, null, null, null);
+
+        private final URLClassLoader classLoader;
+        private final File jarFile;
+        private final Class<?> dataModelClass;
+        private final Method doGenerateMethod;
+        private final Method zipSinkMethod;
+        private final Method directorySinkMethod;
+        private final Method doGenerateSinkMethod;
+        private final Method toBeanMethod;
+        private final String defaultInputRootPath;
+
+        private final AtomicInteger refCount = new AtomicInteger();
+        private volatile boolean evicted;
+
+        private LoadedGenerator(URLClassLoader classLoader, File jarFile, Class<?> dataModelClass,
+                                Method doGenerateMethod, Method zipSinkMethod, Method directorySinkMethod, Method doGenerateSinkMethod,
+                                Method toBeanMethod, String defaultInputRootPath) {
+            this.classLoader = classLoader;
+            this.jarFile = jarFile;
+            this.dataModelClass = dataModelClass;
+            this.doGenerateMethod = doGenerateMethod;
+            this.zipSinkMethod = zipSinkMethod;
+            this.directorySinkMethod = directorySinkMethod;
+            this.doGenerateSinkMethod = doGenerateSinkMethod;
+            this.toBeanMethod = toBeanMethod;
+            this.defaultInputRootPath = defaultInputRootPath;
+        }
+
+        private synchronized boolean acquire() {
+            if (classLoader == null || evicted) {
+                return false;
+            }
+            refCount.incrementAndGet();
+            return true;
+        }
+
+        private synchronized void release() {
+            if (refCount.decrementAndGet() == 0 && evicted) {
+                close();
+            }
+        }
+
+        private synchronized void markEvicted() {
+            evicted = true;
+            if (refCount.get() == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (classLoader == null) {
+                return;
+            }
+            closeQuietly(classLoader);
+            FileUtil.del(jarFile);
+        }
+    }
+}
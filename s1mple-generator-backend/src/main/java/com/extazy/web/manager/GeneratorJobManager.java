@@ -0,0 +1,231 @@
+package com.extazy.web.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.extazy.web.common.ErrorCode;
+import com.extazy.web.config.GeneratorSchedulerConfig;
+import com.extazy.web.exception.BusinessException;
+import com.extazy.web.model.enums.GeneratorJobStatusEnum;
+import com.extazy.web.model.enums.GeneratorJobTypeEnum;
+import com.extazy.web.model.vo.GeneratorJobVO;
+import com.extazy.web.service.GeneratorService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码生成器异步任务管理
+ * <p>
+ * 提交后立即返回任务 id，任务在调度器中排队执行，结果保存到本地文件；
+ * 任务完成后开始计算过期时间，过期后删除记录和结果文件
+ */
+@Component
+@Slf4j
+public class GeneratorJobManager {
+
+    @Resource
+    private GeneratorSchedulerManager generatorSchedulerManager;
+
+    @Resource
+    private GeneratorSchedulerConfig generatorSchedulerConfig;
+
+    /**
+     * 任务结果根目录
+     */
+    private Path jobRootPath;
+
+    /**
+     * 任务缓存（任务 id => 任务）
+     */
+    private Cache<String, GeneratorJob> jobCache;
+
+    @PostConstruct
+    public void init() {
+        String projectPath = System.getProperty("user.dir");
+        jobRootPath = Paths.get(projectPath, ".temp", "job");
+        // 任务只保存在内存中，重启后之前的结果无法再访问
+        FileUtil.del(jobRootPath);
+        FileUtil.mkdir(jobRootPath.toFile());
+
+        long expireNanos = TimeUnit.MINUTES.toNanos(generatorSchedulerConfig.getJobExpireMinutes());
+        jobCache = Caffeine.newBuilder()
+                // 排队和执行中的任务不过期（数量受排队上限约束），完成后才开始计时
+                .expireAfter(new Expiry<String, GeneratorJob>() {
+                    @Override
+                    public long expireAfterCreate(String jobId, GeneratorJob job, long currentTime) {
+                        return job.getFinishTime() == null ? Long.MAX_VALUE : expireNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String jobId, GeneratorJob job, long currentTime, long currentDuration) {
+                        return expireAfterCreate(jobId, job, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String jobId, GeneratorJob job, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((String jobId, GeneratorJob job, RemovalCause cause) -> {
+                    // 完成时重新放入只是为了开始计时
+                    if (job != null && cause != RemovalCause.REPLACED) {
+                        FileUtil.del(job.getResultFile());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 提交异步任务
+     *
+     * @param userId
+     * @param typeEnum
+     * @param jobTask  任务内容，把结果写入输出
+     * @return 任务 id
+     */
+    public String submit(long userId, GeneratorJobTypeEnum typeEnum, JobTask jobTask) {
+        String jobId = IdUtil.getSnowflakeNextIdStr();
+        GeneratorJob job = new GeneratorJob();
+        job.setJobId(jobId);
+        job.setUserId(userId);
+        job.setType(typeEnum.getValue());
+        job.setStatus(GeneratorJobStatusEnum.WAITING.getValue());
+        job.setResultFile(jobRootPath.resolve(jobId + ".zip").toFile());
+        job.setCreateTime(new Date());
+
+        // 先记录任务，保证任务完成时记录已存在；排队已满时移除记录后抛出
+        jobCache.put(jobId, job);
+        try {
+            generatorSchedulerManager.submit(userId, () -> {
+                runJob(job, jobTask);
+                return null;
+            });
+        } catch (BusinessException e) {
+            jobCache.invalidate(jobId);
+            throw e;
+        }
+        return jobId;
+    }
+
+    /**
+     * 获取任务（只能获取自己的任务）
+     *
+     * @param jobId
+     * @param userId
+     * @return
+     */
+    public GeneratorJob getJob(String jobId, long userId) {
+        GeneratorJob job = jobId == null ? null : jobCache.getIfPresent(jobId);
+        if (job == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "任务不存在或已过期");
+        }
+        if (job.getUserId() != userId) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
+        }
+        return job;
+    }
+
+    /**
+     * 执行任务
+     *
+     * @param job
+     * @param jobTask
+     */
+    private void runJob(GeneratorJob job, JobTask jobTask) {
+        job.setStatus(GeneratorJobStatusEnum.RUNNING.getValue());
+        File resultFile = job.getResultFile();
+        try (OutputStream outputStream = Files.newOutputStream(resultFile.toPath())) {
+            jobTask.run(fileName -> {
+                job.setFileName(fileName);
+                return outputStream;
+            });
+            job.setStatus(GeneratorJobStatusEnum.SUCCEED.getValue());
+        } catch (BusinessException e) {
+            job.setMessage(e.getMessage());
+            job.setStatus(GeneratorJobStatusEnum.FAILED.getValue());
+        } catch (Exception e) {
+            log.error("异步任务执行失败, jobId = {}", job.getJobId(), e);
+            job.setMessage(ErrorCode.SYSTEM_ERROR.getMessage());
+            job.setStatus(GeneratorJobStatusEnum.FAILED.getValue());
+        } finally {
+            job.setFinishTime(new Date());
+            // 重新放入缓存，开始计算过期时间；记录已经不存在时没有人能再获取结果，直接删除
+            boolean recorded = jobCache.asMap().replace(job.getJobId(), job, job);
+            if (!recorded || !GeneratorJobStatusEnum.SUCCEED.getValue().equals(job.getStatus())) {
+                FileUtil.del(resultFile);
+            }
+        }
+    }
+
+    /**
+     * 任务内容
+     */
+    @FunctionalInterface
+    public interface JobTask {
+
+        /**
+         * 执行任务
+         *
+         * @param resultOutput 结果输出
+         * @throws IOException
+         */
+        void run(GeneratorService.ResultOutput resultOutput) throws IOException;
+    }
+
+    /**
+     * 异步任务
+     */
+    @Data
+    public static class GeneratorJob {
+
+        private String jobId;
+
+        private long userId;
+
+        private String type;
+
+        private volatile String status;
+
+        private volatile String message;
+
+        private volatile String fileName;
+
+        private File resultFile;
+
+        private Date createTime;
+
+        private volatile Date finishTime;
+
+        /**
+         * 转换为视图
+         *
+         * @return
+         */
+        public GeneratorJobVO toVO() {
+            GeneratorJobVO generatorJobVO = new GeneratorJobVO();
+            generatorJobVO.setJobId(jobId);
+            generatorJobVO.setType(type);
+            generatorJobVO.setStatus(status);
+            generatorJobVO.setMessage(message);
+            generatorJobVO.setFileName(fileName);
+            generatorJobVO.setCreateTime(createTime);
+            generatorJobVO.setFinishTime(finishTime);
+            return generatorJobVO;
+        }
+    }
+}
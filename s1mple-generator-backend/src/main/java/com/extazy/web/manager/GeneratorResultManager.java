@@ -0,0 +1,263 @@
+package com.extazy.web.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.extazy.maker.interpreter.MetaInterpreter;
+import com.extazy.maker.meta.Meta;
+import com.extazy.web.config.GeneratorResultConfig;
+import com.extazy.web.model.entity.Generator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码生成器使用结果缓存
+ * <p>
+ * 按 生成器 id + 版本 + 产物包 ETag + 数据模型规范化哈希 缓存结果压缩包，
+ * 本地磁盘按容量 LRU 淘汰，Redis 记录上传到对象存储的结果，供其他节点复用
+ */
+@Component
+@Slf4j
+public class GeneratorResultManager {
+
+    /**
+     * Redis 索引键前缀
+     */
+    private static final String REDIS_KEY_PREFIX = "generator:result:";
+
+    /**
+     * 对象存储中结果压缩包的目录
+     */
+    public static final String COS_DIR = "/generator_result/";
+
+    /**
+     * 写入中的临时文件前缀
+     */
+    private static final String TEMP_FILE_PREFIX = "tmp-";
+
+    /**
+     * 数据模型规范化（按键排序）
+     */
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    @Resource
+    private GeneratorResultConfig generatorResultConfig;
+
+    @Resource
+    private GeneratorArtifactManager generatorArtifactManager;
+
+    @Resource
+    private CosManager cosManager;
+
+    @Resource
+    private CacheManager cacheManager;
+
+    /**
+     * 缓存根目录
+     */
+    private Path resultRootPath;
+
+    /**
+     * 本地结果缓存（结果键 => 压缩包），权重为文件大小（KB）
+     */
+    private Cache<String, File> resultCache;
+
+    @PostConstruct
+    public void init() {
+        String projectPath = System.getProperty("user.dir");
+        resultRootPath = Paths.get(projectPath, ".temp", "result");
+        FileUtil.mkdir(resultRootPath.toFile());
+
+        resultCache = Caffeine.newBuilder()
+                .maximumWeight(generatorResultConfig.getMaxSizeMb() * 1024)
+                .weigher((String key, File file) -> (int) Math.min(Integer.MAX_VALUE, file.length() / 1024 + 1))
+                // 正在读取的文件删除后仍可读完（POSIX 语义）
+                .removalListener((String key, File file, RemovalCause cause) -> {
+                    if (file != null && cause.wasEvicted()) {
+                        FileUtil.del(file);
+                    }
+                })
+                .build();
+
+        // 恢复重启前的结果，清理未写完的临时文件
+        for (File file : FileUtil.ls(resultRootPath.toString())) {
+            if (file.getName().startsWith(TEMP_FILE_PREFIX)) {
+                FileUtil.del(file);
+                continue;
+            }
+            resultCache.put(FileUtil.mainName(file), file);
+        }
+    }
+
+    /**
+     * 是否开启结果缓存
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return generatorResultConfig.isEnabled();
+    }
+
+    /**
+     * 计算结果键
+     * <p>
+     * 未填写的字段先补全默认值，再按键排序序列化，保证不填和填默认值得到相同的键；
+     * 解释执行时结果还依赖数据库中的文件配置和模型配置，一并计入
+     *
+     * @param generator
+     * @param dataModel
+     * @return
+     */
+    public String getResultKey(Generator generator, Map<String, Object> dataModel) {
+        Meta.ModelConfig modelConfig = StrUtil.isBlank(generator.getModelConfig()) ? null
+                : JSONUtil.toBean(generator.getModelConfig(), Meta.ModelConfig.class);
+        Map<String, Object> model = MetaInterpreter.buildModel(modelConfig, dataModel);
+        String canonicalModel;
+        try {
+            canonicalModel = CANONICAL_MAPPER.writeValueAsString(model);
+        } catch (JsonProcessingException e) {
+            // 无法规范化的参数不缓存
+            log.warn("数据模型无法规范化, id = {}", generator.getId(), e);
+            return null;
+        }
+        String etag = generatorArtifactManager.getETag(generator.getDistPath());
+        String configHash = DigestUtil.md5Hex(generator.getFileConfig() + ":" + generator.getModelConfig());
+        String raw = String.format("%s:%s:%s:%s:%s", generator.getId(), generator.getVersion(), etag, configHash, canonicalModel);
+        return DigestUtil.sha256Hex(raw);
+    }
+
+    /**
+     * 打开缓存的结果，本地未命中时尝试从其他节点共享的结果下载
+     *
+     * @param resultKey
+     * @return 未命中返回 null
+     */
+    public InputStream openResult(String resultKey) {
+        File file = resultCache.getIfPresent(resultKey);
+        if (file == null) {
+            file = downloadResult(resultKey);
+        }
+        if (file == null) {
+            return null;
+        }
+        try {
+            return Files.newInputStream(file.toPath());
+        } catch (NoSuchFileException e) {
+            resultCache.invalidate(resultKey);
+            return null;
+        } catch (IOException e) {
+            log.warn("读取结果缓存失败, key = {}", resultKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 创建临时文件，写完后调用 {@link #putResult(String, File)} 放入缓存
+     *
+     * @return
+     */
+    public File createTempFile() {
+        return resultRootPath.resolve(TEMP_FILE_PREFIX + IdUtil.getSnowflakeNextIdStr() + ".zip").toFile();
+    }
+
+    /**
+     * 放入结果缓存，并异步上传到对象存储供其他节点使用
+     *
+     * @param resultKey
+     * @param tempFile  完整写入的结果压缩包
+     */
+    public void putResult(String resultKey, File tempFile) {
+        File file = resultRootPath.resolve(resultKey + ".zip").toFile();
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("写入结果缓存失败, key = {}", resultKey, e);
+            FileUtil.del(tempFile);
+            return;
+        }
+        resultCache.put(resultKey, file);
+
+        CompletableFuture.runAsync(() -> {
+            String cosKey = COS_DIR + resultKey + ".zip";
+            try {
+                cosManager.putObject(cosKey, file);
+                cacheManager.getRedisTemplate().opsForValue()
+                        .set(REDIS_KEY_PREFIX + resultKey, cosKey, generatorResultConfig.getExpireSeconds(), TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("共享结果缓存失败, key = {}", resultKey, e);
+            }
+        });
+    }
+
+    /**
+     * 删除写入失败的临时文件
+     *
+     * @param tempFile
+     */
+    public void discardTempFile(File tempFile) {
+        FileUtil.del(tempFile);
+    }
+
+    /**
+     * 从对象存储下载其他节点生成的结果
+     *
+     * @param resultKey
+     * @return
+     */
+    private File downloadResult(String resultKey) {
+        String redisKey = REDIS_KEY_PREFIX + resultKey;
+        Object cosKey;
+        try {
+            cosKey = cacheManager.getRedisTemplate().opsForValue().get(redisKey);
+        } catch (Exception e) {
+            log.warn("读取结果缓存索引失败, key = {}", resultKey, e);
+            return null;
+        }
+        if (!(cosKey instanceof String)) {
+            return null;
+        }
+
+        File tempFile = createTempFile();
+        try {
+            cosManager.download((String) cosKey, tempFile.getAbsolutePath());
+        } catch (Exception e) {
+            // 对象已被清理，索引失效
+            log.warn("下载共享结果失败, key = {}", resultKey, e);
+            FileUtil.del(tempFile);
+            cacheManager.getRedisTemplate().delete(redisKey);
+            return null;
+        }
+        File file = resultRootPath.resolve(resultKey + ".zip").toFile();
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            FileUtil.del(tempFile);
+            return null;
+        }
+        resultCache.put(resultKey, file);
+        return file;
+    }
+}
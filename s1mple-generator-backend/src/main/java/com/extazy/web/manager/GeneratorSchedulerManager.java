@@ -0,0 +1,197 @@
+package com.extazy.web.manager;
+
+import com.extazy.web.common.ErrorCode;
+import com.extazy.web.config.GeneratorSchedulerConfig;
+import com.extazy.web.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 代码生成器任务调度
+ * <p>
+ * 使用和制作生成器都比较耗 CPU / 内存，统一在这里限流：
+ * 全局并发数按 CPU 核数和内存计算，每个用户一个排队队列，轮流出队保证公平，排队满了直接拒绝
+ */
+@Component
+@Slf4j
+public class GeneratorSchedulerManager {
+
+    @Resource
+    private GeneratorSchedulerConfig generatorSchedulerConfig;
+
+    /**
+     * 各用户的排队队列（按轮转顺序排列）
+     */
+    private final LinkedHashMap<Long, Deque<ScheduledTask<?>>> userQueueMap = new LinkedHashMap<>();
+
+    /**
+     * 排队中的任务数
+     */
+    private int queuedCount;
+
+    /**
+     * 执行中的任务数
+     */
+    private int runningCount;
+
+    /**
+     * 最大并发执行数
+     */
+    private int maxConcurrency;
+
+    /**
+     * 执行线程池（线程数等于最大并发数，排队由调度器自己管理）
+     */
+    private ExecutorService executorService;
+
+    @PostConstruct
+    public void init() {
+        maxConcurrency = generatorSchedulerConfig.getMaxConcurrency();
+        if (maxConcurrency <= 0) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            long maxMemoryMb = Runtime.getRuntime().maxMemory() / 1024 / 1024;
+            long memoryLimit = maxMemoryMb / Math.max(1, generatorSchedulerConfig.getMemoryPerTaskMb());
+            maxConcurrency = (int) Math.max(1, Math.min(cores, memoryLimit));
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        executorService = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "generator-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("生成器任务调度初始化完成，最大并发数 = {}", maxConcurrency);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param userId 用户 id
+     * @param task
+     * @return 取消时会中断正在执行的任务
+     * @throws BusinessException 排队已满时抛出 {@link ErrorCode#TOO_MANY_REQUEST_ERROR}
+     */
+    public <T> CompletableFuture<T> submit(long userId, Callable<T> task) {
+        ScheduledTask<T> scheduledTask = new ScheduledTask<>(task);
+        synchronized (this) {
+            if (queuedCount >= generatorSchedulerConfig.getMaxQueueSize()) {
+                throw new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR, "系统繁忙，请稍后重试");
+            }
+            Deque<ScheduledTask<?>> userQueue = userQueueMap.computeIfAbsent(userId, key -> new ArrayDeque<>());
+            if (userQueue.size() >= generatorSchedulerConfig.getMaxUserQueueSize()) {
+                throw new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR, "排队任务过多，请稍后重试");
+            }
+            userQueue.addLast(scheduledTask);
+            queuedCount++;
+            dispatch();
+        }
+        return scheduledTask.future;
+    }
+
+    /**
+     * 在并发数允许的范围内，按用户轮流取出任务执行
+     */
+    private synchronized void dispatch() {
+        while (runningCount < maxConcurrency && queuedCount > 0) {
+            Iterator<Map.Entry<Long, Deque<ScheduledTask<?>>>> iterator = userQueueMap.entrySet().iterator();
+            Map.Entry<Long, Deque<ScheduledTask<?>>> entry = iterator.next();
+            Long userId = entry.getKey();
+            Deque<ScheduledTask<?>> userQueue = entry.getValue();
+            ScheduledTask<?> scheduledTask = userQueue.pollFirst();
+            // 当前用户移到队尾，下次轮到其他用户
+            iterator.remove();
+            if (!userQueue.isEmpty()) {
+                userQueueMap.put(userId, userQueue);
+            }
+            if (scheduledTask == null) {
+                continue;
+            }
+            queuedCount--;
+            if (scheduledTask.future.isCancelled()) {
+                continue;
+            }
+            runningCount++;
+            executorService.execute(() -> {
+                try {
+                    scheduledTask.run();
+                } finally {
+                    synchronized (this) {
+                        runningCount--;
+                        dispatch();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 排队中的任务
+     *
+     * @param <T>
+     */
+    private static class ScheduledTask<T> {
+
+        private final Callable<T> task;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        /**
+         * 执行任务的线程，没有在执行时为 null
+         */
+        private Thread runner;
+
+        private ScheduledTask(Callable<T> task) {
+            this.task = task;
+            // CompletableFuture.cancel 不会中断执行线程，需要自己中断
+            future.whenComplete((result, e) -> {
+                if (future.isCancelled()) {
+                    interruptRunner();
+                }
+            });
+        }
+
+        private void run() {
+            synchronized (this) {
+                if (future.isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // 清除取消时设置的中断标记，不影响线程池中的下一个任务
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private synchronized void interruptRunner() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
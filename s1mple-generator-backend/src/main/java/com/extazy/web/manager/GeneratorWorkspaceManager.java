@@ -0,0 +1,185 @@
+package com.extazy.web.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.extazy.web.common.ErrorCode;
+import com.extazy.web.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 代码生成器工作空间管理
+ * <p>
+ * 每次使用生成器都分配独立的工作空间，生成器文件通过硬链接从共享的只读解压目录映射过来，
+ * 不支持硬链接时（如跨磁盘）回退为复制
+ */
+@Component
+@Slf4j
+public class GeneratorWorkspaceManager {
+
+    /**
+     * 工作空间根目录
+     */
+    private Path workspaceRootPath;
+
+    /**
+     * 不支持硬链接的文件系统
+     */
+    private final Set<FileStore> hardLinkUnsupportedStoreSet = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        String projectPath = System.getProperty("user.dir");
+        workspaceRootPath = Paths.get(projectPath, ".temp", "use");
+        // 清理上次未来得及删除的工作空间
+        FileUtil.del(workspaceRootPath);
+        FileUtil.mkdir(workspaceRootPath.toFile());
+    }
+
+    /**
+     * 创建空的工作空间
+     *
+     * @return
+     */
+    private Workspace create() {
+        Path rootPath = workspaceRootPath.resolve(IdUtil.getSnowflakeNextIdStr());
+        FileUtil.mkdir(rootPath.toFile());
+        return new Workspace(rootPath);
+    }
+
+    /**
+     * 创建工作空间
+     * <p>
+     * 注意：工作空间中的文件和共享目录是同一份数据，只能新增文件，不要原地修改已有文件（包括文件权限），
+     * 需要修改时先用 {@link Workspace#detach(File)} 替换为独立的副本
+     *
+     * @param sourceDir 共享的只读目录，映射到工作空间的 dist 目录下
+     * @return
+     */
+    public Workspace create(File sourceDir) {
+        Workspace workspace = create();
+        try {
+            linkTree(sourceDir.toPath(), workspace.getDistDir().toPath());
+        } catch (IOException e) {
+            log.error("创建工作空间失败, sourceDir = {}", sourceDir, e);
+            workspace.close();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "创建工作空间失败");
+        }
+        return workspace;
+    }
+
+    /**
+     * 按目录结构逐个硬链接文件
+     *
+     * @param sourcePath
+     * @param targetPath
+     * @throws IOException
+     */
+    private void linkTree(Path sourcePath, Path targetPath) throws IOException {
+        // 跨文件系统无法硬链接，直接复制
+        Files.createDirectories(targetPath);
+        FileStore fileStore = Files.getFileStore(sourcePath);
+        boolean link = fileStore.equals(Files.getFileStore(targetPath)) && !hardLinkUnsupportedStoreSet.contains(fileStore);
+        Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(targetPath.resolve(sourcePath.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path target = targetPath.resolve(sourcePath.relativize(file));
+                if (link) {
+                    try {
+                        Files.createLink(target, file);
+                        return FileVisitResult.CONTINUE;
+                    } catch (UnsupportedOperationException e) {
+                        // 文件系统不支持硬链接，之后不再尝试
+                        log.warn("文件系统不支持硬链接，回退为复制文件, fileStore = {}", fileStore);
+                        hardLinkUnsupportedStoreSet.add(fileStore);
+                    } catch (IOException e) {
+                        // 只对当前文件回退（如链接数达到上限）
+                        log.warn("硬链接失败，回退为复制文件, file = {}, reason = {}", file, e.toString());
+                    }
+                }
+                Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 工作空间，关闭时异步删除
+     */
+    public static class Workspace implements Closeable {
+
+        private final Path rootPath;
+
+        private Workspace(Path rootPath) {
+            this.rootPath = rootPath;
+        }
+
+        /**
+         * 工作空间根目录
+         *
+         * @return
+         */
+        public File getRootDir() {
+            return rootPath.toFile();
+        }
+
+        /**
+         * 生成器文件目录
+         *
+         * @return
+         */
+        public File getDistDir() {
+            return rootPath.resolve("dist").toFile();
+        }
+
+        /**
+         * 把工作空间中的文件替换为独立的副本，之后可以原地修改，不影响共享目录
+         *
+         * @param file
+         * @throws IOException
+         */
+        public void detach(File file) throws IOException {
+            Path path = file.toPath();
+            Path tempPath = path.resolveSibling(path.getFileName() + "." + IdUtil.getSnowflakeNextIdStr());
+            Files.copy(path, tempPath, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * 获取工作空间内的路径
+         *
+         * @param relativePath
+         * @return
+         */
+        public String resolve(String relativePath) {
+            return rootPath.resolve(relativePath).toString();
+        }
+
+        @Override
+        public void close() {
+            CompletableFuture.runAsync(() -> FileUtil.del(rootPath));
+        }
+    }
+}
@@ -21,5 +21,10 @@ public class GeneratorMakeRequest implements Serializable {
      */
     private Meta meta;
 
+    /**
+     * 是否制作精简产物包（jar 包只包含生成的类，依赖共享的运行时 jar 包）
+     */
+    private Boolean thin;
+
     private static final long serialVersionUID = 1L;
 }
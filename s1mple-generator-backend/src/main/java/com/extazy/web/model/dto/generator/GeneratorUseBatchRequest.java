@@ -0,0 +1,26 @@
+package com.extazy.web.model.dto.generator;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量使用代码生成器请求
+ */
+@Data
+public class GeneratorUseBatchRequest implements Serializable {
+
+    /**
+     * 生成器的 id
+     */
+    private Long id;
+
+    /**
+     * 数据模型列表
+     */
+    private List<Map<String, Object>> dataModelList;
+
+    private static final long serialVersionUID = 1L;
+}
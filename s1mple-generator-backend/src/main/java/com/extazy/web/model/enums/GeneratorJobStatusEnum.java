@@ -0,0 +1,62 @@
+package com.extazy.web.model.enums;
+
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 代码生成器任务状态枚举
+ */
+public enum GeneratorJobStatusEnum {
+
+    WAITING("排队中", "waiting"),
+    RUNNING("执行中", "running"),
+    SUCCEED("成功", "succeed"),
+    FAILED("失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    GeneratorJobStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static GeneratorJobStatusEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (GeneratorJobStatusEnum anEnum : GeneratorJobStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
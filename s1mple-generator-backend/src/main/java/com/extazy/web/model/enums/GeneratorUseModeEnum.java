@@ -0,0 +1,61 @@
+package com.extazy.web.model.enums;
+
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 代码生成器使用模式枚举
+ */
+public enum GeneratorUseModeEnum {
+
+    PROCESS("子进程执行", "process"),
+    CLASSLOADER("进程内类加载器执行", "classloader"),
+    INTERPRETER("解释器执行", "interpreter");
+
+    private final String text;
+
+    private final String value;
+
+    GeneratorUseModeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static GeneratorUseModeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (GeneratorUseModeEnum anEnum : GeneratorUseModeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,50 @@
+package com.extazy.web.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 代码生成器异步任务视图
+ */
+@Data
+public class GeneratorJobVO implements Serializable {
+
+    /**
+     * 任务 id
+     */
+    private String jobId;
+
+    /**
+     * 任务类型（use / make）
+     */
+    private String type;
+
+    /**
+     * 任务状态（waiting / running / succeed / failed）
+     */
+    private String status;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 结果文件名
+     */
+    private String fileName;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 完成时间
+     */
+    private Date finishTime;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -3,11 +3,16 @@ package com.extazy.web.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.extazy.maker.meta.Meta;
 import com.extazy.web.model.dto.generator.GeneratorQueryRequest;
 import com.extazy.web.model.entity.Generator;
 import com.extazy.web.model.vo.GeneratorVO;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 生成器配置服务
@@ -47,4 +52,53 @@ public interface GeneratorService extends IService<Generator> {
      * @return
      */
     Page<GeneratorVO> getGeneratorVOPage(Page<Generator> generatorPage, HttpServletRequest request);
+
+    /**
+     * 使用生成器，生成完成后把结果压缩包写入输出
+     *
+     * @param generator
+     * @param dataModel
+     * @param resultOutput
+     * @throws IOException
+     */
+    void useGenerator(Generator generator, Map<String, Object> dataModel, ResultOutput resultOutput) throws IOException;
+
+    /**
+     * 批量使用生成器，每个数据模型的结果放在压缩包内独立的目录中（从 1 开始编号）
+     *
+     * @param generator
+     * @param dataModelList
+     * @param resultOutput
+     * @throws IOException
+     */
+    void useGeneratorBatch(Generator generator, List<Map<String, Object>> dataModelList, ResultOutput resultOutput) throws IOException;
+
+    /**
+     * 制作生成器，制作完成后把产物包写入输出
+     *
+     * @param zipFilePath 模板文件压缩包在对象存储中的路径
+     * @param meta
+     * @param thin         是否制作精简产物包
+     * @param resultOutput
+     * @throws IOException
+     */
+    void makeGenerator(String zipFilePath, Meta meta, boolean thin, ResultOutput resultOutput) throws IOException;
+
+    /**
+     * 结果输出
+     * <p>
+     * 只有在结果准备好之后才会打开，执行失败时不会写入任何内容
+     */
+    @FunctionalInterface
+    interface ResultOutput {
+
+        /**
+         * 打开输出流（由调用方负责关闭）
+         *
+         * @param fileName 结果文件名
+         * @return
+         * @throws IOException
+         */
+        OutputStream open(String fileName) throws IOException;
+    }
 }
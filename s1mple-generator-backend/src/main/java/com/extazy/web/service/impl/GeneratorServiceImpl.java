@@ -1,22 +1,52 @@
 package com.extazy.web.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.ZipUtil;
+import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.extazy.maker.generator.JarGenerator;
+import com.extazy.maker.generator.Main.GenerateTemplate;
+import com.extazy.maker.generator.Main.GeneratorFeatures;
+import com.extazy.maker.generator.Main.ThinZipGenerator;
+import com.extazy.maker.generator.Main.ZipGenerator;
+import com.extazy.maker.generator.output.OutputSink;
+import com.extazy.maker.generator.output.PrefixOutputSink;
+import com.extazy.maker.generator.output.ZipOutputSink;
+import com.extazy.maker.interpreter.MetaInterpreter;
+import com.extazy.maker.meta.Meta;
+import com.extazy.maker.meta.MetaValidator;
+import com.extazy.maker.process.ProcessLimit;
+import com.extazy.maker.process.ProcessResult;
+import com.extazy.maker.process.ProcessRunner;
 import com.extazy.web.common.ErrorCode;
+import com.extazy.web.config.GeneratorMakeConfig;
+import com.extazy.web.config.GeneratorUseConfig;
 import com.extazy.web.constant.CommonConstant;
 import com.extazy.web.exception.BusinessException;
 import com.extazy.web.exception.ThrowUtils;
+import com.extazy.web.manager.CosManager;
+import com.extazy.web.manager.GeneratorArtifactManager;
+import com.extazy.web.manager.GeneratorClassLoaderManager;
+import com.extazy.web.manager.GeneratorResultManager;
+import com.extazy.web.manager.GeneratorWorkspaceManager;
 import com.extazy.web.mapper.GeneratorMapper;
 import com.extazy.web.model.dto.generator.GeneratorQueryRequest;
 import com.extazy.web.model.entity.Generator;
 import com.extazy.web.model.entity.User;
+import com.extazy.web.model.enums.GeneratorUseModeEnum;
 import com.extazy.web.model.vo.GeneratorVO;
 import com.extazy.web.model.vo.UserVO;
 import com.extazy.web.service.GeneratorService;
 import com.extazy.web.service.UserService;
 import com.extazy.web.utils.SqlUtils;
+import com.extazy.web.utils.ZipStreamUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -24,9 +54,22 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -36,9 +79,35 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GeneratorServiceImpl extends ServiceImpl<GeneratorMapper, Generator> implements GeneratorService {
 
+    /**
+     * 使用生成器的结果文件名
+     */
+    private static final String USE_RESULT_FILE_NAME = "result.zip";
+
     @Resource
     private UserService userService;
 
+    @Resource
+    private CosManager cosManager;
+
+    @Resource
+    private GeneratorClassLoaderManager generatorClassLoaderManager;
+
+    @Resource
+    private GeneratorArtifactManager generatorArtifactManager;
+
+    @Resource
+    private GeneratorWorkspaceManager generatorWorkspaceManager;
+
+    @Resource
+    private GeneratorResultManager generatorResultManager;
+
+    @Resource
+    private GeneratorUseConfig generatorUseConfig;
+
+    @Resource
+    private GeneratorMakeConfig generatorMakeConfig;
+
     @Override
     public void validGenerator(Generator generator, boolean add) {
         if (generator == null) {
@@ -152,4 +221,541 @@ public class GeneratorServiceImpl extends ServiceImpl<GeneratorMapper, Generator
         return generatorVOPage;
     }
 
-}
\ No newline at end of file
+    @Override
+    public void useGenerator(Generator generator, Map<String, Object> dataModel, ResultOutput resultOutput) throws IOException {
+        // 生成器的存储路径
+        String distPath = generator.getDistPath();
+        if (StrUtil.isBlank(distPath)) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "产物包不存在");
+        }
+
+        // 相同生成器 + 相同参数直接返回缓存的结果
+        String resultKey = generatorResultManager.isEnabled() ? generatorResultManager.getResultKey(generator, dataModel) : null;
+        if (resultKey != null) {
+            try (InputStream resultInputStream = generatorResultManager.openResult(resultKey)) {
+                if (resultInputStream != null) {
+                    OutputStream outputStream = resultOutput.open(USE_RESULT_FILE_NAME);
+                    IoUtil.copy(resultInputStream, outputStream);
+                    outputStream.flush();
+                    return;
+                }
+            }
+        }
+
+        // 从本地产物包缓存获取预先解压好的生成器，未命中时才从对象存储下载
+        GeneratorUseModeEnum useModeEnum = GeneratorUseModeEnum.getEnumByValue(generatorUseConfig.getMode());
+        try (GeneratorArtifactManager.Artifact artifact = generatorArtifactManager.acquire(distPath)) {
+            // 边生成边压缩写入输出流，不落地文件，也不需要工作空间
+            boolean generated = writeResult(resultOutput, resultKey,
+                    outputStream -> generateToZip(generator, artifact, dataModel, useModeEnum, outputStream));
+            if (generated) {
+                return;
+            }
+
+            // 旧版本生成器不支持输出到压缩流：生成到独立的工作空间后再压缩，同一生成器可以安全地并发使用
+            try (GeneratorWorkspaceManager.Workspace workspace = generatorWorkspaceManager.create(artifact.getDistDir())) {
+                String generatedPath = workspace.resolve("generated");
+                runGenerator(generator, workspace, dataModel, useModeEnum, generatedPath);
+                writeResult(resultOutput, resultKey, outputStream -> {
+                    ZipStreamUtils.zip(new File(generatedPath), outputStream);
+                    return true;
+                });
+            }
+        }
+    }
+
+    /**
+     * 写入生成结果压缩包，开启结果缓存时同时保存一份
+     * <p>
+     * 响应流延迟到写满一小块内存缓冲或写完时才打开，之后边生成边写入响应；还没写满时生成失败仍然可以正常返回错误信息
+     *
+     * @param resultOutput
+     * @param resultKey    结果缓存 key，不缓存时为 null
+     * @param resultWriter
+     * @return 没有写入结果时返回 false
+     * @throws IOException
+     */
+    private boolean writeResult(ResultOutput resultOutput, String resultKey, ResultWriter resultWriter) throws IOException {
+        long maxBufferBytes = generatorUseConfig.getResponseBufferKb() * 1024L;
+        OutputStream outputStream = ZipStreamUtils.deferred(() -> resultOutput.open(USE_RESULT_FILE_NAME), maxBufferBytes);
+        if (resultKey == null) {
+            if (!resultWriter.write(outputStream)) {
+                return false;
+            }
+            outputStream.flush();
+            return true;
+        }
+        File resultTempFile = generatorResultManager.createTempFile();
+        boolean written;
+        try (OutputStream fileOutputStream = Files.newOutputStream(resultTempFile.toPath())) {
+            OutputStream teeOutputStream = ZipStreamUtils.tee(outputStream, fileOutputStream);
+            written = resultWriter.write(teeOutputStream);
+            if (written) {
+                teeOutputStream.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            generatorResultManager.discardTempFile(resultTempFile);
+            throw e;
+        }
+        if (!written) {
+            generatorResultManager.discardTempFile(resultTempFile);
+            return false;
+        }
+        generatorResultManager.putResult(resultKey, resultTempFile);
+        return true;
+    }
+
+    /**
+     * 写入生成结果
+     */
+    @FunctionalInterface
+    private interface ResultWriter {
+
+        /**
+         * @param outputStream 压缩包输出流
+         * @return 没有写入任何内容时返回 false
+         * @throws IOException
+         */
+        boolean write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * 生成并直接压缩写入输出流：解释执行和进程内执行在当前进程内生成，子进程执行时子进程把压缩包写入标准输出
+     * <p>
+     * 只在生成成功时写入压缩包的目录区，失败时输出流中不会是一个看起来完整的压缩包
+     *
+     * @param generator
+     * @param artifact     产物包（只读取其中的模板文件）
+     * @param dataModel
+     * @param useModeEnum
+     * @param outputStream
+     * @return 旧版本生成器不支持输出到压缩流时返回 false，此时没有写入任何内容
+     * @throws IOException
+     */
+    private boolean generateToZip(Generator generator, GeneratorArtifactManager.Artifact artifact, Map<String, Object> dataModel,
+                                  GeneratorUseModeEnum useModeEnum, OutputStream outputStream) throws IOException {
+        if (GeneratorUseModeEnum.INTERPRETER.equals(useModeEnum)) {
+            // 直接解释执行元信息，不需要 jar 包和子进程，只读取缓存中的模板文件
+            Meta meta = buildInterpreterMeta(generator, artifact.getDistDir());
+            ZipOutputSink zipOutputSink = new ZipOutputSink(outputStream);
+            interpretGenerator(generator, meta, dataModel, zipOutputSink);
+            zipOutputSink.close();
+            return true;
+        }
+        File scriptFile = findScriptFile(artifact.getDistDir());
+        File scriptDir = scriptFile.getParentFile();
+        File jarFile = getJarFile(scriptDir);
+        if (jarFile == null) {
+            return false;
+        }
+        if (GeneratorUseModeEnum.CLASSLOADER.equals(useModeEnum)
+                && generatorClassLoaderManager.doGenerate(generator, jarFile, scriptDir, dataModel, outputStream)) {
+            return true;
+        }
+        // 子进程执行（或进程内执行不支持时回退）：脚本没有可执行权限时需要在工作空间中修改，不在这里处理
+        if (!scriptFile.canExecute() || !GeneratorFeatures.supports(jarFile, GeneratorFeatures.ZIP_STDOUT)) {
+            return false;
+        }
+        File dataModelFile = Files.createTempFile("dataModel-", ".json").toFile();
+        try {
+            FileUtil.writeUtf8String(JSONUtil.toJsonStr(dataModel), dataModelFile);
+            // 子进程只读取产物包中的模板，生成结果写入标准输出，不会在产物包目录中写入文件
+            runProcess(generator, scriptFile, isThinJar(jarFile),
+                    Arrays.asList("--file=" + dataModelFile.getAbsolutePath(), "--zip-stdout"), 1, outputStream);
+        } finally {
+            FileUtil.del(dataModelFile);
+        }
+        return true;
+    }
+
+    /**
+     * 运行生成器（子进程或进程内类加载器）
+     *
+     * @param generator
+     * @param workspace   工作空间
+     * @param dataModel
+     * @param useModeEnum
+     * @param outputPath  生成结果目录
+     */
+    private void runGenerator(Generator generator, GeneratorWorkspaceManager.Workspace workspace, Map<String, Object> dataModel,
+                              GeneratorUseModeEnum useModeEnum, String outputPath) {
+        // 将用户输入的参数写到 json 文件中（批量使用时每个数据模型一个文件）
+        String dataModelFilePath = workspace.resolve(String.format("dataModel-%s.json", IdUtil.getSnowflakeNextIdStr()));
+        String jsonStr = JSONUtil.toJsonStr(dataModel);
+        FileUtil.writeUtf8String(jsonStr, dataModelFilePath);
+
+        File scriptFile = getScriptFile(workspace);
+        File scriptDir = scriptFile.getParentFile();
+
+        // 进程内执行，不支持时回退为子进程执行
+        boolean generated = false;
+        File jarFile = getJarFile(scriptDir);
+        if (GeneratorUseModeEnum.CLASSLOADER.equals(useModeEnum)) {
+            if (jarFile != null) {
+                generated = generatorClassLoaderManager.doGenerate(generator, jarFile, scriptDir, dataModel, outputPath);
+            }
+        }
+
+        if (generated) {
+            return;
+        }
+        runGeneratorProcess(generator, workspace, scriptFile, isThinJar(jarFile), dataModelFilePath, 1, outputPath);
+    }
+
+    /**
+     * 批量运行生成器（子进程）：所有数据模型在同一个子进程中生成，每个数据模型的结果放在以编号（从 1 开始）命名的子目录中
+     * <p>
+     * 旧版本的生成器不支持批量生成，没有生成结果的数据模型再逐个执行
+     *
+     * @param generator
+     * @param workspace     工作空间
+     * @param dataModelList
+     * @param batchPath     生成结果目录
+     */
+    private void runGeneratorBatch(Generator generator, GeneratorWorkspaceManager.Workspace workspace,
+                                   List<Map<String, Object>> dataModelList, String batchPath) {
+        // 每个数据模型一个 json 文件，文件名即结果子目录名
+        String dataModelDirPath = workspace.resolve(String.format("dataModel-%s", IdUtil.getSnowflakeNextIdStr()));
+        for (int i = 0; i < dataModelList.size(); i++) {
+            FileUtil.writeUtf8String(JSONUtil.toJsonStr(dataModelList.get(i)), dataModelDirPath + "/" + (i + 1) + ".json");
+        }
+
+        File scriptFile = getScriptFile(workspace);
+        File jarFile = getJarFile(scriptFile.getParentFile());
+        runGeneratorProcess(generator, workspace, scriptFile, isThinJar(jarFile), dataModelDirPath, dataModelList.size(), batchPath);
+
+        boolean fallback = false;
+        for (int i = 0; i < dataModelList.size(); i++) {
+            String outputPath = batchPath + "/" + (i + 1);
+            if (FileUtil.exist(outputPath)) {
+                continue;
+            }
+            if (!fallback) {
+                log.warn("生成器不支持批量生成或部分数据模型没有生成结果，改为逐个执行, id = {}", generator.getId());
+                fallback = true;
+            }
+            runGenerator(generator, workspace, dataModelList.get(i), GeneratorUseModeEnum.PROCESS, outputPath);
+        }
+    }
+
+    /**
+     * 获取生成器脚本，并确保有可执行权限
+     *
+     * @param workspace
+     * @return
+     */
+    private File getScriptFile(GeneratorWorkspaceManager.Workspace workspace) {
+        File scriptFile = findScriptFile(workspace.getDistDir());
+
+        // 添加可执行权限（产物包解压时已设置；脚本是共享的硬链接，需要修改时先换成独立副本）
+        if (!scriptFile.canExecute()) {
+            try {
+                workspace.detach(scriptFile);
+                Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxrwxrwx");
+                Files.setPosixFilePermissions(scriptFile.toPath(), permissions);
+            } catch (Exception e) {
+
+            }
+        }
+        return scriptFile;
+    }
+
+    /**
+     * 查找生成器脚本
+     *
+     * @param distDir 产物包解压目录
+     * @return
+     */
+    private File findScriptFile(File distDir) {
+        // 找到脚本文件所在路径
+        // 要注意，如果不是 windows 系统，优先找 generator 文件而不是 bat（旧的产物包只有 bat）
+        List<String> scriptNameList = FileUtil.isWindows()
+                ? Collections.singletonList("generator.bat")
+                : Arrays.asList("generator", "generator.bat");
+        List<File> fileList = FileUtil.loopFiles(distDir, 2, null);
+        return scriptNameList.stream()
+                .flatMap(scriptName -> fileList.stream()
+                        .filter(file -> file.isFile() && scriptName.equals(file.getName())))
+                .findFirst()
+                .orElseThrow(RuntimeException::new);
+    }
+
+    /**
+     * 获取生成器 jar 包：优先使用完整的 jar 包，精简产物包中只有不含依赖的 jar 包
+     *
+     * @param scriptDir
+     * @return 没有 jar 包时返回 null
+     */
+    private File getJarFile(File scriptDir) {
+        List<File> jarFileList = FileUtil.loopFiles(new File(scriptDir, "target"), 1, file -> file.getName().endsWith(".jar"));
+        return jarFileList.stream()
+                .filter(file -> file.getName().endsWith("-jar-with-dependencies.jar"))
+                .findFirst()
+                .orElse(jarFileList.isEmpty() ? null : jarFileList.get(0));
+    }
+
+    private boolean isThinJar(File jarFile) {
+        return jarFile != null && !jarFile.getName().endsWith("-jar-with-dependencies.jar");
+    }
+
+    /**
+     * 在子进程中执行生成器脚本（json-generate）
+     *
+     * @param generator
+     * @param workspace     工作空间
+     * @param scriptFile    生成器脚本
+     * @param thin          是否为精简产物包
+     * @param inputFilePath 数据模型 json 文件，或者批量生成时 json 文件所在的目录
+     * @param modelCount    数据模型数量，超时时间按数量累加
+     * @param outputPath    生成结果目录
+     */
+    private void runGeneratorProcess(Generator generator, GeneratorWorkspaceManager.Workspace workspace, File scriptFile,
+                                     boolean thin, String inputFilePath, int modelCount, String outputPath) {
+        File scriptDir = scriptFile.getParentFile();
+        // 子进程固定输出到脚本目录下的 generated，同一工作空间内串行执行后再移动到结果目录
+        synchronized (workspace) {
+            String generatedPath = scriptDir.getAbsolutePath() + "/generated";
+            FileUtil.del(generatedPath);
+            try {
+                runProcess(generator, scriptFile, thin, Collections.singletonList("--file=" + inputFilePath), modelCount, null);
+            } catch (IOException e) {
+                // 不写入标准输出时执行错误已经转换为 BusinessException
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器脚本错误");
+            }
+            if (FileUtil.exist(generatedPath)) {
+                try {
+                    FileUtil.mkParentDirs(outputPath);
+                    Files.move(Paths.get(generatedPath), Paths.get(outputPath));
+                } catch (IOException e) {
+                    log.error("移动生成结果失败, outputPath = {}", outputPath, e);
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器脚本错误");
+                }
+            }
+        }
+    }
+
+    /**
+     * 在受限的子进程中执行生成器脚本的 json-generate 命令，超时或超限会结束整个进程树
+     *
+     * @param generator
+     * @param scriptFile 生成器脚本，工作目录为脚本所在目录
+     * @param thin       是否为精简产物包
+     * @param args       json-generate 的参数
+     * @param modelCount 数据模型数量，超时时间按数量累加
+     * @param stdout     标准输出写入的输出流，为 null 时只在日志中记录
+     * @throws IOException 写入标准输出失败
+     */
+    private void runProcess(Generator generator, File scriptFile, boolean thin, List<String> args, int modelCount,
+                            OutputStream stdout) throws IOException {
+        // 注意，如果是 mac / linux 系统，要用 "./generator"
+        String scriptAbsolutePath = scriptFile.getAbsolutePath().replace("\\", "/");
+        List<String> commands = new ArrayList<>(Arrays.asList(scriptAbsolutePath, "json-generate"));
+        commands.addAll(args);
+
+        ProcessResult processResult;
+        try {
+            // 每次都生成到新目录或压缩流，不需要输出清单；精简产物包通过环境变量指定本节点缓存的共享运行时
+            Map<String, String> environment = new HashMap<>();
+            environment.put("GENERATOR_OUTPUT_MANIFEST", "false");
+            if (thin) {
+                environment.put("GENERATOR_RUNTIME_JAR", JarGenerator.getRuntimeJar().getAbsolutePath());
+            }
+            processResult = ProcessRunner.run(commands, scriptFile.getParentFile(), environment, getProcessLimit(modelCount), stdout);
+        } catch (IOException e) {
+            if (stdout != null) {
+                // 写入响应失败（如客户端断开），子进程已经结束
+                throw e;
+            }
+            log.error("执行生成器脚本错误, id = {}", generator.getId(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器脚本错误");
+        } catch (Exception e) {
+            log.error("执行生成器脚本错误, id = {}", generator.getId(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器脚本错误");
+        }
+        log.info("生成器脚本执行结束, id = {}, exitCode = {}, duration = {}ms, cpu = {}ms, peakRss = {}KB",
+                generator.getId(), processResult.getExitCode(), processResult.getDurationMillis(),
+                processResult.getCpuTimeMillis(), processResult.getPeakRssKb());
+        if (!processResult.isSuccess()) {
+            log.error("生成器脚本执行失败, id = {}, reason = {}, stdout = {}, stderr = {}", generator.getId(),
+                    processResult.getKillReason(), processResult.getStdout(), processResult.getStderr());
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器脚本错误");
+        }
+    }
+
+    /**
+     * 生成器子进程的资源限制
+     *
+     * @param modelCount 一个子进程中生成的数据模型数量，超时时间按数量累加
+     * @return
+     */
+    private ProcessLimit getProcessLimit(int modelCount) {
+        ProcessLimit processLimit = new ProcessLimit();
+        processLimit.setTimeoutMillis(generatorUseConfig.getProcessTimeoutSeconds() * 1000 * modelCount);
+        processLimit.setCpuTimeoutMillis(generatorUseConfig.getProcessCpuTimeoutSeconds() * 1000 * modelCount);
+        processLimit.setMemoryLimitMb(generatorUseConfig.getProcessMemoryLimitMb());
+        processLimit.setCpuQuotaPercent(generatorUseConfig.getProcessCpuQuotaPercent());
+        return processLimit;
+    }
+
+    /**
+     * 构造解释执行用的元信息（根据数据库中的文件配置和模型配置），模板文件根目录记录在 sourceRootPath 中
+     *
+     * @param generator
+     * @param unzipDistDir 产物包解压目录
+     * @return
+     */
+    private Meta buildInterpreterMeta(Generator generator, File unzipDistDir) {
+        Meta meta = new Meta();
+        meta.setName(generator.getName());
+        meta.setFileConfig(JSONUtil.toBean(generator.getFileConfig(), Meta.FileConfig.class));
+        meta.setModelConfig(JSONUtil.toBean(generator.getModelConfig(), Meta.ModelConfig.class));
+        Meta.FileConfig fileConfig = meta.getFileConfig();
+        if (fileConfig == null || CollUtil.isEmpty(fileConfig.getFiles())) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "生成器文件配置不存在");
+        }
+        if (meta.getModelConfig() == null) {
+            meta.setModelConfig(new Meta.ModelConfig());
+        }
+        if (meta.getModelConfig().getModels() == null) {
+            meta.getModelConfig().setModels(new ArrayList<>());
+        }
+
+        // 模板文件位于产物包的 source 目录下
+        File inputRootDir = null;
+        String inputRootPath = fileConfig.getInputRootPath();
+        if (StrUtil.isNotBlank(inputRootPath)) {
+            inputRootDir = Paths.get(unzipDistDir.getAbsolutePath()).resolve(inputRootPath).toFile();
+        }
+        if (inputRootDir == null || !inputRootDir.isDirectory()) {
+            File sourceDir = new File(unzipDistDir, "source");
+            File[] sourceFiles = sourceDir.isDirectory() ? FileUtil.ls(sourceDir.getAbsolutePath()) : new File[0];
+            inputRootDir = Arrays.stream(sourceFiles)
+                    .filter(File::isDirectory)
+                    .findFirst()
+                    .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "生成器模板文件不存在"));
+        }
+        fileConfig.setSourceRootPath(inputRootDir.getAbsolutePath());
+        // 补全文件配置的默认值（和制作生成器时一致）
+        MetaValidator.doValidAndFill(meta);
+        return meta;
+    }
+
+    /**
+     * 解释执行生成器
+     *
+     * @param generator
+     * @param meta       {@link #buildInterpreterMeta(Generator, File)} 构造的元信息
+     * @param dataModel
+     * @param outputSink 生成结果输出位置
+     */
+    private void interpretGenerator(Generator generator, Meta meta, Map<String, Object> dataModel, OutputSink outputSink) {
+        Meta.FileConfig fileConfig = meta.getFileConfig();
+        try {
+            MetaInterpreter.doGenerate(fileConfig, meta.getModelConfig(), fileConfig.getSourceRootPath(), outputSink, dataModel);
+        } catch (Exception e) {
+            log.error("解释执行生成器错误, id = {}", generator.getId(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "执行生成器错误");
+        }
+    }
+
+    @Override
+    public void useGeneratorBatch(Generator generator, List<Map<String, Object>> dataModelList, ResultOutput resultOutput) throws IOException {
+        // 生成器的存储路径
+        String distPath = generator.getDistPath();
+        if (StrUtil.isBlank(distPath)) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "产物包不存在");
+        }
+
+        // 产物包只准备一次，所有数据模型共用
+        GeneratorUseModeEnum useModeEnum = GeneratorUseModeEnum.getEnumByValue(generatorUseConfig.getMode());
+        try (GeneratorArtifactManager.Artifact artifact = generatorArtifactManager.acquire(distPath)) {
+            if (GeneratorUseModeEnum.INTERPRETER.equals(useModeEnum)) {
+                // 模板只解析一次；批量任务只占一个调度名额，数据模型依次生成，结果直接压缩到以编号（从 1 开始）命名的子目录中
+                Meta meta = buildInterpreterMeta(generator, artifact.getDistDir());
+                writeResult(resultOutput, null, outputStream -> {
+                    ZipOutputSink zipOutputSink = new ZipOutputSink(outputStream);
+                    for (int i = 0; i < dataModelList.size(); i++) {
+                        interpretGenerator(generator, meta, dataModelList.get(i), new PrefixOutputSink(zipOutputSink, String.valueOf(i + 1)));
+                    }
+                    zipOutputSink.close();
+                    return true;
+                });
+                return;
+            }
+
+            try (GeneratorWorkspaceManager.Workspace workspace = generatorWorkspaceManager.create(artifact.getDistDir())) {
+                // 每个数据模型生成到独立的子目录（从 1 开始编号）
+                String batchPath = workspace.resolve("batch");
+                if (GeneratorUseModeEnum.CLASSLOADER.equals(useModeEnum)) {
+                    // 共用同一个类加载器
+                    for (int i = 0; i < dataModelList.size(); i++) {
+                        runGenerator(generator, workspace, dataModelList.get(i), useModeEnum, batchPath + "/" + (i + 1));
+                    }
+                } else {
+                    // 子进程较重，所有数据模型在同一个子进程中生成
+                    runGeneratorBatch(generator, workspace, dataModelList, batchPath);
+                }
+
+                // 所有结果打成一个压缩包
+                OutputStream outputStream = resultOutput.open(USE_RESULT_FILE_NAME);
+                ZipStreamUtils.zip(new File(batchPath), outputStream);
+            }
+        }
+    }
+
+    @Override
+    public void makeGenerator(String zipFilePath, Meta meta, boolean thin, ResultOutput resultOutput) throws IOException {
+        // 工作空间
+        String projectPath = System.getProperty("user.dir");
+        // 随机 id
+        String id = IdUtil.getSnowflakeNextId() + RandomUtil.randomString(6);
+        String tempDirPath = String.format("%s/.temp/make/%s", projectPath, id);
+        String localZipFilePath = tempDirPath + "/project.zip";
+
+        // 新建文件
+        if (!FileUtil.exist(localZipFilePath)) {
+            FileUtil.touch(localZipFilePath);
+        }
+
+        try {
+            cosManager.download(zipFilePath, localZipFilePath);
+        } catch (InterruptedException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "压缩包下载失败");
+        }
+
+        // 3）解压，得到项目模板文件
+        File unzipDistDir = ZipUtil.unzip(localZipFilePath);
+
+        // 4）构造 meta 对象和输出路径
+        String sourceRootPath = unzipDistDir.getAbsolutePath();
+        meta.getFileConfig().setSourceRootPath(sourceRootPath);
+        MetaValidator.doValidAndFill(meta);
+        String outputPath = String.format("%s/generated/%s", tempDirPath, meta.getName());
+
+        // 5）调用 maker 方法制作生成器
+        GenerateTemplate generateTemplate = thin ? new ThinZipGenerator(generatorMakeConfig.getRuntimeUrl()) : new ZipGenerator();
+        try {
+            generateTemplate.doGenerate(meta, outputPath);
+        } catch (Exception e) {
+            log.error("制作生成器失败, name = {}", meta.getName(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "制作失败");
+        }
+
+        // 6）下载压缩的产物包文件
+        String suffix = "-dist.zip";
+        String zipFileName = meta.getName() + suffix;
+        String distZipFilePath = outputPath + suffix;
+
+        // 写入输出流
+        try {
+            OutputStream outputStream = resultOutput.open(zipFileName);
+            Files.copy(Paths.get(distZipFilePath), outputStream);
+            outputStream.flush();
+        } finally {
+            // 7）清理文件
+            CompletableFuture.runAsync(() -> {
+                FileUtil.del(tempDirPath);
+            });
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.extazy.web.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 流式压缩工具
+ * <p>
+ * 直接把文件写入压缩流，不落地中间压缩包
+ */
+public class ZipStreamUtils {
+
+    /**
+     * 缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 打开压缩流（调用方负责 finish / close）
+     *
+     * @param outputStream
+     * @return
+     */
+    public static ZipOutputStream open(OutputStream outputStream) {
+        return new ZipOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+    }
+
+    /**
+     * 将目录内容压缩写入输出流（不包含目录本身）
+     *
+     * @param srcDir
+     * @param outputStream
+     * @throws IOException
+     */
+    public static void zip(File srcDir, OutputStream outputStream) throws IOException {
+        ZipOutputStream zipOutputStream = open(outputStream);
+        zip(srcDir, "", zipOutputStream);
+        zipOutputStream.finish();
+        zipOutputStream.flush();
+    }
+
+    /**
+     * 将目录内容压缩写入输出流，同时保存一份到本地文件
+     *
+     * @param srcDir
+     * @param outputStream
+     * @param copyFile     本地文件
+     * @throws IOException
+     */
+    public static void zip(File srcDir, OutputStream outputStream, File copyFile) throws IOException {
+        try (OutputStream fileOutputStream = Files.newOutputStream(copyFile.toPath())) {
+            zip(srcDir, tee(outputStream, fileOutputStream));
+        }
+    }
+
+    /**
+     * 同时写入两个输出流（不会关闭它们）
+     *
+     * @param first
+     * @param second
+     * @return
+     */
+    public static OutputStream tee(OutputStream first, OutputStream second) {
+        return new TeeOutputStream(first, second);
+    }
+
+    /**
+     * 先缓冲在内存中，超过上限或 flush 时才打开目标输出流（如设置响应头并返回响应流）
+     * <p>
+     * 结果不大时生成失败还没有写出任何内容，调用方可以正常返回错误信息
+     *
+     * @param outputStreamSupplier 目标输出流，最多打开一次
+     * @param maxBufferBytes       内存缓冲上限
+     * @return
+     */
+    public static OutputStream deferred(OutputStreamSupplier outputStreamSupplier, long maxBufferBytes) {
+        return new DeferredOutputStream(outputStreamSupplier, maxBufferBytes);
+    }
+
+    /**
+     * 将目录内容写入压缩流，条目名称加上指定前缀
+     *
+     * @param srcDir
+     * @param entryPrefix     条目前缀，如 "a/"，为空则放在根目录
+     * @param zipOutputStream
+     * @throws IOException
+     */
+    public static void zip(File srcDir, String entryPrefix, ZipOutputStream zipOutputStream) throws IOException {
+        if (srcDir == null || !srcDir.exists()) {
+            return;
+        }
+        Path rootPath = srcDir.toPath();
+        Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(rootPath)) {
+                    zipOutputStream.putNextEntry(new ZipEntry(getEntryName(entryPrefix, rootPath, dir) + "/"));
+                    zipOutputStream.closeEntry();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                ZipEntry zipEntry = new ZipEntry(getEntryName(entryPrefix, rootPath, file));
+                zipEntry.setTime(attrs.lastModifiedTime().toMillis());
+                zipOutputStream.putNextEntry(zipEntry);
+                Files.copy(file, zipOutputStream);
+                zipOutputStream.closeEntry();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 计算条目名称（统一使用 / 分隔）
+     *
+     * @param entryPrefix
+     * @param rootPath
+     * @param path
+     * @return
+     */
+    private static String getEntryName(String entryPrefix, Path rootPath, Path path) {
+        String relativePath = rootPath.relativize(path).toString().replace("\\", "/");
+        return entryPrefix == null ? relativePath : entryPrefix + relativePath;
+    }
+
+    /**
+     * 打开输出流
+     */
+    @FunctionalInterface
+    public interface OutputStreamSupplier {
+
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * 延迟打开的输出流
+     */
+    private static class DeferredOutputStream extends OutputStream {
+
+        private final OutputStreamSupplier outputStreamSupplier;
+
+        private final long maxBufferBytes;
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private OutputStream target;
+
+        private DeferredOutputStream(OutputStreamSupplier outputStreamSupplier, long maxBufferBytes) {
+            this.outputStreamSupplier = outputStreamSupplier;
+            this.maxBufferBytes = maxBufferBytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null && buffer.size() + (long) len <= maxBufferBytes) {
+                buffer.write(b, off, len);
+                return;
+            }
+            openTarget().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            openTarget().flush();
+        }
+
+        private OutputStream openTarget() throws IOException {
+            if (target == null) {
+                target = outputStreamSupplier.open();
+                buffer.writeTo(target);
+                buffer = null;
+            }
+            return target;
+        }
+    }
+
+    /**
+     * 同时写入两个输出流
+     */
+    private static class TeeOutputStream extends OutputStream {
+
+        private final OutputStream first;
+
+        private final OutputStream second;
+
+        private TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.extazy.maker.generator;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.extazy.maker.meta.Meta;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 制作生成器的构建缓存
+ * <p>
+ * 每个阶段（复制源文件、生成代码、构建 jar 包、生成产物包）按输入内容的哈希作为键：
+ * 输出目录中已是同一个键的产物时直接跳过，否则从缓存目录恢复，都没有才真正执行并写入缓存
+ */
+public class BuildCache {
+
+    /**
+     * 缓存目录，可以通过系统属性 generator.build.cache.dir 指定
+     */
+    private static final Path CACHE_DIR = Paths.get(System.getProperty("generator.build.cache.dir",
+            System.getProperty("user.dir") + File.separator + ".temp" + File.separator + "build-cache"));
+
+    /**
+     * 每个阶段最多保留的缓存条目数，超出后删除最久未使用的
+     */
+    private static final int MAX_ENTRIES = Integer.getInteger("generator.build.cache.max-entries", 100);
+
+    /**
+     * 输出目录中记录各阶段键的目录
+     */
+    private static final String MARKER_DIR = ".build";
+
+    /**
+     * 生成器模板的哈希（同一个 maker 版本内不变，只计算一次）
+     */
+    private static volatile String templateHash;
+
+    private BuildCache() {
+    }
+
+    /**
+     * 组合多个值的哈希
+     *
+     * @param values
+     * @return
+     */
+    public static String hash(String... values) {
+        return DigestUtil.sha256Hex(String.join("\n", values));
+    }
+
+    /**
+     * 元信息的哈希（不包含每次制作都不同的源文件绝对路径）
+     *
+     * @param meta
+     * @return
+     */
+    public static String hashMeta(Meta meta) {
+        JSONObject json = JSONUtil.parseObj(meta, false);
+        JSONObject fileConfig = json.getJSONObject("fileConfig");
+        if (fileConfig != null) {
+            fileConfig.remove("sourceRootPath");
+        }
+        return DigestUtil.sha256Hex(json.toString());
+    }
+
+    /**
+     * 目录内容的哈希（按相对路径排序，包含每个文件的内容）
+     *
+     * @param dir
+     * @return
+     * @throws IOException
+     */
+    public static String hashDir(File dir) throws IOException {
+        MessageDigest digest = DigestUtil.digester("SHA-256").getDigest();
+        Path rootPath = dir.toPath();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(rootPath)) {
+            files = stream.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(path -> rootPath.relativize(path).toString()))
+                    .collect(Collectors.toList());
+        }
+        byte[] buffer = new byte[8192];
+        for (Path file : files) {
+            digest.update(rootPath.relativize(file).toString().replace(File.separatorChar, '/').getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                int length;
+                while ((length = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, length);
+                }
+            }
+            digest.update((byte) 0);
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 生成器模板（maker 中 templates 目录）的哈希
+     *
+     * @return
+     */
+    public static String getTemplateHash() {
+        if (templateHash == null) {
+            synchronized (BuildCache.class) {
+                if (templateHash == null) {
+                    templateHash = computeTemplateHash();
+                }
+            }
+        }
+        return templateHash;
+    }
+
+    private static String computeTemplateHash() {
+        try {
+            CodeSource codeSource = BuildCache.class.getProtectionDomain().getCodeSource();
+            URL location = codeSource.getLocation();
+            if ("file".equals(location.getProtocol()) && new File(location.toURI()).isDirectory()) {
+                // 开发环境，直接读取 classes 目录
+                return hashDir(new File(new File(location.toURI()), "templates"));
+            }
+            // jar 包（可能嵌套在 Spring Boot 的 fat jar 中）
+            String spec = location.toString();
+            if (spec.endsWith("!/")) {
+                spec = spec.substring(0, spec.length() - 2);
+            }
+            MessageDigest digest = DigestUtil.digester("SHA-256").getDigest();
+            try (JarInputStream jarInputStream = new JarInputStream(new URL(spec).openStream())) {
+                JarEntry entry;
+                byte[] buffer = new byte[8192];
+                while ((entry = jarInputStream.getNextJarEntry()) != null) {
+                    if (entry.isDirectory() || !entry.getName().startsWith("templates/")) {
+                        continue;
+                    }
+                    digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                    int length;
+                    while ((length = jarInputStream.read(buffer)) != -1) {
+                        digest.update(buffer, 0, length);
+                    }
+                }
+            }
+            return HexUtil.encodeHexStr(digest.digest());
+        } catch (Exception e) {
+            // 无法计算时每次都不同，相当于不缓存
+            System.err.println("计算模板哈希失败：" + e);
+            return IdUtil.fastSimpleUUID();
+        }
+    }
+
+    /**
+     * 输出目录中是否已经是该阶段的产物
+     *
+     * @param outputPath
+     * @param stage
+     * @param key
+     * @return
+     */
+    public static boolean isBuilt(String outputPath, String stage, String key) {
+        File markerFile = Paths.get(outputPath, MARKER_DIR, stage).toFile();
+        return markerFile.isFile() && key.equals(FileUtil.readUtf8String(markerFile));
+    }
+
+    /**
+     * 记录输出目录中该阶段的产物
+     *
+     * @param outputPath
+     * @param stage
+     * @param key        为 null 时清除记录（阶段开始执行前调用，避免中途失败后误判）
+     */
+    public static void markBuilt(String outputPath, String stage, String key) {
+        File markerFile = Paths.get(outputPath, MARKER_DIR, stage).toFile();
+        if (key == null) {
+            FileUtil.del(markerFile);
+        } else {
+            FileUtil.writeUtf8String(key, markerFile);
+        }
+    }
+
+    /**
+     * 从缓存恢复阶段产物
+     *
+     * @param stage
+     * @param key
+     * @param targets 缓存中的名称 => 恢复到的文件或目录（缓存中没有的名称会被跳过）
+     * @return 未命中返回 false
+     */
+    public static boolean restore(String stage, String key, Map<String, File> targets) {
+        File entryDir = CACHE_DIR.resolve(stage).resolve(key).toFile();
+        if (!entryDir.isDirectory()) {
+            return false;
+        }
+        // 更新使用时间，淘汰时按它排序
+        entryDir.setLastModified(System.currentTimeMillis());
+        for (Map.Entry<String, File> entry : targets.entrySet()) {
+            File cachedFile = new File(entryDir, entry.getKey());
+            if (!cachedFile.exists()) {
+                continue;
+            }
+            File target = entry.getValue();
+            FileUtil.del(target);
+            if (cachedFile.isDirectory()) {
+                FileUtil.mkdir(target);
+                FileUtil.copyContent(cachedFile, target, true);
+            } else {
+                FileUtil.copy(cachedFile, target, true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入阶段产物到缓存
+     *
+     * @param stage
+     * @param key
+     * @param sources 缓存中的名称 => 产物文件或目录（不存在的会被跳过）
+     */
+    public static void save(String stage, String key, Map<String, File> sources) {
+        Path stageDir = CACHE_DIR.resolve(stage);
+        Path entryPath = stageDir.resolve(key);
+        if (Files.isDirectory(entryPath)) {
+            return;
+        }
+        // 先写临时目录再重命名，并发制作同一个生成器时只保留一份
+        Path tempPath = stageDir.resolve("tmp-" + IdUtil.getSnowflakeNextIdStr());
+        try {
+            FileUtil.mkdir(tempPath.toFile());
+            for (Map.Entry<String, File> entry : sources.entrySet()) {
+                File source = entry.getValue();
+                if (!source.exists()) {
+                    continue;
+                }
+                File cachedFile = tempPath.resolve(entry.getKey()).toFile();
+                if (source.isDirectory()) {
+                    FileUtil.mkdir(cachedFile);
+                    FileUtil.copyContent(source, cachedFile, true);
+                } else {
+                    FileUtil.copy(source, cachedFile, true);
+                }
+            }
+            Files.move(tempPath, entryPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            // 缓存写入失败不影响制作
+            System.err.println("写入构建缓存失败：" + stage + "，" + e);
+        } finally {
+            FileUtil.del(tempPath);
+        }
+        evict(stageDir);
+    }
+
+    /**
+     * 删除最久未使用的缓存条目
+     *
+     * @param stageDir
+     */
+    private static void evict(Path stageDir) {
+        File[] entryDirs = stageDir.toFile().listFiles(file -> file.isDirectory() && !file.getName().startsWith("tmp-"));
+        if (entryDirs == null || entryDirs.length <= MAX_ENTRIES) {
+            return;
+        }
+        Arrays.sort(entryDirs, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < entryDirs.length - MAX_ENTRIES; i++) {
+            FileUtil.del(entryDirs[i]);
+        }
+    }
+}
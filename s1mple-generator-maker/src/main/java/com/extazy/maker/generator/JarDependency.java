@@ -0,0 +1,159 @@
+package com.extazy.maker.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+
+/**
+ * 生成的代码生成器依赖的 jar 包（和 templates/pom.xml.ftl 中的依赖保持一致）
+ * <p>
+ * 按 本地依赖目录 => Maven 本地仓库 => 当前类路径 的顺序查找，找到后缓存到本地依赖目录，不需要联网
+ */
+public enum JarDependency {
+
+    FREEMARKER("org.freemarker", "freemarker", "2.3.32", "freemarker.template.Configuration", true),
+    PICOCLI("info.picocli", "picocli", "4.7.5", "picocli.CommandLine", true),
+    HUTOOL("cn.hutool", "hutool-all", "5.8.16", "cn.hutool.core.io.FileUtil", true),
+    COMMONS_COLLECTIONS("org.apache.commons", "commons-collections4", "4.4", "org.apache.commons.collections4.CollectionUtils", true),
+    // 只在编译时使用（注解处理），不打进 jar 包
+    LOMBOK("org.projectlombok", "lombok", "1.18.30", "lombok.Data", false);
+
+    /**
+     * 本地依赖目录，可以通过系统属性 generator.lib.dir 指定（提前放好依赖即可离线使用）
+     */
+    private static final Path LIB_DIR = Paths.get(System.getProperty("generator.lib.dir",
+            System.getProperty("user.dir") + File.separator + ".temp" + File.separator + "lib"));
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String version;
+
+    /**
+     * 用于在类路径中定位 jar 包的类
+     */
+    private final String markerClass;
+
+    /**
+     * 是否打进 jar 包
+     */
+    private final boolean runtime;
+
+    /**
+     * 已解析的 jar 包
+     */
+    private volatile File jarFile;
+
+    JarDependency(String groupId, String artifactId, String version, String markerClass, boolean runtime) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.markerClass = markerClass;
+        this.runtime = runtime;
+    }
+
+    public boolean isRuntime() {
+        return runtime;
+    }
+
+    /**
+     * 本地依赖目录
+     *
+     * @return
+     */
+    public static File getLibDir() {
+        return LIB_DIR.toFile();
+    }
+
+    /**
+     * 获取 jar 包
+     *
+     * @return 找不到返回 null
+     */
+    public File resolve() {
+        if (jarFile == null) {
+            synchronized (this) {
+                if (jarFile == null) {
+                    jarFile = doResolve();
+                }
+            }
+        }
+        return jarFile;
+    }
+
+    private File doResolve() {
+        String fileName = artifactId + "-" + version + ".jar";
+        // 1. 本地依赖目录
+        File libFile = LIB_DIR.resolve(fileName).toFile();
+        if (libFile.isFile()) {
+            return libFile;
+        }
+        // 2. Maven 本地仓库
+        File mavenFile = Paths.get(System.getProperty("user.home"), ".m2", "repository")
+                .resolve(groupId.replace('.', File.separatorChar))
+                .resolve(artifactId)
+                .resolve(version)
+                .resolve(fileName)
+                .toFile();
+        if (mavenFile.isFile()) {
+            return mavenFile;
+        }
+        // 3. 当前类路径（版本可能和声明的不同）
+        return resolveFromClassPath(libFile);
+    }
+
+    /**
+     * 从当前类路径中找到依赖所在的 jar 包，嵌套在 Spring Boot 等 fat jar 中时先解压到本地依赖目录
+     *
+     * @param libFile
+     * @return
+     */
+    private File resolveFromClassPath(File libFile) {
+        try {
+            CodeSource codeSource = Class.forName(markerClass).getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                return null;
+            }
+            URL location = codeSource.getLocation();
+            if ("file".equals(location.getProtocol())) {
+                File file = new File(location.toURI());
+                return file.isFile() ? file : null;
+            }
+            // 形如 jar:file:/app.jar!/BOOT-INF/lib/xxx.jar!/
+            String spec = location.toString();
+            if (spec.endsWith("!/")) {
+                spec = spec.substring(0, spec.length() - 2);
+            }
+            Files.createDirectories(LIB_DIR);
+            Path tempPath = Files.createTempFile(LIB_DIR, fileNamePrefix(), ".tmp");
+            try (InputStream inputStream = new URL(spec).openStream()) {
+                Files.copy(inputStream, tempPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempPath, libFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+            return libFile;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            System.err.println("定位依赖失败：" + artifactId + "，" + e);
+            return null;
+        }
+    }
+
+    private String fileNamePrefix() {
+        return artifactId + "-" + version + "-";
+    }
+
+    @Override
+    public String toString() {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+}
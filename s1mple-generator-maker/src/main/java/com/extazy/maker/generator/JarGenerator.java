@@ -1,32 +1,325 @@
 package com.extazy.maker.generator;
 
+import cn.hutool.core.io.FileUtil;
+import com.extazy.maker.process.ProcessLimit;
+import com.extazy.maker.process.ProcessResult;
+import com.extazy.maker.process.ProcessRunner;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class JarGenerator {
 
+    /**
+     * 打包超时时间（毫秒）
+     */
+    private static final long BUILD_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * 共享运行时版本，运行时依赖（{@link JarDependency}）变化时需要升级
+     */
+    public static final String RUNTIME_VERSION = "1.0";
+
+    /**
+     * 共享运行时 jar 包名称
+     */
+    public static final String RUNTIME_JAR_NAME = "s1mple-generator-runtime-" + RUNTIME_VERSION + ".jar";
+
+    /**
+     * 打包 jar 包
+     * <p>
+     * 优先在当前进程中用 javax.tools 编译并直接组装 jar 包（不需要 Maven 和网络），
+     * 当前环境没有编译器（只有 JRE）或缺少依赖时，回退为调用 Maven 打包
+     *
+     * @param projectDir 项目根目录
+     * @param mainClass  入口类
+     * @param jarPath    jar 包输出路径
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void doGenerate(String projectDir, String mainClass, String jarPath) throws IOException, InterruptedException {
+        doGenerate(projectDir, mainClass, jarPath, false);
+    }
+
+    /**
+     * 打包 jar 包
+     *
+     * @param projectDir 项目根目录
+     * @param mainClass  入口类
+     * @param jarPath    jar 包输出路径
+     * @param thin       是否只打包生成的类（运行时依赖由共享运行时 jar 包提供）
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void doGenerate(String projectDir, String mainClass, String jarPath, boolean thin) throws IOException, InterruptedException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            System.out.println("当前环境没有 Java 编译器，使用 Maven 打包");
+            doGenerate(projectDir);
+            return;
+        }
+        List<File> classPath = new ArrayList<>();
+        List<File> runtimeJars = new ArrayList<>();
+        for (JarDependency dependency : JarDependency.values()) {
+            File jarFile = dependency.resolve();
+            if (jarFile == null) {
+                System.out.println("缺少依赖 " + dependency + "，使用 Maven 打包");
+                doGenerate(projectDir);
+                return;
+            }
+            classPath.add(jarFile);
+            if (dependency.isRuntime()) {
+                runtimeJars.add(jarFile);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        // 清理之前的构建
+        File targetDir = new File(projectDir, "target");
+        FileUtil.del(targetDir);
+        File classesDir = new File(targetDir, "classes");
+        FileUtil.mkdir(classesDir);
+
+        compile(compiler, new File(projectDir, "src/main/java"), classesDir, classPath);
+        File resourcesDir = new File(projectDir, "src/main/resources");
+        if (resourcesDir.isDirectory()) {
+            FileUtil.copyContent(resourcesDir, classesDir, true);
+        }
+        assemble(classesDir, thin ? Collections.emptyList() : runtimeJars, mainClass, new File(jarPath));
+        System.out.printf("Compiled in process, duration：%dms%n", System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 获取共享运行时 jar 包（合并全部运行时依赖），每个节点只构建一次，缓存在本地依赖目录
+     *
+     * @return
+     * @throws IOException 缺少依赖时抛出
+     */
+    public static synchronized File getRuntimeJar() throws IOException {
+        File runtimeJar = new File(JarDependency.getLibDir(), RUNTIME_JAR_NAME);
+        if (runtimeJar.isFile()) {
+            return runtimeJar;
+        }
+        List<File> runtimeJars = new ArrayList<>();
+        for (JarDependency dependency : JarDependency.values()) {
+            if (!dependency.isRuntime()) {
+                continue;
+            }
+            File jarFile = dependency.resolve();
+            if (jarFile == null) {
+                throw new IOException("缺少依赖 " + dependency);
+            }
+            runtimeJars.add(jarFile);
+        }
+        // 先写临时文件再重命名，避免其他进程读到写了一半的文件
+        FileUtil.mkdir(runtimeJar.getParentFile());
+        Path tempPath = Files.createTempFile(runtimeJar.getParentFile().toPath(), "runtime-", ".tmp");
+        try {
+            Manifest manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            Set<String> entryNames = new HashSet<>();
+            entryNames.add(JarFile.MANIFEST_NAME);
+            try (JarOutputStream jarOutputStream = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)), manifest)) {
+                for (File jarFile : runtimeJars) {
+                    mergeJar(jarOutputStream, entryNames, jarFile);
+                }
+            }
+            Files.move(tempPath, runtimeJar.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+        return runtimeJar;
+    }
+
+    /**
+     * 调用 Maven 打包
+     *
+     * @param projectDir
+     * @throws IOException
+     * @throws InterruptedException
+     */
     public static void doGenerate(String projectDir) throws IOException, InterruptedException {
         // 清理之前的构建并打包
         String winMavenCommand = "mvn.cmd clean package -DskipTests=true";
         //String otherMavenCommand = "mvn clean package -DskipTests=true";
         String mavenCommand = winMavenCommand;
 
-        // 按照空格分割成一个字符串数组
-        ProcessBuilder processBuilder = new ProcessBuilder(mavenCommand.split(" "));
-        processBuilder.directory(new File(projectDir));
+        // 按照空格分割成一个字符串数组，异步读取输出并限制执行时间
+        ProcessLimit processLimit = new ProcessLimit();
+        processLimit.setTimeoutMillis(BUILD_TIMEOUT_MILLIS);
+        ProcessResult processResult = ProcessRunner.run(Arrays.asList(mavenCommand.split(" ")), new File(projectDir), processLimit);
 
-        Process process = processBuilder.start();
+        System.out.println(processResult.getStdout());
+        System.out.printf("Exited with code：%d, duration：%dms, cpu：%dms, peak rss：%dKB%n",
+                processResult.getExitCode(), processResult.getDurationMillis(),
+                processResult.getCpuTimeMillis(), processResult.getPeakRssKb());
+        if (!processResult.isSuccess()) {
+            System.err.println(processResult.getStderr());
+            String reason = processResult.getKillReason() != null ? processResult.getKillReason() : "退出码 " + processResult.getExitCode();
+            throw new IOException("打包失败：" + reason);
+        }
+    }
+
+    /**
+     * 编译源码（lombok 在类路径中，通过注解处理器生效）
+     *
+     * @param compiler
+     * @param sourceDir
+     * @param classesDir
+     * @param classPath
+     * @throws IOException
+     */
+    private static void compile(JavaCompiler compiler, File sourceDir, File classesDir, List<File> classPath) throws IOException {
+        List<File> sourceFiles;
+        try (Stream<Path> stream = Files.walk(sourceDir.toPath())) {
+            sourceFiles = stream.filter(path -> path.toString().endsWith(".java"))
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+
+        List<String> options = new ArrayList<>();
+        // 和 pom.xml 中的 maven.compiler.source / target 保持一致
+        if (compiler.isSupportedOption("--release") >= 0) {
+            options.addAll(Arrays.asList("--release", "8"));
+        } else {
+            options.addAll(Arrays.asList("-source", "8", "-target", "8"));
+        }
+        options.addAll(Arrays.asList("-encoding", "UTF-8", "-nowarn"));
+        options.addAll(Arrays.asList("-classpath", classPath.stream()
+                .map(File::getAbsolutePath)
+                .collect(Collectors.joining(File.pathSeparator))));
+        options.addAll(Arrays.asList("-d", classesDir.getAbsolutePath()));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.getDefault(), StandardCharsets.UTF_8)) {
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(sourceFiles);
+            Boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits).call();
+            if (!Boolean.TRUE.equals(success)) {
+                String message = diagnostics.getDiagnostics().stream()
+                        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        .map(diagnostic -> diagnostic.toString())
+                        .collect(Collectors.joining("\n"));
+                throw new IOException("编译失败：\n" + message);
+            }
+        }
+    }
 
-        // 读取命令的输出
-        InputStream inputStream = process.getInputStream();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            System.out.println(line);
+    /**
+     * 组装可执行 jar 包（等同于 jar-with-dependencies：编译结果 + 依赖 jar 包中的全部类）
+     *
+     * @param classesDir
+     * @param runtimeJars
+     * @param mainClass
+     * @param jarFile
+     * @throws IOException
+     */
+    private static void assemble(File classesDir, List<File> runtimeJars, String mainClass, File jarFile) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+
+        FileUtil.mkParentDirs(jarFile);
+        Set<String> entryNames = new HashSet<>();
+        entryNames.add(JarFile.MANIFEST_NAME);
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(jarFile.toPath())), manifest)) {
+            // 编译结果
+            Path classesPath = classesDir.toPath();
+            List<Path> classFiles;
+            try (Stream<Path> stream = Files.walk(classesPath)) {
+                classFiles = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                String entryName = classesPath.relativize(classFile).toString().replace(File.separatorChar, '/');
+                addParentEntries(jarOutputStream, entryNames, entryName);
+                entryNames.add(entryName);
+                jarOutputStream.putNextEntry(new JarEntry(entryName));
+                Files.copy(classFile, jarOutputStream);
+                jarOutputStream.closeEntry();
+            }
+
+            // 依赖
+            for (File runtimeJar : runtimeJars) {
+                mergeJar(jarOutputStream, entryNames, runtimeJar);
+            }
+        }
+    }
+
+    /**
+     * 合并 jar 包中的全部文件，同名文件以先出现的为准，去掉签名文件
+     *
+     * @param jarOutputStream
+     * @param entryNames      已写入的条目
+     * @param jarFile
+     * @throws IOException
+     */
+    private static void mergeJar(JarOutputStream jarOutputStream, Set<String> entryNames, File jarFile) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (JarFile dependencyJar = new JarFile(jarFile)) {
+            Enumeration<JarEntry> entries = dependencyJar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                if (entryNames.contains(entryName) || isSignatureFile(entryName)) {
+                    continue;
+                }
+                addParentEntries(jarOutputStream, entryNames, entryName);
+                entryNames.add(entryName);
+                jarOutputStream.putNextEntry(new JarEntry(entryName));
+                if (!entry.isDirectory()) {
+                    try (InputStream inputStream = dependencyJar.getInputStream(entry)) {
+                        int length;
+                        while ((length = inputStream.read(buffer)) != -1) {
+                            jarOutputStream.write(buffer, 0, length);
+                        }
+                    }
+                }
+                jarOutputStream.closeEntry();
+            }
         }
+    }
+
+    /**
+     * 补全父目录条目
+     *
+     * @param jarOutputStream
+     * @param entryNames
+     * @param entryName
+     * @throws IOException
+     */
+    private static void addParentEntries(JarOutputStream jarOutputStream, Set<String> entryNames, String entryName) throws IOException {
+        int index = entryName.indexOf('/');
+        while (index > 0 && index < entryName.length() - 1) {
+            String dirName = entryName.substring(0, index + 1);
+            if (entryNames.add(dirName)) {
+                jarOutputStream.putNextEntry(new JarEntry(dirName));
+                jarOutputStream.closeEntry();
+            }
+            index = entryName.indexOf('/', index + 1);
+        }
+    }
 
-        // 等待命令执行完成
-        int exitCode = process.waitFor();
-        System.out.println("Exited with code：" + exitCode);
+    private static boolean isSignatureFile(String entryName) {
+        String upperName = entryName.toUpperCase(Locale.ROOT);
+        return upperName.startsWith("META-INF/")
+                && (upperName.endsWith(".SF") || upperName.endsWith(".RSA") || upperName.endsWith(".DSA") || upperName.endsWith(".EC"));
     }
 
 }
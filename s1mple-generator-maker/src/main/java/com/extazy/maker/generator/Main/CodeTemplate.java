@@ -0,0 +1,64 @@
+package com.extazy.maker.generator.Main;
+
+import com.extazy.maker.meta.Meta;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 代码模板清单中的一项
+ */
+@Data
+@AllArgsConstructor
+public class CodeTemplate {
+
+    /**
+     * 模板在类路径中的路径
+     */
+    private String templatePath;
+
+    /**
+     * 输出路径（相对于生成的项目根目录）
+     */
+    private String outputPath;
+
+    /**
+     * 生成条件，为 null 时总是生成
+     */
+    private Predicate<Meta> condition;
+
+    /**
+     * 数据模型，为 null 时使用元信息
+     */
+    private Function<Meta, Object> modelProvider;
+
+    public CodeTemplate(String templatePath, String outputPath) {
+        this(templatePath, outputPath, null, null);
+    }
+
+    public CodeTemplate(String templatePath, String outputPath, Predicate<Meta> condition) {
+        this(templatePath, outputPath, condition, null);
+    }
+
+    /**
+     * 是否需要生成
+     *
+     * @param meta
+     * @return
+     */
+    public boolean isEnabled(Meta meta) {
+        return condition == null || condition.test(meta);
+    }
+
+    /**
+     * 渲染使用的数据模型
+     *
+     * @param meta
+     * @return
+     */
+    public Object getModel(Meta meta) {
+        return modelProvider == null ? meta : modelProvider.apply(meta);
+    }
+}
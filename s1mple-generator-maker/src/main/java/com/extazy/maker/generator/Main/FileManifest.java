@@ -0,0 +1,90 @@
+package com.extazy.maker.generator.Main;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.extazy.maker.meta.Meta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成文件清单
+ * <p>
+ * 把文件配置展开为扁平的文件列表写入生成器的资源文件，生成器运行时遍历清单生成；
+ * 生成条件去重后编号，生成的代码中只包含每个条件的判断，代码量不随文件数增长
+ */
+public class FileManifest {
+
+    /**
+     * 清单在生成器 jar 包中的资源路径
+     */
+    public static final String RESOURCE_PATH = "META-INF/generator-files.json";
+
+    private FileManifest() {
+    }
+
+    /**
+     * 构造核心生成器和文件清单模板的数据模型
+     *
+     * @param meta
+     * @return
+     */
+    public static Map<String, Object> buildModel(Meta meta) {
+        List<String> conditionList = new ArrayList<>();
+        List<Map<String, Object>> fileList = new ArrayList<>();
+        List<Meta.FileConfig.FileInfo> fileInfoList = meta.getFileConfig().getFiles();
+        for (Meta.FileConfig.FileInfo fileInfo : fileInfoList == null ? Collections.<Meta.FileConfig.FileInfo>emptyList() : fileInfoList) {
+            int conditionIndex = getConditionIndex(conditionList, fileInfo.getCondition());
+            // 分组内的文件使用分组的条件
+            if (fileInfo.getGroupKey() != null) {
+                if (CollUtil.isEmpty(fileInfo.getFiles())) {
+                    continue;
+                }
+                for (Meta.FileConfig.FileInfo subFileInfo : fileInfo.getFiles()) {
+                    fileList.add(buildFile(subFileInfo, conditionIndex));
+                }
+            } else {
+                fileList.add(buildFile(fileInfo, conditionIndex));
+            }
+        }
+        Map<String, Object> model = new HashMap<>();
+        model.put("basePackage", meta.getBasePackage());
+        model.put("fileConfig", meta.getFileConfig());
+        model.put("modelConfig", meta.getModelConfig());
+        model.put("manifestPath", RESOURCE_PATH);
+        model.put("conditions", conditionList);
+        model.put("files", fileList);
+        return model;
+    }
+
+    /**
+     * 获取条件的编号，没有条件时返回 -1
+     *
+     * @param conditionList
+     * @param condition
+     * @return
+     */
+    private static int getConditionIndex(List<String> conditionList, String condition) {
+        if (StrUtil.isBlank(condition)) {
+            return -1;
+        }
+        int index = conditionList.indexOf(condition);
+        if (index < 0) {
+            conditionList.add(condition);
+            index = conditionList.size() - 1;
+        }
+        return index;
+    }
+
+    private static Map<String, Object> buildFile(Meta.FileConfig.FileInfo fileInfo, int conditionIndex) {
+        Map<String, Object> file = new HashMap<>();
+        file.put("inputPath", fileInfo.getInputPath());
+        file.put("outputPath", fileInfo.getOutputPath());
+        file.put("generateType", fileInfo.getGenerateType());
+        file.put("condition", conditionIndex);
+        return file;
+    }
+}
@@ -4,17 +4,51 @@ import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.io.resource.ClassPathResource;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.core.util.ZipUtil;
+import com.extazy.maker.generator.BuildCache;
+import com.extazy.maker.generator.JarDependency;
 import com.extazy.maker.generator.JarGenerator;
 import com.extazy.maker.generator.ScriptGenerator;
+import com.extazy.maker.generator.aot.TemplateAotCompiler;
 import com.extazy.maker.generator.file.DynamicFileGenerator;
+import com.extazy.maker.generator.file.StaticFileGenerator;
 import com.extazy.maker.meta.Meta;
 import com.extazy.maker.meta.MetaManager;
 import freemarker.template.TemplateException;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 public abstract class GenerateTemplate {
+
+    /**
+     * 构建缓存的阶段
+     */
+    private static final String STAGE_SOURCE = "source";
+    private static final String STAGE_CODE = "code";
+    private static final String STAGE_JAR = "jar";
+    private static final String STAGE_DIST = "dist";
+
+    /**
+     * 渲染代码模板的线程池（线程数等于 CPU 核数，所有制作任务共用）
+     */
+    private static final ExecutorService RENDER_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "code-template-render");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     public void doGenerate() throws TemplateException, IOException, InterruptedException {
         Meta meta = MetaManager.getMetaObject();
         String projectPath = System.getProperty("user.dir");
@@ -27,20 +61,112 @@ public abstract class GenerateTemplate {
             FileUtil.mkdir(outputPath);
         }
 
+        // 各阶段的缓存键，只依赖输入内容
+        String sourceKey = BuildCache.hashDir(new File(meta.getFileConfig().getSourceRootPath()));
+        List<String> codeOutputPathList = getCodeTemplates(meta).stream()
+                .filter(codeTemplate -> codeTemplate.isEnabled(meta))
+                .map(codeTemplate -> codeTemplate.getTemplatePath() + "=" + codeTemplate.getOutputPath()
+                        + (codeTemplate.getModelProvider() == null ? "" : "=" + codeTemplate.getModel(meta)))
+                .collect(Collectors.toList());
+        String codeKey = BuildCache.hash(BuildCache.hashMeta(meta), BuildCache.getTemplateHash(), codeOutputPathList.toString());
+        String jarKey = BuildCache.hash(codeKey, String.valueOf(isThin()), JarGenerator.RUNTIME_VERSION,
+                Arrays.toString(JarDependency.values()));
+        String distKey = BuildCache.hash(sourceKey, jarKey, getClass().getName(), ScriptGenerator.VERSION,
+                isThin() ? StrUtil.nullToEmpty(getRuntimeUrl()) : "");
+
+        // 产物包命中缓存时直接恢复；调用方只需要产物包时中间阶段的产物不再需要，
+        // 否则输出目录中的源文件、代码、jar 包和脚本仍要按各阶段的缓存补齐
+        String distOutputPath = outputPath + "-dist";
+        Map<String, File> distFiles = new LinkedHashMap<>();
+        distFiles.put("dist", new File(distOutputPath));
+        distFiles.put("dist.zip", new File(distOutputPath + ".zip"));
+        boolean distRestored = BuildCache.restore(STAGE_DIST, distKey, distFiles);
+        if (distRestored && isDistOnly()) {
+            return;
+        }
+
         // 1、复制原始文件
-        String sourceCopyDestPath = copySource(meta, outputPath);
+        String sourceCopyDestPath = outputPath + File.separator + "source";
+        if (isSourceCopyRequired() && !BuildCache.isBuilt(outputPath, STAGE_SOURCE, sourceKey)) {
+            BuildCache.markBuilt(outputPath, STAGE_SOURCE, null);
+            FileUtil.del(sourceCopyDestPath);
+            sourceCopyDestPath = copySource(meta, outputPath);
+            BuildCache.markBuilt(outputPath, STAGE_SOURCE, sourceKey);
+        }
 
         // 2、代码生成
-        generateCode(meta, outputPath);
+        if (!BuildCache.isBuilt(outputPath, STAGE_CODE, codeKey)) {
+            BuildCache.markBuilt(outputPath, STAGE_CODE, null);
+            Map<String, File> codeFiles = new LinkedHashMap<>();
+            for (CodeTemplate codeTemplate : getCodeTemplates(meta)) {
+                if (codeTemplate.isEnabled(meta)) {
+                    codeFiles.put(codeTemplate.getOutputPath(), new File(outputPath, codeTemplate.getOutputPath()));
+                }
+            }
+            if (!BuildCache.restore(STAGE_CODE, codeKey, codeFiles)) {
+                FileUtil.del(new File(outputPath, "src"));
+                generateCode(meta, outputPath);
+                BuildCache.save(STAGE_CODE, codeKey, codeFiles);
+            }
+            BuildCache.markBuilt(outputPath, STAGE_CODE, codeKey);
+        }
 
         // 3、构建 jar 包
-        String jarPath = buildJar(meta, outputPath);
+        String jarPath = getJarPath(meta);
+        File jarFile = new File(outputPath, jarPath);
+        if (!BuildCache.isBuilt(outputPath, STAGE_JAR, jarKey) || !jarFile.isFile()) {
+            BuildCache.markBuilt(outputPath, STAGE_JAR, null);
+            Map<String, File> jarFiles = Collections.singletonMap("jar", jarFile);
+            if (!BuildCache.restore(STAGE_JAR, jarKey, jarFiles)) {
+                jarPath = buildJar(meta, outputPath);
+                BuildCache.save(STAGE_JAR, jarKey, Collections.singletonMap("jar", new File(outputPath, jarPath)));
+            }
+            BuildCache.markBuilt(outputPath, STAGE_JAR, jarKey);
+        }
 
         // 4、封装脚本
-        String shellOutputFilePath = buildScript(outputPath, jarPath);
+        String shellOutputFilePath = isThin() ? buildThinScript(meta, outputPath, jarPath) : buildScript(outputPath, jarPath);
 
         // 5、生成精简版的程序（产物包）
-        buildDist(outputPath, sourceCopyDestPath, jarPath, shellOutputFilePath);
+        if (!distRestored) {
+            FileUtil.del(distOutputPath);
+            FileUtil.del(distOutputPath + ".zip");
+            buildDist(meta, outputPath, sourceCopyDestPath, jarPath, shellOutputFilePath);
+            BuildCache.save(STAGE_DIST, distKey, distFiles);
+        }
+    }
+
+    /**
+     * 调用方是否只需要产物包（输出目录中的中间产物可以不生成）
+     *
+     * @return
+     */
+    protected boolean isDistOnly() {
+        return false;
+    }
+
+    /**
+     * 是否需要在输出目录中保留一份源模板文件（生成的项目可以直接运行）
+     *
+     * @return
+     */
+    protected boolean isSourceCopyRequired() {
+        return true;
+    }
+
+    /**
+     * 生成产物包
+     *
+     * @param meta
+     * @param outputPath
+     * @param sourceCopyDestPath 源模板文件副本，{@link #isSourceCopyRequired()} 为 false 时不存在
+     * @param jarPath
+     * @param shellOutputFilePath
+     * @return 产物包路径
+     * @throws IOException
+     */
+    protected String buildDist(Meta meta, String outputPath, String sourceCopyDestPath, String jarPath, String shellOutputFilePath) throws IOException {
+        return buildDist(outputPath, sourceCopyDestPath, jarPath, shellOutputFilePath);
     }
 
     /**
@@ -60,7 +186,8 @@ public abstract class GenerateTemplate {
         String jarAbsolutePath = outputPath + File.separator + jarPath;
         FileUtil.copy(jarAbsolutePath, targetAbsolutePath, true);
         // 拷贝脚本文件
-//        FileUtil.copy(shellOutputFilePath, distOutputPath, true);
+        FileUtil.copy(shellOutputFilePath, distOutputPath, true);
+        new File(distOutputPath, new File(shellOutputFilePath).getName()).setExecutable(true, false);
         // windows下加后缀名
         FileUtil.copy(shellOutputFilePath + ".bat", distOutputPath, true);
         // 拷贝源模板文件
@@ -80,6 +207,39 @@ public abstract class GenerateTemplate {
         return zipPath;
     }
 
+    /**
+     * 是否制作精简的产物包：jar 包只包含生成的类，运行时依赖由共享的运行时 jar 包提供
+     *
+     * @return
+     */
+    protected boolean isThin() {
+        return false;
+    }
+
+    /**
+     * 精简产物包的脚本在本地没有共享运行时时的下载地址，默认读取系统属性 generator.runtime.url
+     *
+     * @return 为空时脚本只提示用户指定运行时
+     */
+    protected String getRuntimeUrl() {
+        return System.getProperty("generator.runtime.url");
+    }
+
+    /**
+     * 封装依赖共享运行时的脚本
+     *
+     * @param meta
+     * @param outputPath
+     * @param jarPath
+     * @return shellOutputFilePath
+     * @throws IOException
+     */
+    protected String buildThinScript(Meta meta, String outputPath, String jarPath) throws IOException {
+        String shellOutputFilePath = outputPath + File.separator + "generator";
+        ScriptGenerator.doGenerateThin(shellOutputFilePath, jarPath, meta.getBasePackage() + ".Main", getRuntimeUrl());
+        return shellOutputFilePath;
+    }
+
     /**
      *
      * @param outputPath
@@ -93,6 +253,19 @@ public abstract class GenerateTemplate {
         return shellOutputFilePath;
     }
 
+    /**
+     * jar 包相对于输出目录的路径
+     *
+     * @param meta
+     * @return jarPath
+     */
+    protected String getJarPath(Meta meta) {
+        // 精简的 jar 包和 Maven 默认打出的 jar 包同名
+        String jarName = isThin() ? String.format("%s-%s.jar", meta.getName(), meta.getVersion())
+                : String.format("%s-%s-jar-with-dependencies.jar",meta.getName(),meta.getVersion());
+        return "target/" + jarName;
+    }
+
     /**
      *
      * @param meta
@@ -102,90 +275,91 @@ public abstract class GenerateTemplate {
      * @throws InterruptedException
      */
     protected String buildJar(Meta meta, String outputPath) throws IOException, InterruptedException {
-        JarGenerator.doGenerate(outputPath);
-        String jarName = String.format("%s-%s-jar-with-dependencies.jar",meta.getName(),meta.getVersion());
-        String jarPath = "target/" + jarName;
+        String jarPath = getJarPath(meta);
+        String mainClass = meta.getBasePackage() + ".Main";
+        JarGenerator.doGenerate(outputPath, mainClass, outputPath + File.separator + jarPath, isThin());
         return jarPath;
     }
 
     /**
+     * 代码模板清单，子类可以在此基础上增删
      *
      * @param meta
-     * @param outputPath
-     * @throws IOException
-     * @throws TemplateException
+     * @return
      */
-    protected void generateCode(Meta meta, String outputPath) throws IOException, TemplateException {
-        // 读取 resources 目录
-        String inputResourcePath = "";
-
+    protected List<CodeTemplate> getCodeTemplates(Meta meta) {
         // Java 包基础路径
         String outputBasePackage = meta.getBasePackage();
         String outputBasePackagePath = StrUtil.join("/", StrUtil.split(outputBasePackage, "."));
-        String outputBaseJavaPackagePath = outputPath + File.separator + "src/main/java/" + outputBasePackagePath;
-
-        String inputFilePath;
-        String outputFilePath;
-
-        // model.DataModel
-        inputFilePath = inputResourcePath + File.separator + "templates/java/model/DataModel.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/model/DataModel.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // cli.command.ConfigCommand
-        inputFilePath = inputResourcePath + File.separator + "templates/java/cli/command/ConfigCommand.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/cli/command/ConfigCommand.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // cli.command.GenerateCommand
-        inputFilePath = inputResourcePath + File.separator + "templates/java/cli/command/GenerateCommand.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/cli/command/GenerateCommand.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // cli.command.JsonGenerateCommand
-        inputFilePath = inputResourcePath + File.separator + "templates/java/cli/command/JsonGenerateCommand.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/cli/command/JsonGenerateCommand.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // cli.command.ListCommand
-        inputFilePath = inputResourcePath + File.separator + "templates/java/cli/command/ListCommand.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/cli/command/ListCommand.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // cli.CommandExecutor
-        inputFilePath = inputResourcePath + File.separator + "templates/java/cli/CommandExecutor.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/cli/CommandExecutor.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // Main
-        inputFilePath = inputResourcePath + File.separator + "templates/java/Main.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/Main.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // generator.DynamicGenerator
-        inputFilePath = inputResourcePath + File.separator + "templates/java/generator/DynamicGenerator.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/generator/DynamicGenerator.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // generator.MainGenerator
-        inputFilePath = inputResourcePath + File.separator + "templates/java/generator/MainGenerator.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/generator/MainGenerator.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
-
-        // generator.StaticGenerator
-        inputFilePath = inputResourcePath + File.separator + "templates/java/generator/StaticGenerator.java.ftl";
-        outputFilePath = outputBaseJavaPackagePath + "/generator/StaticGenerator.java";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
+        String outputBaseJavaPackagePath = "src/main/java/" + outputBasePackagePath;
 
-        // pom.xml
-        inputFilePath = inputResourcePath + File.separator + "templates/pom.xml.ftl";
-        outputFilePath = outputPath + File.separator + "pom.xml";
-        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
+        List<CodeTemplate> codeTemplateList = new ArrayList<>();
+        codeTemplateList.add(new CodeTemplate("templates/java/model/DataModel.java.ftl", outputBaseJavaPackagePath + "/model/DataModel.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/cli/command/ConfigCommand.java.ftl", outputBaseJavaPackagePath + "/cli/command/ConfigCommand.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/cli/command/GenerateCommand.java.ftl", outputBaseJavaPackagePath + "/cli/command/GenerateCommand.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/cli/command/JsonGenerateCommand.java.ftl", outputBaseJavaPackagePath + "/cli/command/JsonGenerateCommand.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/cli/command/ListCommand.java.ftl", outputBaseJavaPackagePath + "/cli/command/ListCommand.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/cli/CommandExecutor.java.ftl", outputBaseJavaPackagePath + "/cli/CommandExecutor.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/Main.java.ftl", outputBaseJavaPackagePath + "/Main.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/generator/DynamicGenerator.java.ftl", outputBaseJavaPackagePath + "/generator/DynamicGenerator.java"));
+        // 核心生成器只包含固定的遍历逻辑和生成条件，文件列表写入清单资源
+        codeTemplateList.add(new CodeTemplate("templates/java/generator/MainGenerator.java.ftl", outputBaseJavaPackagePath + "/generator/MainGenerator.java",
+                null, FileManifest::buildModel));
+        codeTemplateList.add(new CodeTemplate("templates/generator-files.json.ftl", "src/main/resources/" + FileManifest.RESOURCE_PATH,
+                null, FileManifest::buildModel));
+        // 特性列表，调用方据此判断能否使用新增的命令行选项
+        codeTemplateList.add(new CodeTemplate("templates/generator-features.ftl", "src/main/resources/" + GeneratorFeatures.RESOURCE_PATH));
+        codeTemplateList.add(new CodeTemplate("templates/java/generator/StaticGenerator.java.ftl", outputBaseJavaPackagePath + "/generator/StaticGenerator.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/generator/OutputManifest.java.ftl", outputBaseJavaPackagePath + "/generator/OutputManifest.java"));
+        codeTemplateList.add(new CodeTemplate("templates/java/generator/OutputSink.java.ftl", outputBaseJavaPackagePath + "/generator/OutputSink.java"));
+        // 预编译的动态模板渲染器，模板内容也是数据模型的一部分
+        codeTemplateList.add(new CodeTemplate("templates/java/generator/TemplateRenderers.java.ftl", outputBaseJavaPackagePath + "/generator/TemplateRenderers.java",
+                null, TemplateAotCompiler::buildRenderersModel));
+        codeTemplateList.add(new CodeTemplate("templates/pom.xml.ftl", "pom.xml"));
+        // README.md 暂不生成
+//        codeTemplateList.add(new CodeTemplate("templates/README.md.ftl", "README.md"));
+        return codeTemplateList;
+    }
 
-        // README.md
-//        inputFilePath = inputResourcePath + File.separator + "templates/README.md.ftl";
-//        outputFilePath = outputPath + File.separator + "README.md";
-//        DynamicFileGenerator.doGenerate(inputFilePath, outputFilePath, meta);
+    /**
+     * 按代码模板清单并发生成代码
+     *
+     * @param meta
+     * @param outputPath
+     * @throws IOException
+     * @throws TemplateException
+     */
+    protected void generateCode(Meta meta, String outputPath) throws IOException, TemplateException {
+        List<Future<?>> futureList = new ArrayList<>();
+        for (CodeTemplate codeTemplate : getCodeTemplates(meta)) {
+            if (!codeTemplate.isEnabled(meta)) {
+                continue;
+            }
+            String outputFilePath = outputPath + File.separator + codeTemplate.getOutputPath();
+            futureList.add(RENDER_EXECUTOR.submit(() -> {
+                DynamicFileGenerator.doGenerate(codeTemplate.getTemplatePath(), outputFilePath, codeTemplate.getModel(meta));
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futureList) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futureList.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("代码生成被中断", e);
+        } catch (ExecutionException e) {
+            futureList.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof TemplateException) {
+                throw (TemplateException) cause;
+            }
+            throw new IOException("代码生成失败", cause);
+        }
     }
 
     /**
@@ -194,11 +368,11 @@ public abstract class GenerateTemplate {
      * @param outputPath
      * @return sourceCopyDestPath
      */
-    protected String copySource(Meta meta, String outputPath) {
+    protected String copySource(Meta meta, String outputPath) throws IOException {
         // 复制原始文件
         String sourceRootPath = meta.getFileConfig().getSourceRootPath();
         String sourceCopyDestPath = outputPath + File.separator + "source";
-        FileUtil.copy(sourceRootPath, sourceCopyDestPath, false);
+        StaticFileGenerator.copyFiles(sourceRootPath, sourceCopyDestPath);
         return sourceCopyDestPath;
     }
 }
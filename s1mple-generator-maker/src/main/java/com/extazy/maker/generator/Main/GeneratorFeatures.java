@@ -0,0 +1,51 @@
+package com.extazy.maker.generator.Main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 生成器支持的特性
+ * <p>
+ * 特性列表写入生成器 jar 包的资源文件（每行一个），调用方据此判断能否使用新增的命令行选项；旧版本的生成器没有该资源
+ */
+public class GeneratorFeatures {
+
+    /**
+     * 特性列表在生成器 jar 包中的资源路径
+     */
+    public static final String RESOURCE_PATH = "META-INF/generator-features";
+
+    /**
+     * json-generate 支持 --zip-stdout：生成结果压缩后写入标准输出
+     */
+    public static final String ZIP_STDOUT = "zip-stdout";
+
+    private GeneratorFeatures() {
+    }
+
+    /**
+     * 生成器 jar 包是否支持指定特性
+     *
+     * @param jarFile
+     * @param feature
+     * @return 读取失败时返回 false
+     */
+    public static boolean supports(File jarFile, String feature) {
+        try (JarFile jar = new JarFile(jarFile)) {
+            JarEntry jarEntry = jar.getJarEntry(RESOURCE_PATH);
+            if (jarEntry == null) {
+                return false;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(jar.getInputStream(jarEntry), StandardCharsets.UTF_8))) {
+                return reader.lines().map(String::trim).anyMatch(feature::equals);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.extazy.maker.generator.Main;
+
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * 生成精简的代码生成器压缩包（jar 包只包含生成的类，依赖共享的运行时 jar 包）
+ */
+public class ThinZipGenerator extends ZipGenerator {
+
+    /**
+     * 共享运行时的下载地址
+     */
+    private final String runtimeUrl;
+
+    public ThinZipGenerator() {
+        this(null);
+    }
+
+    /**
+     * @param runtimeUrl 共享运行时的下载地址，为空时使用系统属性 generator.runtime.url
+     */
+    public ThinZipGenerator(String runtimeUrl) {
+        this.runtimeUrl = runtimeUrl;
+    }
+
+    @Override
+    protected String getRuntimeUrl() {
+        return StrUtil.isNotBlank(runtimeUrl) ? runtimeUrl : super.getRuntimeUrl();
+    }
+
+    @Override
+    protected boolean isThin() {
+        return true;
+    }
+}
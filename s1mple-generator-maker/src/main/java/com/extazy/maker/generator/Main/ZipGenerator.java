@@ -1,18 +1,88 @@
 package com.extazy.maker.generator.Main;
 
+import com.extazy.maker.meta.Meta;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 /**
  * 生成代码生成器压缩包
+ * <p>
+ * 不生成中间的 -dist 目录，也不复制源模板文件，脚本、jar 包和源模板文件从原始位置一次性写入压缩包
  */
 public class ZipGenerator extends GenerateTemplate {
 
     @Override
-    protected String buildDist(String outputPath, String sourceCopyDestPath, String jarPath, String shellOutputFilePath) {
-        String distPath = super.buildDist(outputPath, sourceCopyDestPath, jarPath, shellOutputFilePath);
-        return super.buildZip(distPath);
+    protected boolean isSourceCopyRequired() {
+        return false;
     }
-}
 
+    @Override
+    protected boolean isDistOnly() {
+        return true;
+    }
 
+    @Override
+    protected String buildDist(Meta meta, String outputPath, String sourceCopyDestPath, String jarPath, String shellOutputFilePath) throws IOException {
+        String zipPath = outputPath + "-dist.zip";
+        Path sourceRootPath = Paths.get(meta.getFileConfig().getSourceRootPath());
+        // 和目录版产物包的结构保持一致：generator、generator.bat、target/xxx.jar、source/{源目录名}/...
+        String sourcePrefix = "source/" + sourceRootPath.getFileName() + "/";
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(Paths.get(zipPath))))) {
+            // jar 包本身已经压缩过，用最快的压缩级别
+            zipOutputStream.setLevel(Deflater.BEST_SPEED);
+            putDirEntry(zipOutputStream, "target/");
+            putFileEntry(zipOutputStream, Paths.get(outputPath, jarPath), jarPath);
+            zipOutputStream.setLevel(Deflater.DEFAULT_COMPRESSION);
+            String shellFileName = new File(shellOutputFilePath).getName();
+            putFileEntry(zipOutputStream, Paths.get(shellOutputFilePath), shellFileName);
+            putFileEntry(zipOutputStream, Paths.get(shellOutputFilePath + ".bat"), shellFileName + ".bat");
 
+            putDirEntry(zipOutputStream, "source/");
+            Files.walkFileTree(sourceRootPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    putDirEntry(zipOutputStream, sourcePrefix + toEntryName(sourceRootPath.relativize(dir), true));
+                    return FileVisitResult.CONTINUE;
+                }
 
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    putFileEntry(zipOutputStream, file, sourcePrefix + toEntryName(sourceRootPath.relativize(file), false));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return zipPath;
+    }
 
+    private static String toEntryName(Path relativePath, boolean isDir) {
+        String name = relativePath.toString().replace(File.separatorChar, '/');
+        if (isDir && !name.isEmpty()) {
+            name += "/";
+        }
+        return name;
+    }
+
+    private static void putDirEntry(ZipOutputStream zipOutputStream, String entryName) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(entryName));
+        zipOutputStream.closeEntry();
+    }
+
+    private static void putFileEntry(ZipOutputStream zipOutputStream, Path file, String entryName) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(entryName));
+        Files.copy(file, (OutputStream) zipOutputStream);
+        zipOutputStream.closeEntry();
+    }
+}
@@ -1,33 +1,118 @@
 package com.extazy.maker.generator;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 public class ScriptGenerator {
+
+    /**
+     * 脚本格式版本，脚本内容变化时需要升级（产物包缓存键的一部分）
+     */
+    public static final String VERSION = "2";
+
     public static void doGenerate(String outputPath, String jarPath) throws IOException {
         // 直接写入脚本文件
-//        // linux
-//        StringBuilder sb = new StringBuilder();
-//        sb.append("#!/bin/bash").append("\n");
-//        sb.append(String.format("java -jar %s \"$@\"", jarPath)).append("\n");
-//        FileUtil.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8), outputPath);
-//        // 添加可执行权限
-//        try {
-//            Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxrwxrwx");
-//            Files.setPosixFilePermissions(Paths.get(outputPath), permissions);
-//        } catch (Exception e) {
-//
-//        }
+        // linux
+        StringBuilder sb = new StringBuilder();
+        sb.append("#!/bin/sh").append("\n");
+        sb.append("DIR=$(cd \"$(dirname \"$0\")\" && pwd)").append("\n");
+        sb.append(String.format("exec java -jar \"$DIR/%s\" \"$@\"", jarPath)).append("\n");
+        writeShellScript(sb.toString(), outputPath);
 
         // windows
+        sb = new StringBuilder();
+        sb.append("@echo off").append("\r\n");
+        sb.append(String.format("java -jar %s %%*", jarPath)).append("\r\n");
+        FileUtil.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8), outputPath + ".bat");
+    }
+
+    /**
+     * 生成依赖共享运行时的脚本（linux 和 windows 各一份）
+     * <p>
+     * 运行时 jar 包默认缓存在用户目录的 .s1mple-generator/lib 下，也可以通过环境变量 GENERATOR_RUNTIME_JAR 指定；
+     * 不存在时从 GENERATOR_RUNTIME_URL（默认为制作时指定的地址）下载
+     *
+     * @param outputPath
+     * @param jarPath
+     * @param mainClass
+     * @param runtimeUrl 共享运行时的下载地址，可以为空
+     * @throws IOException
+     */
+    public static void doGenerateThin(String outputPath, String jarPath, String mainClass, String runtimeUrl) throws IOException {
+        String url = StrUtil.nullToEmpty(runtimeUrl);
+        // linux
         StringBuilder sb = new StringBuilder();
+        sb.append("#!/bin/sh").append("\n");
+        sb.append("DIR=$(cd \"$(dirname \"$0\")\" && pwd)").append("\n");
+        sb.append(String.format("RUNTIME_JAR=\"${GENERATOR_RUNTIME_JAR:-$HOME/.s1mple-generator/lib/%s}\"", JarGenerator.RUNTIME_JAR_NAME)).append("\n");
+        sb.append(String.format("DEFAULT_RUNTIME_URL='%s'", url.replace("'", "'\\''"))).append("\n");
+        sb.append("RUNTIME_URL=\"${GENERATOR_RUNTIME_URL:-$DEFAULT_RUNTIME_URL}\"").append("\n");
+        sb.append("if [ ! -f \"$RUNTIME_JAR\" ]; then").append("\n");
+        sb.append("    if [ -z \"$RUNTIME_URL\" ]; then").append("\n");
+        sb.append("        echo \"Generator runtime not found: $RUNTIME_JAR\" >&2").append("\n");
+        sb.append("        echo \"Set GENERATOR_RUNTIME_JAR, or GENERATOR_RUNTIME_URL to download it\" >&2").append("\n");
+        sb.append("        exit 1").append("\n");
+        sb.append("    fi").append("\n");
+        sb.append("    echo \"Downloading generator runtime to $RUNTIME_JAR\" >&2").append("\n");
+        sb.append("    mkdir -p \"$(dirname \"$RUNTIME_JAR\")\" || exit 1").append("\n");
+        sb.append("    TEMP_JAR=\"$RUNTIME_JAR.$$.tmp\"").append("\n");
+        sb.append("    if command -v curl >/dev/null 2>&1; then").append("\n");
+        sb.append("        curl -fsSL -o \"$TEMP_JAR\" \"$RUNTIME_URL\"").append("\n");
+        sb.append("    else").append("\n");
+        sb.append("        wget -q -O \"$TEMP_JAR\" \"$RUNTIME_URL\"").append("\n");
+        sb.append("    fi").append("\n");
+        sb.append("    if [ $? -ne 0 ]; then").append("\n");
+        sb.append("        rm -f \"$TEMP_JAR\"").append("\n");
+        sb.append("        echo \"Failed to download generator runtime from $RUNTIME_URL\" >&2").append("\n");
+        sb.append("        exit 1").append("\n");
+        sb.append("    fi").append("\n");
+        sb.append("    mv -f \"$TEMP_JAR\" \"$RUNTIME_JAR\" || exit 1").append("\n");
+        sb.append("fi").append("\n");
+        sb.append(String.format("exec java -cp \"$DIR/%s:$RUNTIME_JAR\" %s \"$@\"", jarPath, mainClass)).append("\n");
+        writeShellScript(sb.toString(), outputPath);
+
+        // windows（下载使用系统自带的 PowerShell）
         sb = new StringBuilder();
-        sb.append("@echo off").append("\n");
-        sb.append(String.format("java -jar %s %%*", jarPath)).append("\n");
+        sb.append("@echo off").append("\r\n");
+        sb.append("setlocal").append("\r\n");
+        sb.append("set \"RUNTIME_JAR=%GENERATOR_RUNTIME_JAR%\"").append("\r\n");
+        sb.append(String.format("if \"%%RUNTIME_JAR%%\"==\"\" set \"RUNTIME_JAR=%%USERPROFILE%%\\.s1mple-generator\\lib\\%s\"", JarGenerator.RUNTIME_JAR_NAME)).append("\r\n");
+        sb.append("set \"RUNTIME_URL=%GENERATOR_RUNTIME_URL%\"").append("\r\n");
+        sb.append(String.format("if \"%%RUNTIME_URL%%\"==\"\" set \"RUNTIME_URL=%s\"", url.replace("%", "%%"))).append("\r\n");
+        sb.append("if not exist \"%RUNTIME_JAR%\" (").append("\r\n");
+        sb.append("    if \"%RUNTIME_URL%\"==\"\" (").append("\r\n");
+        sb.append("        echo Generator runtime not found: %RUNTIME_JAR%").append("\r\n");
+        sb.append("        echo Set GENERATOR_RUNTIME_JAR, or GENERATOR_RUNTIME_URL to download it").append("\r\n");
+        sb.append("        exit /b 1").append("\r\n");
+        sb.append("    )").append("\r\n");
+        sb.append("    echo Downloading generator runtime to %RUNTIME_JAR%").append("\r\n");
+        sb.append("    powershell -NoProfile -ExecutionPolicy Bypass -Command \"$ErrorActionPreference = 'Stop';"
+                + " [Net.ServicePointManager]::SecurityProtocol = [Net.SecurityProtocolType]::Tls12;"
+                + " New-Item -ItemType Directory -Force -Path (Split-Path $env:RUNTIME_JAR) | Out-Null;"
+                + " $temp = $env:RUNTIME_JAR + '.' + $PID + '.tmp';"
+                + " Invoke-WebRequest -UseBasicParsing -Uri $env:RUNTIME_URL -OutFile $temp;"
+                + " Move-Item -Force $temp $env:RUNTIME_JAR\"").append("\r\n");
+        sb.append("    if errorlevel 1 (").append("\r\n");
+        sb.append("        echo Failed to download generator runtime").append("\r\n");
+        sb.append("        exit /b 1").append("\r\n");
+        sb.append("    )").append("\r\n");
+        sb.append(")").append("\r\n");
+        sb.append(String.format("java -cp \"%%~dp0%s;%%RUNTIME_JAR%%\" %s %%*", jarPath, mainClass)).append("\r\n");
         FileUtil.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8), outputPath + ".bat");
     }
-}
 
+    /**
+     * 写入 linux 脚本并添加可执行权限
+     *
+     * @param content
+     * @param outputPath
+     */
+    private static void writeShellScript(String content, String outputPath) {
+        FileUtil.writeBytes(content.getBytes(StandardCharsets.UTF_8), outputPath);
+        new File(outputPath).setExecutable(true, false);
+    }
+}
@@ -0,0 +1,437 @@
+package com.extazy.maker.generator.aot;
+
+import cn.hutool.core.collection.CollUtil;
+import com.extazy.maker.meta.Meta;
+import com.extazy.maker.meta.enums.FileGenerateTypeEnum;
+import com.extazy.maker.meta.enums.FileTypeEnum;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 模板预编译
+ * <p>
+ * 把只用到简单语法的 FTL 模板（文本、${字段}、${分组.字段}、${字段?c}、&lt;#if 字段&gt; / &lt;#else&gt; / &lt;/#if&gt;、注释）
+ * 翻译成直接向 Writer 写入文本和数据模型字段的 Java 代码，编译进生成器中；
+ * 用到其他语法的模板不预编译，生成时仍由 FreeMarker 渲染
+ */
+public class TemplateAotCompiler {
+
+    /**
+     * 单个模板最多的语句数，超出后不预编译（避免超过 Java 方法的大小限制）
+     */
+    private static final int MAX_STATEMENT_COUNT = 2000;
+
+    /**
+     * 单个字符串常量的最大长度（UTF-8 编码后不能超过 65535 字节）
+     */
+    private static final int MAX_LITERAL_LENGTH = 8192;
+
+    /**
+     * 支持的字段类型
+     */
+    private static final List<String> SUPPORTED_TYPES = Arrays.asList("String", "boolean", "int", "long");
+
+    /**
+     * 只包含 FTL 标签的行（FreeMarker 会去掉这种行的缩进、行尾空白和换行）
+     */
+    private static final Pattern TAG_ONLY_LINE_PATTERN = Pattern.compile(
+            "[ \\t]*((?:(?:<#if\\s[^>]*>|<#else>|</#if>|<#--.*?-->)[ \\t]*)+)(?:\\r\\n|\\n|\\r)?");
+
+    /**
+     * 标签和插值
+     */
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("<#--(.*?)-->|<#if\\s+([^>]*)>|<#else>|</#if>|\\$\\{([^}]*)}",
+            Pattern.DOTALL);
+
+    /**
+     * 其他 FreeMarker 语法的开头，出现时不预编译
+     */
+    private static final Pattern UNSUPPORTED_PATTERN = Pattern.compile("<#|</#|<@|</@|#\\{|\\$\\{");
+
+    private static final Pattern PATH_PATTERN = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)?");
+
+    private TemplateAotCompiler() {
+    }
+
+    /**
+     * 构造预编译渲染器类（templates/java/generator/TemplateRenderers.java.ftl）的数据模型
+     *
+     * @param meta
+     * @return
+     */
+    public static Map<String, Object> buildRenderersModel(Meta meta) {
+        Map<String, String> fieldTypeMap = getFieldTypeMap(meta.getModelConfig());
+        List<Map<String, Object>> rendererList = new ArrayList<>();
+        for (Meta.FileConfig.FileInfo fileInfo : getDynamicFileInfoList(meta.getFileConfig())) {
+            File templateFile = new File(meta.getFileConfig().getSourceRootPath(), fileInfo.getInputPath());
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(templateFile.toPath());
+            } catch (IOException e) {
+                continue;
+            }
+            List<String> statementList = compile(new String(bytes, StandardCharsets.UTF_8), fieldTypeMap);
+            if (statementList == null) {
+                continue;
+            }
+            CRC32 crc32 = new CRC32();
+            crc32.update(bytes);
+            Map<String, Object> renderer = new HashMap<>();
+            renderer.put("inputPath", toJavaString(fileInfo.getInputPath().replace('\\', '/')));
+            renderer.put("length", String.valueOf(bytes.length));
+            renderer.put("crc", String.valueOf(crc32.getValue()));
+            renderer.put("methodName", "render" + rendererList.size());
+            renderer.put("statements", statementList);
+            rendererList.add(renderer);
+        }
+        Map<String, Object> model = new HashMap<>();
+        model.put("basePackage", meta.getBasePackage());
+        model.put("renderers", rendererList);
+        return model;
+    }
+
+    /**
+     * 把模板翻译为 Java 语句
+     *
+     * @param source       模板内容
+     * @param fieldTypeMap 字段路径 => 类型
+     * @return 不支持时返回 null
+     */
+    static List<String> compile(String source, Map<String, String> fieldTypeMap) {
+        if (isFirstTagLineIndented(source)) {
+            return null;
+        }
+        String stripped = stripTagOnlyLines(source);
+        if (stripped == null) {
+            return null;
+        }
+        List<String> statementList = new ArrayList<>();
+        // 渲染前需要检查不为 null 的表达式（分组对象在前，字段在后）
+        Set<String> groupNullCheckSet = new LinkedHashSet<>();
+        Set<String> fieldNullCheckSet = new LinkedHashSet<>();
+        int depth = 0;
+        // 每一层 if 是否已经出现 else
+        List<Boolean> elseList = new ArrayList<>();
+        Matcher matcher = TOKEN_PATTERN.matcher(stripped);
+        int position = 0;
+        while (matcher.find()) {
+            if (!appendText(statementList, stripped.substring(position, matcher.start()), depth)) {
+                return null;
+            }
+            position = matcher.end();
+            String token = matcher.group();
+            String indent = indent(depth);
+            if (token.startsWith("<#--")) {
+                continue;
+            }
+            if (token.startsWith("${")) {
+                String path = matcher.group(3).trim();
+                String statement = compileInterpolation(path, fieldTypeMap);
+                if (statement == null) {
+                    return null;
+                }
+                addGroupNullCheck(groupNullCheckSet, path);
+                // 值为 null 时 FreeMarker 会报错，交给 FreeMarker 渲染得到一致的错误
+                String fieldPath = path.endsWith("?c") ? path.substring(0, path.length() - 2).trim() : path;
+                if ("String".equals(fieldTypeMap.get(fieldPath))) {
+                    fieldNullCheckSet.add("model." + fieldPath);
+                }
+                statementList.add(indent + statement);
+            } else if (token.startsWith("<#if")) {
+                String condition = compileCondition(matcher.group(2).trim(), fieldTypeMap);
+                if (condition == null) {
+                    return null;
+                }
+                addGroupNullCheck(groupNullCheckSet, matcher.group(2).trim());
+                statementList.add(indent + "if (" + condition + ") {");
+                elseList.add(false);
+                depth++;
+            } else if ("<#else>".equals(token)) {
+                if (depth == 0 || elseList.get(depth - 1)) {
+                    return null;
+                }
+                elseList.set(depth - 1, true);
+                statementList.add(indent(depth - 1) + "} else {");
+            } else {
+                if (depth == 0) {
+                    return null;
+                }
+                depth--;
+                elseList.remove(depth);
+                statementList.add(indent(depth) + "}");
+            }
+            if (statementList.size() > MAX_STATEMENT_COUNT) {
+                return null;
+            }
+        }
+        if (depth != 0 || !appendText(statementList, stripped.substring(position), 0)) {
+            return null;
+        }
+        // 在写入任何内容之前检查，需要交给 FreeMarker 时还没有输出，可以直接写入目标而不用先渲染到内存
+        List<String> nullCheckList = new ArrayList<>(groupNullCheckSet);
+        nullCheckList.addAll(fieldNullCheckSet);
+        for (int i = nullCheckList.size() - 1; i >= 0; i--) {
+            statementList.add(0, "if (" + nullCheckList.get(i) + " == null) return false;");
+        }
+        return statementList.size() > MAX_STATEMENT_COUNT ? null : statementList;
+    }
+
+    /**
+     * 去掉只包含 FTL 标签的行的缩进、行尾空白和换行，和 FreeMarker 的空白处理保持一致
+     *
+     * @param source
+     * @return 有跨行的标签或注释时返回 null
+     */
+    private static String stripTagOnlyLines(String source) {
+        StringBuilder sb = new StringBuilder(source.length());
+        int lineStart = 0;
+        while (lineStart < source.length()) {
+            int lineEnd = lineStart;
+            while (lineEnd < source.length() && source.charAt(lineEnd) != '\n' && source.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            if (lineEnd < source.length()) {
+                lineEnd += source.startsWith("\r\n", lineEnd) ? 2 : 1;
+            }
+            String line = source.substring(lineStart, lineEnd);
+            // 标签或注释跨行，不预编译
+            if (hasUnclosed(line, "<#--", "-->") || hasUnclosed(line, "<#if", ">")) {
+                return null;
+            }
+            Matcher matcher = TAG_ONLY_LINE_PATTERN.matcher(line);
+            sb.append(matcher.matches() ? matcher.group(1).trim() : line);
+            lineStart = lineEnd;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 第一个标签或注释是否在有缩进的只包含标签的行上
+     * <p>
+     * FreeMarker 不处理模板开头第一段文本的空白，这一行的缩进（有时还有换行）会保留下来，结果和 {@link #stripTagOnlyLines} 不一致
+     *
+     * @param source
+     * @return
+     */
+    private static boolean isFirstTagLineIndented(String source) {
+        Matcher matcher = TOKEN_PATTERN.matcher(source);
+        if (!matcher.find() || matcher.group().startsWith("${")) {
+            return false;
+        }
+        int lineStart = Math.max(source.lastIndexOf('\n', matcher.start()), source.lastIndexOf('\r', matcher.start())) + 1;
+        if (lineStart == matcher.start()) {
+            return false;
+        }
+        int lineEnd = lineStart;
+        while (lineEnd < source.length() && source.charAt(lineEnd) != '\n' && source.charAt(lineEnd) != '\r') {
+            lineEnd++;
+        }
+        return TAG_ONLY_LINE_PATTERN.matcher(source.substring(lineStart, lineEnd)).matches();
+    }
+
+    private static boolean hasUnclosed(String line, String open, String close) {
+        int index = line.lastIndexOf(open);
+        return index >= 0 && line.indexOf(close, index + open.length()) < 0;
+    }
+
+    /**
+     * 追加文本
+     *
+     * @param statementList
+     * @param text
+     * @param depth
+     * @return 文本中有其他 FreeMarker 语法时返回 false
+     */
+    private static boolean appendText(List<String> statementList, String text, int depth) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        if (UNSUPPORTED_PATTERN.matcher(text).find()) {
+            return false;
+        }
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + MAX_LITERAL_LENGTH);
+            // 不在代理对中间切分，否则两个常量中各有半个字符，写入源文件时会变成 ?
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            statementList.add(indent(depth) + "out.write(" + toJavaString(text.substring(start, end)) + ");");
+            start = end;
+        }
+        return true;
+    }
+
+    /**
+     * 翻译插值
+     *
+     * @param expression
+     * @param fieldTypeMap
+     * @return
+     */
+    private static String compileInterpolation(String expression, Map<String, String> fieldTypeMap) {
+        boolean computerFormat = expression.endsWith("?c");
+        String path = computerFormat ? expression.substring(0, expression.length() - 2).trim() : expression;
+        if (!PATH_PATTERN.matcher(path).matches()) {
+            return null;
+        }
+        String type = fieldTypeMap.get(path);
+        if (type == null) {
+            return null;
+        }
+        String field = "model." + path;
+        if ("String".equals(type)) {
+            return "out.write(" + field + ");";
+        }
+        // 布尔值和数字只支持 ?c（计算机格式），默认格式和语言区域有关
+        if (!computerFormat) {
+            return null;
+        }
+        return "out.write(String.valueOf(" + field + "));";
+    }
+
+    /**
+     * 翻译条件
+     *
+     * @param expression
+     * @param fieldTypeMap
+     * @return
+     */
+    private static String compileCondition(String expression, Map<String, String> fieldTypeMap) {
+        boolean negate = expression.startsWith("!");
+        String path = negate ? expression.substring(1).trim() : expression;
+        if (!PATH_PATTERN.matcher(path).matches() || !"boolean".equals(fieldTypeMap.get(path))) {
+            return null;
+        }
+        return (negate ? "!" : "") + "model." + path;
+    }
+
+    /**
+     * 分组字段的分组对象为 null 时交给 FreeMarker 渲染
+     *
+     * @param groupNullCheckSet
+     * @param expression        字段路径，可以带 ! 前缀和 ?c 后缀
+     */
+    private static void addGroupNullCheck(Set<String> groupNullCheckSet, String expression) {
+        String path = expression.startsWith("!") ? expression.substring(1).trim() : expression;
+        int index = path.indexOf('.');
+        if (index >= 0) {
+            groupNullCheckSet.add("model." + path.substring(0, index));
+        }
+    }
+
+    /**
+     * 数据模型中的字段路径（字段名 / 分组键.字段名）=> 类型
+     *
+     * @param modelConfig
+     * @return
+     */
+    private static Map<String, String> getFieldTypeMap(Meta.ModelConfig modelConfig) {
+        Map<String, String> fieldTypeMap = new LinkedHashMap<>();
+        if (modelConfig == null || CollUtil.isEmpty(modelConfig.getModels())) {
+            return fieldTypeMap;
+        }
+        for (Meta.ModelConfig.ModelInfo modelInfo : modelConfig.getModels()) {
+            if (modelInfo.getGroupKey() != null) {
+                if (CollUtil.isEmpty(modelInfo.getModels())) {
+                    continue;
+                }
+                for (Meta.ModelConfig.ModelInfo subModelInfo : modelInfo.getModels()) {
+                    if (SUPPORTED_TYPES.contains(subModelInfo.getType())) {
+                        fieldTypeMap.put(modelInfo.getGroupKey() + "." + subModelInfo.getFieldName(), subModelInfo.getType());
+                    }
+                }
+            } else if (SUPPORTED_TYPES.contains(modelInfo.getType())) {
+                fieldTypeMap.put(modelInfo.getFieldName(), modelInfo.getType());
+            }
+        }
+        return fieldTypeMap;
+    }
+
+    /**
+     * 所有动态文件
+     *
+     * @param fileConfig
+     * @return
+     */
+    private static List<Meta.FileConfig.FileInfo> getDynamicFileInfoList(Meta.FileConfig fileConfig) {
+        List<Meta.FileConfig.FileInfo> dynamicFileInfoList = new ArrayList<>();
+        if (fileConfig == null || CollUtil.isEmpty(fileConfig.getFiles())) {
+            return dynamicFileInfoList;
+        }
+        for (Meta.FileConfig.FileInfo fileInfo : fileConfig.getFiles()) {
+            List<Meta.FileConfig.FileInfo> fileInfoList = FileTypeEnum.GROUP.getValue().equals(fileInfo.getType())
+                    ? fileInfo.getFiles() : Arrays.asList(fileInfo);
+            if (fileInfoList == null) {
+                continue;
+            }
+            for (Meta.FileConfig.FileInfo subFileInfo : fileInfoList) {
+                if (FileGenerateTypeEnum.DYNAMIC.getValue().equals(subFileInfo.getGenerateType())) {
+                    dynamicFileInfoList.add(subFileInfo);
+                }
+            }
+        }
+        return dynamicFileInfoList;
+    }
+
+    private static String indent(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append("    ");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 转为 Java 字符串字面量
+     *
+     * @param text
+     * @return
+     */
+    private static String toJavaString(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x7f) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
@@ -1,15 +1,11 @@
 package com.extazy.maker.generator.file;
 
-import cn.hutool.core.io.FileUtil;
-import freemarker.cache.ClassTemplateLoader;
-import freemarker.template.Configuration;
+import com.extazy.maker.generator.output.OutputSink;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
 
 /**
  * 动态文件生成
@@ -26,34 +22,24 @@ public class DynamicFileGenerator {
      * @throws TemplateException
      */
     public static void doGenerate(String relativeInputPath, String outputPath, Object model) throws IOException, TemplateException {
-        // new 出 Configuration 对象，参数为 FreeMarker 版本号
-        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
-
-        int lastSplitIndex = relativeInputPath.lastIndexOf("/");
-        String basePackagePath = relativeInputPath.substring(0, lastSplitIndex);
-        String templateName = relativeInputPath.substring(lastSplitIndex + 1);
-
-        // 指定模板文件所在的路径
-        ClassTemplateLoader templateLoader = new ClassTemplateLoader(DynamicFileGenerator.class, basePackagePath);
-        configuration.setTemplateLoader(templateLoader);
-
-        // 设置模板文件使用的字符集
-        configuration.setDefaultEncoding("utf-8");
-
-        // 创建模板对象，加载指定模板
-        Template template = configuration.getTemplate(templateName);
-
-        // 文件不存在则创建文件和父目录
-        if (!FileUtil.exist(outputPath)) {
-            FileUtil.touch(outputPath);
-        }
-
-        // 生成
-        Writer out = new FileWriter(outputPath);
-        template.process(model, out);
+        // 使用共享的配置，模板解析后缓存
+        Template template = TemplateRenderer.getClassPathTemplate(relativeInputPath);
+        TemplateRenderer.render(template, model, outputPath);
+    }
 
-        // 生成文件后关闭
-        out.close();
+    /**
+     * 使用相对路径生成文件到输出目标
+     *
+     * @param relativeInputPath 相对输入路径
+     * @param outputSink        输出目标
+     * @param outputPath        相对于输出目标根的输出路径
+     * @param model             数据模型
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void doGenerate(String relativeInputPath, OutputSink outputSink, String outputPath, Object model) throws IOException, TemplateException {
+        Template template = TemplateRenderer.getClassPathTemplate(relativeInputPath);
+        TemplateRenderer.render(template, model, outputSink, outputPath);
     }
 
     /**
@@ -67,31 +53,10 @@ public class DynamicFileGenerator {
      */
     @Deprecated
     public static void doGenerateByPath(String inputPath, String outputPath, Object model) throws IOException, TemplateException {
-        // new 出 Configuration 对象，参数为 FreeMarker 版本号
-        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
-
         // 指定模板文件所在的路径
-        File templateDir = new File(inputPath).getParentFile();
-        configuration.setDirectoryForTemplateLoading(templateDir);
-
-        // 设置模板文件使用的字符集
-        configuration.setDefaultEncoding("utf-8");
-
-        // 创建模板对象，加载指定模板
-        String templateName = new File(inputPath).getName();
-        Template template = configuration.getTemplate(templateName);
-
-        // 文件不存在则创建文件和父目录
-        if (!FileUtil.exist(outputPath)) {
-            FileUtil.touch(outputPath);
-        }
-
-        // 生成
-        Writer out = new FileWriter(outputPath);
-        template.process(model, out);
-
-        // 生成文件后关闭
-        out.close();
+        File inputFile = new File(inputPath);
+        Template template = TemplateRenderer.getTemplate(inputFile.getParentFile(), inputFile.getName());
+        TemplateRenderer.render(template, model, outputPath);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+package com.extazy.maker.generator.file;
+
+import cn.hutool.core.util.StrUtil;
+import com.extazy.maker.generator.output.FileSystemOutputSink;
+import com.extazy.maker.generator.output.OutputSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 静态文件拷贝
+ * <p>
+ * 与 FileUtil.copy(inputPath, outputPath, false) 的语义相同（目录拷贝到输出目录下，已存在的文件不覆盖），
+ * 但文件内容由内核直接拷贝（Files.copy / FileChannel.transferTo），目录遍历时跳过匹配的目录，
+ * 文件较多且在 ForkJoinPool 中执行时并行拷贝；还可以选择硬链接或 reflink（写时复制）代替拷贝
+ */
+public class FileCopier {
+
+    /**
+     * 拷贝方式
+     */
+    public enum LinkMode {
+
+        /**
+         * 拷贝文件内容
+         */
+        COPY,
+
+        /**
+         * 硬链接（与源文件共用数据，修改输出文件会同时修改源文件），不在同一个文件系统时退回拷贝
+         */
+        HARDLINK,
+
+        /**
+         * reflink 写时复制（仅 Linux，使用 cp --reflink=auto，只用于大文件），不支持时退回拷贝
+         */
+        REFLINK;
+
+        public static LinkMode of(String value) {
+            if (StrUtil.isBlank(value)) {
+                return COPY;
+            }
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * 超过该大小的文件使用 FileChannel.transferTo 拷贝
+     */
+    private static final long TRANSFER_THRESHOLD = 64 * 1024;
+
+    /**
+     * reflink 方式下超过该大小的文件才启动 cp 进程
+     */
+    private static final long REFLINK_THRESHOLD = 1024 * 1024;
+
+    /**
+     * 文件数超过该值时并行拷贝
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    /**
+     * 默认实例，可以通过系统属性 generator.copy.link-mode（copy / hardlink / reflink）
+     * 和 generator.copy.skip（逗号分隔的 glob，匹配文件名或相对路径）配置
+     */
+    private static final FileCopier DEFAULT = new FileCopier(LinkMode.of(System.getProperty("generator.copy.link-mode")),
+            StrUtil.split(System.getProperty("generator.copy.skip", ""), ',', true, true));
+
+    private final LinkMode linkMode;
+
+    private final List<PathMatcher> skipMatcherList;
+
+    /**
+     * @param linkMode     拷贝方式
+     * @param skipPatterns 跳过的文件或目录（glob，匹配文件名或相对路径）
+     */
+    public FileCopier(LinkMode linkMode, List<String> skipPatterns) {
+        this.linkMode = linkMode;
+        this.skipMatcherList = skipPatterns.stream()
+                .map(pattern -> FileSystems.getDefault().getPathMatcher("glob:" + pattern))
+                .collect(Collectors.toList());
+    }
+
+    public static FileCopier getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 拷贝文件或目录
+     * <p>
+     * 文件 A => 目录 B，则文件 A 放在目录 B 下；文件 A => 文件 B，目标已存在时不覆盖；
+     * 目录 A => 目录 B，则目录 A 放在目录 B 下
+     *
+     * @param inputPath
+     * @param outputPath
+     * @throws IOException
+     */
+    public void copy(String inputPath, String outputPath) throws IOException {
+        Path source = Paths.get(inputPath);
+        Path target = Paths.get(outputPath);
+        if (!Files.exists(source)) {
+            throw new NoSuchFileException(inputPath);
+        }
+        if (Files.isDirectory(source)) {
+            copyDirectory(source, target.resolve(source.getFileName().toString()));
+            return;
+        }
+        Path dest = Files.isDirectory(target) ? target.resolve(source.getFileName().toString()) : target;
+        if (dest.getParent() != null) {
+            Files.createDirectories(dest.getParent());
+        }
+        copyFile(source, dest);
+    }
+
+    /**
+     * 拷贝文件或目录到输出目标，语义与 {@link #copy(String, String)} 相同
+     *
+     * @param inputPath
+     * @param outputSink
+     * @param outputPath 相对于输出目标根的路径
+     * @throws IOException
+     */
+    public void copy(String inputPath, OutputSink outputSink, String outputPath) throws IOException {
+        if (outputSink instanceof FileSystemOutputSink) {
+            copy(inputPath, ((FileSystemOutputSink) outputSink).resolve(outputPath).getAbsolutePath());
+            return;
+        }
+        Path source = Paths.get(inputPath);
+        if (!Files.exists(source)) {
+            throw new NoSuchFileException(inputPath);
+        }
+        if (!Files.isDirectory(source)) {
+            copyFile(source, outputSink, outputPath);
+            return;
+        }
+        String targetPath = joinPath(outputPath, source.getFileName().toString());
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(source) && isSkipped(source, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                outputSink.mkdirs(joinPath(targetPath, source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!isSkipped(source, file)) {
+                    copyFile(file, outputSink, joinPath(targetPath, source.relativize(file).toString()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void copyFile(Path source, OutputSink outputSink, String path) throws IOException {
+        if (outputSink.exists(path)) {
+            return;
+        }
+        try (OutputStream outputStream = outputSink.open(path)) {
+            Files.copy(source, outputStream);
+        }
+    }
+
+    private static String joinPath(String parent, String child) {
+        String path = child.replace('\\', '/');
+        if (path.isEmpty()) {
+            return parent;
+        }
+        return parent.isEmpty() || parent.endsWith("/") ? parent + path : parent + "/" + path;
+    }
+
+    /**
+     * 拷贝目录：遍历时创建目录并跳过匹配的子树，收集文件后再拷贝（在 ForkJoinPool 中时并行）
+     *
+     * @param source
+     * @param target
+     * @throws IOException
+     */
+    private void copyDirectory(Path source, Path target) throws IOException {
+        List<Path[]> fileList = new ArrayList<>();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(source) && isSkipped(source, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!isSkipped(source, file)) {
+                    fileList.add(new Path[]{file, target.resolve(source.relativize(file).toString())});
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        // 只在调用方所在的 ForkJoinPool 中并行（如 MainGenerator 的生成线程池），并发度由调用方控制；
+        // 不在其中时（如后端进程内执行）顺序拷贝，不占用公共池
+        if (fileList.size() < PARALLEL_THRESHOLD || !ForkJoinTask.inForkJoinPool()) {
+            for (Path[] file : fileList) {
+                copyFile(file[0], file[1]);
+            }
+            return;
+        }
+        try {
+            fileList.parallelStream().forEach(file -> {
+                try {
+                    copyFile(file[0], file[1]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private boolean isSkipped(Path root, Path path) {
+        if (skipMatcherList.isEmpty()) {
+            return false;
+        }
+        Path relativePath = root.relativize(path);
+        Path fileName = path.getFileName();
+        for (PathMatcher matcher : skipMatcherList) {
+            if (matcher.matches(relativePath) || (fileName != null && matcher.matches(fileName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拷贝单个文件，目标已存在时不覆盖
+     *
+     * @param source
+     * @param dest
+     * @throws IOException
+     */
+    private void copyFile(Path source, Path dest) throws IOException {
+        if (Files.exists(dest, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try {
+            if (linkMode == LinkMode.HARDLINK && tryHardLink(source, dest)) {
+                return;
+            }
+            long size = Files.size(source);
+            if (linkMode == LinkMode.REFLINK && size >= REFLINK_THRESHOLD && tryReflink(source, dest)) {
+                return;
+            }
+            if (size < TRANSFER_THRESHOLD) {
+                Files.copy(source, dest);
+                return;
+            }
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < size) {
+                    long count = in.transferTo(position, size - position, out);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                }
+            }
+        } catch (FileAlreadyExistsException e) {
+            // 并发拷贝到同一个目标，保持不覆盖
+        }
+    }
+
+    private static boolean tryHardLink(Path source, Path dest) throws FileAlreadyExistsException {
+        try {
+            Files.createLink(dest, source);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // 跨文件系统或不支持硬链接
+            return false;
+        }
+    }
+
+    private static boolean tryReflink(Path source, Path dest) {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
+            return false;
+        }
+        try {
+            Process process = new ProcessBuilder("cp", "--reflink=auto", "-n", source.toString(), dest.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File("/dev/null"))
+                    .start();
+            if (process.waitFor(60, TimeUnit.SECONDS) && process.exitValue() == 0) {
+                return true;
+            }
+            process.destroyForcibly();
+        } catch (IOException e) {
+            // 没有 cp 命令
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 失败时清理可能残留的不完整文件
+        try {
+            Files.deleteIfExists(dest);
+        } catch (IOException e) {
+            // 忽略
+        }
+        return false;
+    }
+}
@@ -26,7 +26,7 @@ public class FileGenerator {
         String inputPath = new File(parentFile, "s1mple-generator-demo-projects/acm-template").getAbsolutePath();
         String outputPath = projectPath;
         // 生成静态文件
-        StaticFileGenerator.copyFilesByHutool(inputPath, outputPath);
+        StaticFileGenerator.copyFiles(inputPath, outputPath);
         // 生成动态文件
         String inputDynamicFilePath = projectPath + File.separator + "src/main/resources/templates/MainTemplate.java.ftl";
         String outputDynamicFilePath = outputPath + File.separator + "acm-template/src/com/extazy/acm/MainTemplate.java";
@@ -2,6 +2,7 @@ package com.extazy.maker.generator.file;
 
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.ArrayUtil;
+import com.extazy.maker.generator.output.OutputSink;
 
 import java.io.File;
 import java.io.IOException;
@@ -23,4 +24,27 @@ public class StaticFileGenerator {
     public static void copyFilesByHutool(String inputPath, String outputPath) {
         FileUtil.copy(inputPath, outputPath, false);
     }
+
+    /**
+     * 拷贝文件（语义与 copyFilesByHutool 相同，由 FileCopier 实现：内核拷贝、并行、可选硬链接 / reflink）
+     *
+     * @param inputPath
+     * @param outputPath
+     * @throws IOException
+     */
+    public static void copyFiles(String inputPath, String outputPath) throws IOException {
+        FileCopier.getDefault().copy(inputPath, outputPath);
+    }
+
+    /**
+     * 拷贝文件到输出目标
+     *
+     * @param inputPath
+     * @param outputSink
+     * @param outputPath 相对于输出目标根的路径
+     * @throws IOException
+     */
+    public static void copyFiles(String inputPath, OutputSink outputSink, String outputPath) throws IOException {
+        FileCopier.getDefault().copy(inputPath, outputSink, outputPath);
+    }
 }
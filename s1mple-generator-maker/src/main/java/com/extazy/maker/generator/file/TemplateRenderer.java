@@ -0,0 +1,165 @@
+package com.extazy.maker.generator.file;
+
+import cn.hutool.core.io.FileUtil;
+import com.extazy.maker.generator.output.OutputSink;
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.cache.FileTemplateLoader;
+import freemarker.cache.MruCacheStorage;
+import freemarker.cache.TemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapperBuilder;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 模板渲染
+ * <p>
+ * 进程内共享：每个模板根目录一个 Configuration（类路径下的模板共用一个），
+ * 解析后的模板按容量缓存并定期检查修改，所有 Configuration 共用一个对象包装器（复用反射内省缓存）
+ */
+public class TemplateRenderer {
+
+    /**
+     * 最多缓存的模板根目录数，超出后淘汰最久未使用的
+     */
+    private static final int MAX_ROOT_COUNT = 64;
+
+    /**
+     * 每个 Configuration 中强引用 / 软引用缓存的模板数
+     */
+    private static final int STRONG_TEMPLATE_CACHE_SIZE = 64;
+    private static final int SOFT_TEMPLATE_CACHE_SIZE = 512;
+
+    /**
+     * 目录中的模板检查修改的间隔（毫秒）
+     */
+    private static final long TEMPLATE_UPDATE_DELAY_MILLIS = 2000;
+
+    /**
+     * 共享的对象包装器
+     */
+    private static final ObjectWrapper OBJECT_WRAPPER = new DefaultObjectWrapperBuilder(Configuration.VERSION_2_3_32).build();
+
+    /**
+     * 类路径下的模板（打包在 jar 中不会变化，不检查修改）
+     */
+    private static final Configuration CLASS_PATH_CONFIGURATION = newConfiguration(
+            new ClassTemplateLoader(TemplateRenderer.class, "/"), Long.MAX_VALUE);
+
+    /**
+     * 模板根目录 => Configuration
+     */
+    private static final Map<String, Configuration> DIRECTORY_CONFIGURATION_MAP = new LinkedHashMap<String, Configuration>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Configuration> eldest) {
+            return size() > MAX_ROOT_COUNT;
+        }
+    };
+
+    private TemplateRenderer() {
+    }
+
+    /**
+     * 创建配置，用于不从文件加载的模板（如字符串模板）
+     *
+     * @return
+     */
+    public static Configuration newConfiguration() {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
+        configuration.setDefaultEncoding("utf-8");
+        configuration.setObjectWrapper(OBJECT_WRAPPER);
+        return configuration;
+    }
+
+    private static Configuration newConfiguration(TemplateLoader templateLoader, long templateUpdateDelayMillis) {
+        Configuration configuration = newConfiguration();
+        configuration.setTemplateLoader(templateLoader);
+        configuration.setCacheStorage(new MruCacheStorage(STRONG_TEMPLATE_CACHE_SIZE, SOFT_TEMPLATE_CACHE_SIZE));
+        configuration.setTemplateUpdateDelayMilliseconds(templateUpdateDelayMillis);
+        // 不查找 xxx_zh_CN.ftl 之类的本地化模板，减少缓存未命中时的查找次数
+        configuration.setLocalizedLookup(false);
+        return configuration;
+    }
+
+    /**
+     * 获取类路径下的模板
+     *
+     * @param path 类路径，如 templates/java/Main.java.ftl
+     * @return
+     * @throws IOException
+     */
+    public static Template getClassPathTemplate(String path) throws IOException {
+        String name = path.replace('\\', '/');
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        return CLASS_PATH_CONFIGURATION.getTemplate(name);
+    }
+
+    /**
+     * 获取目录中的模板
+     *
+     * @param rootDir      模板根目录
+     * @param relativePath 相对于根目录的路径
+     * @return
+     * @throws IOException
+     */
+    public static Template getTemplate(File rootDir, String relativePath) throws IOException {
+        String rootPath = rootDir.getCanonicalPath();
+        Configuration configuration;
+        synchronized (DIRECTORY_CONFIGURATION_MAP) {
+            configuration = DIRECTORY_CONFIGURATION_MAP.get(rootPath);
+            if (configuration == null) {
+                configuration = newConfiguration(new FileTemplateLoader(new File(rootPath)), TEMPLATE_UPDATE_DELAY_MILLIS);
+                DIRECTORY_CONFIGURATION_MAP.put(rootPath, configuration);
+            }
+        }
+        return configuration.getTemplate(relativePath.replace('\\', '/'));
+    }
+
+    /**
+     * 渲染模板到文件（UTF-8）
+     *
+     * @param template
+     * @param model
+     * @param outputPath
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void render(Template template, Object model, String outputPath) throws IOException, TemplateException {
+        // 文件不存在则创建文件和父目录
+        if (!FileUtil.exist(outputPath)) {
+            FileUtil.touch(outputPath);
+        }
+        try (Writer out = Files.newBufferedWriter(new File(outputPath).toPath(), StandardCharsets.UTF_8)) {
+            template.process(model, out);
+        }
+    }
+
+    /**
+     * 渲染模板到输出目标（UTF-8）
+     *
+     * @param template
+     * @param model
+     * @param outputSink
+     * @param outputPath 相对于输出目标根的路径
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void render(Template template, Object model, OutputSink outputSink, String outputPath) throws IOException, TemplateException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(outputSink.open(outputPath), StandardCharsets.UTF_8))) {
+            template.process(model, out);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.extazy.maker.generator.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 输出到本地目录
+ */
+public class FileSystemOutputSink implements OutputSink {
+
+    private final File rootDir;
+
+    public FileSystemOutputSink(String rootPath) {
+        this.rootDir = new File(rootPath).getAbsoluteFile();
+    }
+
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * 相对路径对应的文件
+     *
+     * @param path
+     * @return
+     */
+    public File resolve(String path) {
+        return new File(rootDir, path);
+    }
+
+    @Override
+    public OutputStream open(String path) throws IOException {
+        Path filePath = resolve(path).toPath();
+        if (filePath.getParent() != null) {
+            Files.createDirectories(filePath.getParent());
+        }
+        return Files.newOutputStream(filePath);
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return resolve(path).exists();
+    }
+
+    @Override
+    public void mkdirs(String path) throws IOException {
+        Files.createDirectories(resolve(path).toPath());
+    }
+}
@@ -0,0 +1,143 @@
+package com.extazy.maker.generator.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 输出到内存（按路径排序），适合生成结果较小、马上要压缩或返回的场景
+ */
+public class MemoryOutputSink implements OutputSink {
+
+    /**
+     * 相对路径 => 文件内容
+     */
+    private final ConcurrentSkipListMap<String, byte[]> fileMap = new ConcurrentSkipListMap<>();
+
+    /**
+     * 目录（用于保留空目录）
+     */
+    private final Set<String> dirSet = new ConcurrentSkipListSet<>();
+
+    /**
+     * 最多保存的字节数，超出后写入失败
+     */
+    private final long maxBytes;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public MemoryOutputSink() {
+        this(Long.MAX_VALUE);
+    }
+
+    public MemoryOutputSink(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public OutputStream open(String path) {
+        String key = normalize(path);
+        return new OutputStream() {
+            private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+            private boolean closed;
+
+            @Override
+            public void write(int b) throws IOException {
+                ensureCapacity(1);
+                buffer.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ensureCapacity(len);
+                buffer.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                byte[] previous = fileMap.put(key, buffer.toByteArray());
+                if (previous != null) {
+                    totalBytes.addAndGet(-previous.length);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return fileMap.containsKey(normalize(path));
+    }
+
+    @Override
+    public void mkdirs(String path) {
+        String key = normalize(path);
+        while (key.endsWith("/")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        if (!key.isEmpty()) {
+            dirSet.add(key);
+        }
+    }
+
+    /**
+     * 创建过的目录（只读，按路径排序）
+     *
+     * @return
+     */
+    public Set<String> getDirs() {
+        return Collections.unmodifiableSet(dirSet);
+    }
+
+    /**
+     * 生成的文件（只读，按路径排序）
+     *
+     * @return
+     */
+    public SortedMap<String, byte[]> getFiles() {
+        return Collections.unmodifiableSortedMap(fileMap);
+    }
+
+    /**
+     * 已保存的字节数
+     *
+     * @return
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    private void ensureCapacity(int length) throws MemoryOutputLimitException {
+        if (totalBytes.addAndGet(length) > maxBytes) {
+            throw new MemoryOutputLimitException(maxBytes);
+        }
+    }
+
+    private static String normalize(String path) {
+        String key = path.replace('\\', '/');
+        while (key.startsWith("/")) {
+            key = key.substring(1);
+        }
+        return key;
+    }
+
+    /**
+     * 超出内存输出上限
+     */
+    public static class MemoryOutputLimitException extends IOException {
+
+        public MemoryOutputLimitException(long maxBytes) {
+            super("生成结果超出内存输出上限：" + maxBytes + " 字节");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.extazy.maker.generator.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 生成结果的输出目标
+ * <p>
+ * 路径均为相对于输出根的路径（使用 / 分隔）；实现需要支持多个线程同时写入不同的文件
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * 打开文件用于写入，调用方负责关闭返回的输出流
+     * <p>
+     * 同一路径只写入一次：输出到目录时会覆盖已存在的文件，压缩流无法覆盖已写入的条目，重复写入时抛出 IOException；
+     * 生成时先写动态文件（同一路径只写最后一个），再复制静态文件（跳过已存在的文件），两者的结果一致
+     *
+     * @param path 相对路径
+     * @return
+     * @throws IOException
+     */
+    OutputStream open(String path) throws IOException;
+
+    /**
+     * 文件是否已存在（静态文件不覆盖已存在的文件）
+     *
+     * @param path 相对路径
+     * @return
+     */
+    boolean exists(String path);
+
+    /**
+     * 创建目录（用于保留空目录）
+     *
+     * @param path 相对路径
+     * @throws IOException
+     */
+    default void mkdirs(String path) throws IOException {
+    }
+
+    /**
+     * 结束输出
+     *
+     * @throws IOException
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
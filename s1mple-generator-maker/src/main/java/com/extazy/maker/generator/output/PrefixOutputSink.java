@@ -0,0 +1,40 @@
+package com.extazy.maker.generator.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 输出到另一个输出目标的子目录（如批量生成时每个数据模型一个子目录）
+ * <p>
+ * 关闭时不会关闭被包装的输出目标
+ */
+public class PrefixOutputSink implements OutputSink {
+
+    private final OutputSink outputSink;
+
+    private final String prefix;
+
+    /**
+     * @param outputSink 被包装的输出目标
+     * @param prefix     子目录相对路径
+     */
+    public PrefixOutputSink(OutputSink outputSink, String prefix) {
+        this.outputSink = outputSink;
+        this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    @Override
+    public OutputStream open(String path) throws IOException {
+        return outputSink.open(prefix + path);
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return outputSink.exists(prefix + path);
+    }
+
+    @Override
+    public void mkdirs(String path) throws IOException {
+        outputSink.mkdirs(prefix + path);
+    }
+}
@@ -0,0 +1,134 @@
+package com.extazy.maker.generator.output;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 边生成边压缩写入输出流，不落地任何文件
+ * <p>
+ * 文件内容直接写入压缩流，从打开到关闭期间持有锁（多个线程同时生成时依次写入，条目不会交错），
+ * 同一线程不能同时打开两个文件；已写入的条目无法覆盖，同一文件重复写入时抛出 IOException，重复创建目录时忽略
+ */
+public class ZipOutputSink implements OutputSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ZipOutputStream zipOutputStream;
+
+    /**
+     * 写入条目期间持有
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 已写入的条目
+     */
+    private final Set<String> entryNameSet = new HashSet<>();
+
+    /**
+     * @param outputStream 不会被关闭，结束时只写入压缩包的目录区
+     */
+    public ZipOutputSink(OutputStream outputStream) {
+        this.zipOutputStream = new ZipOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+    }
+
+    @Override
+    public OutputStream open(String path) throws IOException {
+        String entryName = normalize(path);
+        if (lock.isHeldByCurrentThread()) {
+            throw new IOException("上一个文件还未关闭，不能打开：" + entryName);
+        }
+        lock.lock();
+        try {
+            if (!entryNameSet.add(entryName)) {
+                throw new IOException("压缩包中已存在文件：" + entryName);
+            }
+            zipOutputStream.putNextEntry(new ZipEntry(entryName));
+        } catch (IOException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+        return new FilterOutputStream(zipOutputStream) {
+            private boolean closed;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                // 压缩流整体在结束时刷新
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    zipOutputStream.closeEntry();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String path) {
+        lock.lock();
+        try {
+            return entryNameSet.contains(normalize(path));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void mkdirs(String path) throws IOException {
+        String entryName = normalize(path);
+        if (entryName.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (entryNameSet.add(entryName + "/")) {
+                zipOutputStream.putNextEntry(new ZipEntry(entryName + "/"));
+                zipOutputStream.closeEntry();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            zipOutputStream.finish();
+            zipOutputStream.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String normalize(String path) {
+        String entryName = path.replace('\\', '/');
+        while (entryName.startsWith("/")) {
+            entryName = entryName.substring(1);
+        }
+        while (entryName.endsWith("/")) {
+            entryName = entryName.substring(0, entryName.length() - 1);
+        }
+        return entryName;
+    }
+}
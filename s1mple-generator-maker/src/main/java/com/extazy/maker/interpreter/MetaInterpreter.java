@@ -0,0 +1,256 @@
+package com.extazy.maker.interpreter;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.extazy.maker.generator.file.StaticFileGenerator;
+import com.extazy.maker.generator.file.TemplateRenderer;
+import com.extazy.maker.generator.output.FileSystemOutputSink;
+import com.extazy.maker.generator.output.OutputSink;
+import com.extazy.maker.meta.Meta;
+import com.extazy.maker.meta.MetaException;
+import com.extazy.maker.meta.enums.FileGenerateTypeEnum;
+import com.extazy.maker.meta.enums.ModelTypeEnum;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 元信息解释器
+ * <p>
+ * 直接按照 FileConfig / ModelConfig 执行生成，无需先生成代码、打 jar 包再运行，
+ * 执行逻辑与生成的 MainGenerator 保持一致
+ */
+public class MetaInterpreter {
+
+    /**
+     * 条件表达式使用的 FreeMarker 配置
+     */
+    private static final Configuration CONFIGURATION = TemplateRenderer.newConfiguration();
+
+    /**
+     * 最多缓存的条件表达式数
+     */
+    private static final int MAX_CONDITION_COUNT = 1024;
+
+    /**
+     * 条件表达式模板缓存（按最近使用淘汰，长期运行时不会随解释过的生成器无限增长）
+     */
+    private static final Map<String, Template> CONDITION_TEMPLATE_MAP = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+            return size() > MAX_CONDITION_COUNT;
+        }
+    };
+
+    /**
+     * 生成
+     *
+     * @param fileConfig     文件配置
+     * @param modelConfig    模型配置
+     * @param inputRootPath  输入根路径（模板文件所在目录）
+     * @param outputRootPath 输出根路径
+     * @param dataModel      用户输入的数据模型
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void doGenerate(Meta.FileConfig fileConfig, Meta.ModelConfig modelConfig,
+                                  String inputRootPath, String outputRootPath,
+                                  Map<String, Object> dataModel) throws IOException, TemplateException {
+        doGenerate(fileConfig, modelConfig, inputRootPath, new FileSystemOutputSink(outputRootPath), dataModel);
+    }
+
+    /**
+     * 生成到输出目标（如压缩流、内存），不需要落地文件
+     *
+     * @param fileConfig    文件配置
+     * @param modelConfig   模型配置
+     * @param inputRootPath 输入根路径（模板文件所在目录）
+     * @param outputSink    输出目标，由调用方关闭
+     * @param dataModel     用户输入的数据模型
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void doGenerate(Meta.FileConfig fileConfig, Meta.ModelConfig modelConfig,
+                                  String inputRootPath, OutputSink outputSink,
+                                  Map<String, Object> dataModel) throws IOException, TemplateException {
+        // 填充默认值，得到渲染模板用的数据模型
+        Map<String, Object> model = buildModel(modelConfig, dataModel);
+        // 条件表达式中可以直接使用分组内的字段
+        Map<String, Object> conditionModel = buildConditionModel(modelConfig, model);
+
+        List<Meta.FileConfig.FileInfo> fileInfoList = fileConfig.getFiles();
+        if (CollUtil.isEmpty(fileInfoList)) {
+            return;
+        }
+        // 先生成动态文件（同一输出路径只生成最后一个），再复制静态文件（跳过已存在的文件），
+        // 这样同一路径的文件只写入一次，动态文件优先，和输出目标是否支持覆盖无关
+        Map<String, Meta.FileConfig.FileInfo> dynamicFileInfoMap = new LinkedHashMap<>();
+        List<Meta.FileConfig.FileInfo> staticFileInfoList = new ArrayList<>();
+        for (Meta.FileConfig.FileInfo fileInfo : fileInfoList) {
+            if (!evalCondition(fileInfo.getCondition(), conditionModel)) {
+                continue;
+            }
+            // 文件组：满足组条件则生成组内所有文件（和生成的 MainGenerator 一样按 groupKey 判断）
+            List<Meta.FileConfig.FileInfo> selectedFileInfoList = fileInfo.getGroupKey() != null
+                    ? fileInfo.getFiles()
+                    : Collections.singletonList(fileInfo);
+            if (CollUtil.isEmpty(selectedFileInfoList)) {
+                continue;
+            }
+            for (Meta.FileConfig.FileInfo selectedFileInfo : selectedFileInfoList) {
+                if (FileGenerateTypeEnum.STATIC.getValue().equals(selectedFileInfo.getGenerateType())) {
+                    staticFileInfoList.add(selectedFileInfo);
+                } else {
+                    String outputPathKey = StrUtil.nullToEmpty(selectedFileInfo.getOutputPath()).replace('\\', '/');
+                    dynamicFileInfoMap.remove(outputPathKey);
+                    dynamicFileInfoMap.put(outputPathKey, selectedFileInfo);
+                }
+            }
+        }
+        for (Meta.FileConfig.FileInfo dynamicFileInfo : dynamicFileInfoMap.values()) {
+            generateFile(dynamicFileInfo, inputRootPath, outputSink, model);
+        }
+        for (Meta.FileConfig.FileInfo staticFileInfo : staticFileInfoList) {
+            generateFile(staticFileInfo, inputRootPath, outputSink, model);
+        }
+    }
+
+    /**
+     * 生成单个文件
+     *
+     * @param fileInfo
+     * @param inputRootPath
+     * @param outputSink
+     * @param model
+     * @throws IOException
+     * @throws TemplateException
+     */
+    private static void generateFile(Meta.FileConfig.FileInfo fileInfo, String inputRootPath, OutputSink outputSink,
+                                     Map<String, Object> model) throws IOException, TemplateException {
+        if (FileGenerateTypeEnum.STATIC.getValue().equals(fileInfo.getGenerateType())) {
+            String inputPath = new File(inputRootPath, fileInfo.getInputPath()).getAbsolutePath();
+            StaticFileGenerator.copyFiles(inputPath, outputSink, fileInfo.getOutputPath());
+            return;
+        }
+
+        // 同一个输入根路径共用配置，模板解析后缓存
+        Template template = TemplateRenderer.getTemplate(new File(inputRootPath), fileInfo.getInputPath());
+        TemplateRenderer.render(template, model, outputSink, fileInfo.getOutputPath());
+    }
+
+    /**
+     * 构造数据模型，用户未填写的字段使用默认值
+     *
+     * @param modelConfig
+     * @param dataModel
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> buildModel(Meta.ModelConfig modelConfig, Map<String, Object> dataModel) {
+        Map<String, Object> model = new LinkedHashMap<>();
+        if (dataModel != null) {
+            model.putAll(dataModel);
+        }
+        if (modelConfig == null || CollUtil.isEmpty(modelConfig.getModels())) {
+            return model;
+        }
+        for (Meta.ModelConfig.ModelInfo modelInfo : modelConfig.getModels()) {
+            String groupKey = modelInfo.getGroupKey();
+            if (StrUtil.isBlank(groupKey)) {
+                fillDefaultValue(model, modelInfo);
+                continue;
+            }
+            // 分组字段放在分组对象内
+            Map<String, Object> groupModel = new LinkedHashMap<>();
+            Object groupValue = model.get(groupKey);
+            if (groupValue instanceof Map) {
+                groupModel.putAll((Map<String, Object>) groupValue);
+            }
+            if (CollUtil.isNotEmpty(modelInfo.getModels())) {
+                for (Meta.ModelConfig.ModelInfo subModelInfo : modelInfo.getModels()) {
+                    fillDefaultValue(groupModel, subModelInfo);
+                }
+            }
+            model.put(groupKey, groupModel);
+        }
+        return model;
+    }
+
+    /**
+     * 构造条件表达式使用的数据模型（和生成的 MainGenerator 一样，把分组内的字段提升到顶层）
+     *
+     * @param modelConfig
+     * @param model
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> buildConditionModel(Meta.ModelConfig modelConfig, Map<String, Object> model) {
+        Map<String, Object> conditionModel = new HashMap<>(model);
+        if (modelConfig == null || CollUtil.isEmpty(modelConfig.getModels())) {
+            return conditionModel;
+        }
+        for (Meta.ModelConfig.ModelInfo modelInfo : modelConfig.getModels()) {
+            String groupKey = modelInfo.getGroupKey();
+            Object groupValue = model.get(groupKey);
+            if (StrUtil.isNotBlank(groupKey) && groupValue instanceof Map) {
+                conditionModel.putAll((Map<String, Object>) groupValue);
+            }
+        }
+        return conditionModel;
+    }
+
+    private static void fillDefaultValue(Map<String, Object> model, Meta.ModelConfig.ModelInfo modelInfo) {
+        String fieldName = modelInfo.getFieldName();
+        if (StrUtil.isBlank(fieldName) || model.get(fieldName) != null) {
+            return;
+        }
+        Object defaultValue = modelInfo.getDefaultValue();
+        // 和生成的 DataModel 一致，布尔类型字段未设置默认值时为 false
+        if (defaultValue == null && ModelTypeEnum.BOOLEAN.getValue().equals(modelInfo.getType())) {
+            defaultValue = false;
+        }
+        model.put(fieldName, defaultValue);
+    }
+
+    /**
+     * 计算条件表达式（使用 FreeMarker 表达式求值，支持 !、&&、||、== 等常用写法）
+     *
+     * @param condition
+     * @param conditionModel
+     * @return 条件为空时返回 true
+     */
+    private static boolean evalCondition(String condition, Map<String, Object> conditionModel) {
+        if (StrUtil.isBlank(condition)) {
+            return true;
+        }
+        try {
+            Template template;
+            synchronized (CONDITION_TEMPLATE_MAP) {
+                template = CONDITION_TEMPLATE_MAP.get(condition);
+            }
+            if (template == null) {
+                String source = String.format("<#if %s>true</#if>", condition);
+                template = new Template("condition", new StringReader(source), CONFIGURATION);
+                synchronized (CONDITION_TEMPLATE_MAP) {
+                    CONDITION_TEMPLATE_MAP.put(condition, template);
+                }
+            }
+            StringWriter out = new StringWriter();
+            template.process(conditionModel, out);
+            return "true".equals(out.toString());
+        } catch (IOException | TemplateException e) {
+            throw new MetaException("条件表达式计算失败：" + condition, e);
+        }
+    }
+}
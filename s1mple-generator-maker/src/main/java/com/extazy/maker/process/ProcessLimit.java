@@ -0,0 +1,40 @@
+package com.extazy.maker.process;
+
+import lombok.Data;
+
+/**
+ * 子进程资源限制
+ */
+@Data
+public class ProcessLimit {
+
+    /**
+     * 墙钟超时时间（毫秒），小于等于 0 表示不限制
+     */
+    private long timeoutMillis = 10 * 60 * 1000L;
+
+    /**
+     * CPU 时间上限（毫秒，整个进程树），小于等于 0 表示不限制，仅 Linux 生效
+     */
+    private long cpuTimeoutMillis = 0;
+
+    /**
+     * stdout / stderr 各自最多保留的字节数（保留最后的输出）
+     */
+    private int maxOutputBytes = 64 * 1024;
+
+    /**
+     * 内存上限（MB），小于等于 0 表示不限制，仅 Linux 且可以使用 systemd-run 时生效
+     */
+    private long memoryLimitMb = 0;
+
+    /**
+     * CPU 配额（百分比，100 表示一个核），小于等于 0 表示不限制，仅 Linux 且可以使用 systemd-run 时生效
+     */
+    private int cpuQuotaPercent = 0;
+
+    /**
+     * 资源采样间隔（毫秒）
+     */
+    private long sampleIntervalMillis = 200;
+}
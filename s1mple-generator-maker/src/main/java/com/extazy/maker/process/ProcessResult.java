@@ -0,0 +1,52 @@
+package com.extazy.maker.process;
+
+import lombok.Data;
+
+/**
+ * 子进程执行结果
+ */
+@Data
+public class ProcessResult {
+
+    /**
+     * 退出码（被强制结束时为 -1）
+     */
+    private int exitCode = -1;
+
+    /**
+     * 被强制结束的原因（正常结束为 null）
+     */
+    private String killReason;
+
+    /**
+     * 执行耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 进程树 CPU 时间（毫秒），无法统计时为 -1
+     */
+    private long cpuTimeMillis = -1;
+
+    /**
+     * 进程树内存峰值（KB），无法统计时为 -1
+     */
+    private long peakRssKb = -1;
+
+    /**
+     * 标准输出（超出上限时只保留最后部分）
+     */
+    private String stdout;
+
+    /**
+     * 标准错误（超出上限时只保留最后部分）
+     */
+    private String stderr;
+
+    /**
+     * 是否正常结束且退出码为 0
+     */
+    public boolean isSuccess() {
+        return killReason == null && exitCode == 0;
+    }
+}
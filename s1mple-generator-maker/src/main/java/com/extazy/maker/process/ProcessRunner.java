@@ -0,0 +1,429 @@
+package com.extazy.maker.process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 子进程执行器
+ * <p>
+ * 异步读取 stdout / stderr（只保留有限的输出，避免撑爆内存和日志，stdout 也可以原样写入指定的输出流），支持墙钟 / CPU 超时并结束整个进程树，
+ * Linux 上可以通过 systemd-run 限制内存和 CPU，同时统计耗时、CPU 时间、内存峰值等指标
+ */
+public class ProcessRunner {
+
+    /**
+     * 时钟频率（/proc/[pid]/stat 中时间的单位），Linux 上基本都是 100
+     */
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private static final boolean IS_LINUX = System.getProperty("os.name", "").toLowerCase().contains("linux");
+
+    /**
+     * 是否可以使用 systemd-run（第一次需要限制资源时检测）
+     */
+    private static volatile Boolean systemdRunAvailable;
+
+    /**
+     * 执行命令
+     *
+     * @param command   命令
+     * @param directory 工作目录
+     * @param limit     资源限制
+     * @return
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static ProcessResult run(List<String> command, File directory, ProcessLimit limit) throws IOException, InterruptedException {
+        return run(command, directory, null, limit);
+    }
+
+    /**
+     * 执行命令
+     *
+     * @param command     命令
+     * @param directory   工作目录
+     * @param environment 额外的环境变量
+     * @param limit       资源限制
+     * @return
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static ProcessResult run(List<String> command, File directory, Map<String, String> environment, ProcessLimit limit) throws IOException, InterruptedException {
+        return run(command, directory, environment, limit, null);
+    }
+
+    /**
+     * 执行命令，stdout 原样写入指定的输出流（如子进程输出的压缩包直接写入响应），结果中不再保留 stdout
+     * <p>
+     * 写入输出流失败时结束整个进程树并抛出该异常
+     *
+     * @param command     命令
+     * @param directory   工作目录
+     * @param environment 额外的环境变量
+     * @param limit       资源限制
+     * @param stdout      标准输出写入的输出流（不会被关闭），为 null 时和其他重载一样只保留有限的输出
+     * @return
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static ProcessResult run(List<String> command, File directory, Map<String, String> environment, ProcessLimit limit,
+                                    OutputStream stdout) throws IOException, InterruptedException {
+        if (limit == null) {
+            limit = new ProcessLimit();
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(wrapCommand(command, limit));
+        processBuilder.directory(directory);
+        if (environment != null) {
+            processBuilder.environment().putAll(environment);
+        }
+
+        long startTime = System.currentTimeMillis();
+        Process process = processBuilder.start();
+        // 不需要输入，直接关闭
+        process.getOutputStream().close();
+
+        StreamReader stdoutReader = stdout == null
+                ? new BoundedStreamReader(process.getInputStream(), limit.getMaxOutputBytes())
+                : new CopyStreamReader(process.getInputStream(), stdout);
+        BoundedStreamReader stderrReader = new BoundedStreamReader(process.getErrorStream(), limit.getMaxOutputBytes());
+        stdoutReader.start();
+        stderrReader.start();
+
+        ProcessResult processResult = new ProcessResult();
+        long pid = getPid(process);
+        long deadline = limit.getTimeoutMillis() > 0 ? startTime + limit.getTimeoutMillis() : Long.MAX_VALUE;
+        long sampleIntervalMillis = Math.max(10, limit.getSampleIntervalMillis());
+        try {
+            while (true) {
+                long waitMillis = Math.min(sampleIntervalMillis, deadline - System.currentTimeMillis());
+                if (waitMillis > 0 && process.waitFor(waitMillis, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                // 采样资源占用
+                sample(pid, processResult);
+                if (System.currentTimeMillis() >= deadline) {
+                    processResult.setKillReason("执行超时（" + limit.getTimeoutMillis() + "ms）");
+                    break;
+                }
+                if (limit.getCpuTimeoutMillis() > 0 && processResult.getCpuTimeMillis() > limit.getCpuTimeoutMillis()) {
+                    processResult.setKillReason("CPU 时间超限（" + limit.getCpuTimeoutMillis() + "ms）");
+                    break;
+                }
+                if (stdoutReader.getError() != null) {
+                    processResult.setKillReason("写入标准输出失败");
+                    break;
+                }
+            }
+        } finally {
+            // 超时、超限或当前线程被中断，都要结束整个进程树
+            if (process.isAlive()) {
+                if (processResult.getKillReason() == null) {
+                    processResult.setKillReason("执行被中断");
+                }
+                destroyTree(process);
+            }
+        }
+
+        // 原样写入时要等剩余的输出全部写完
+        if (stdout != null && processResult.getKillReason() == null) {
+            stdoutReader.join();
+        } else {
+            stdoutReader.join(1000);
+        }
+        stderrReader.join(1000);
+        if (stdoutReader.getError() != null) {
+            throw stdoutReader.getError();
+        }
+        if (processResult.getKillReason() == null) {
+            processResult.setExitCode(process.exitValue());
+        }
+        processResult.setDurationMillis(System.currentTimeMillis() - startTime);
+        processResult.setStdout(stdoutReader.getOutput());
+        processResult.setStderr(stderrReader.getOutput());
+        return processResult;
+    }
+
+    /**
+     * 需要限制内存 / CPU 时，在 Linux 上使用 systemd-run 放到独立的 cgroup 中执行
+     *
+     * @param command
+     * @param limit
+     * @return
+     */
+    private static List<String> wrapCommand(List<String> command, ProcessLimit limit) {
+        boolean needLimit = limit.getMemoryLimitMb() > 0 || limit.getCpuQuotaPercent() > 0;
+        if (!needLimit || !IS_LINUX || !isSystemdRunAvailable()) {
+            return command;
+        }
+        List<String> wrappedCommand = new ArrayList<>(Arrays.asList("systemd-run", "--user", "--scope", "--quiet"));
+        if (limit.getMemoryLimitMb() > 0) {
+            wrappedCommand.add("-p");
+            wrappedCommand.add("MemoryMax=" + limit.getMemoryLimitMb() + "M");
+        }
+        if (limit.getCpuQuotaPercent() > 0) {
+            wrappedCommand.add("-p");
+            wrappedCommand.add("CPUQuota=" + limit.getCpuQuotaPercent() + "%");
+        }
+        wrappedCommand.addAll(command);
+        return wrappedCommand;
+    }
+
+    private static boolean isSystemdRunAvailable() {
+        if (systemdRunAvailable == null) {
+            boolean available = false;
+            try {
+                Process process = new ProcessBuilder("systemd-run", "--user", "--scope", "--quiet", "true")
+                        .redirectErrorStream(true)
+                        .start();
+                available = process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0;
+                process.destroyForcibly();
+            } catch (IOException e) {
+                available = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            systemdRunAvailable = available;
+        }
+        return systemdRunAvailable;
+    }
+
+    /**
+     * 采样进程树的 CPU 时间和内存占用（仅 Linux）
+     *
+     * @param pid
+     * @param processResult
+     */
+    private static void sample(long pid, ProcessResult processResult) {
+        if (!IS_LINUX || pid <= 0) {
+            return;
+        }
+        List<Long> pidList = new ArrayList<>();
+        pidList.add(pid);
+        collectChildren(pid, pidList);
+
+        long cpuTicks = 0;
+        long rssKb = 0;
+        boolean sampled = false;
+        for (Long treePid : pidList) {
+            try {
+                // 进程名可能包含空格，从最后一个 ')' 之后开始解析
+                String stat = new String(Files.readAllBytes(Paths.get("/proc", String.valueOf(treePid), "stat")), Charset.defaultCharset());
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                // utime stime cutime cstime（已退出并被回收的子进程计入 cutime / cstime）
+                cpuTicks += Long.parseLong(fields[11]) + Long.parseLong(fields[12])
+                        + Long.parseLong(fields[13]) + Long.parseLong(fields[14]);
+                for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(treePid), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        rssKb += Long.parseLong(line.replaceAll("[^0-9]", ""));
+                    }
+                }
+                sampled = true;
+            } catch (IOException | RuntimeException e) {
+                // 进程已经退出
+            }
+        }
+        if (!sampled) {
+            return;
+        }
+        long cpuTimeMillis = cpuTicks * 1000 / CLOCK_TICKS_PER_SECOND;
+        processResult.setCpuTimeMillis(Math.max(processResult.getCpuTimeMillis(), cpuTimeMillis));
+        processResult.setPeakRssKb(Math.max(processResult.getPeakRssKb(), rssKb));
+    }
+
+    /**
+     * 递归查找子进程
+     *
+     * @param pid
+     * @param pidList
+     */
+    private static void collectChildren(long pid, List<Long> pidList) {
+        File taskDir = new File("/proc/" + pid + "/task");
+        File[] taskFiles = taskDir.listFiles();
+        if (taskFiles == null) {
+            return;
+        }
+        for (File taskFile : taskFiles) {
+            try {
+                String children = new String(Files.readAllBytes(new File(taskFile, "children").toPath()), Charset.defaultCharset()).trim();
+                if (children.isEmpty()) {
+                    continue;
+                }
+                for (String child : children.split(" ")) {
+                    long childPid = Long.parseLong(child);
+                    pidList.add(childPid);
+                    collectChildren(childPid, pidList);
+                }
+            } catch (IOException | RuntimeException e) {
+                // 进程已经退出
+            }
+        }
+    }
+
+    /**
+     * 结束整个进程树（Java 9+ 使用 ProcessHandle，Java 8 只能结束主进程）
+     *
+     * @param process
+     */
+    @SuppressWarnings("unchecked")
+    private static void destroyTree(Process process) {
+        try {
+            Method descendantsMethod = Process.class.getMethod("descendants");
+            // 通过公开的接口调用，实现类不可访问
+            Method destroyForciblyMethod = Class.forName("java.lang.ProcessHandle").getMethod("destroyForcibly");
+            Stream<Object> descendants = (Stream<Object>) descendantsMethod.invoke(process);
+            Iterator<Object> iterator = descendants.iterator();
+            while (iterator.hasNext()) {
+                destroyForciblyMethod.invoke(iterator.next());
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8 不支持
+        }
+        process.destroyForcibly();
+        try {
+            process.waitFor(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 获取进程 id（Java 9+），获取不到返回 -1
+     *
+     * @param process
+     * @return
+     */
+    private static long getPid(Process process) {
+        try {
+            return (Long) Process.class.getMethod("pid").invoke(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 后台读取输出流
+     */
+    private abstract static class StreamReader extends Thread {
+
+        private final InputStream inputStream;
+
+        /**
+         * 写入目标输出流失败的异常（读取失败说明进程结束后流被关闭，不记录）
+         */
+        private volatile IOException error;
+
+        private StreamReader(InputStream inputStream) {
+            this.inputStream = inputStream;
+            setName("process-output-reader");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            byte[] bytes = new byte[8192];
+            try {
+                int length;
+                while ((length = inputStream.read(bytes)) != -1) {
+                    try {
+                        append(bytes, length);
+                    } catch (IOException e) {
+                        error = e;
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // 进程结束后流被关闭
+            } finally {
+                try {
+                    inputStream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        protected abstract void append(byte[] bytes, int length) throws IOException;
+
+        protected abstract String getOutput();
+
+        private IOException getError() {
+            return error;
+        }
+    }
+
+    /**
+     * 原样写入另一个输出流
+     */
+    private static class CopyStreamReader extends StreamReader {
+
+        private final OutputStream outputStream;
+
+        private CopyStreamReader(InputStream inputStream, OutputStream outputStream) {
+            super(inputStream);
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        protected void append(byte[] bytes, int length) throws IOException {
+            outputStream.write(bytes, 0, length);
+        }
+
+        @Override
+        protected String getOutput() {
+            return null;
+        }
+    }
+
+    /**
+     * 只保留最后 maxBytes 字节
+     */
+    private static class BoundedStreamReader extends StreamReader {
+
+        private final int maxBytes;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private long totalBytes;
+
+        private BoundedStreamReader(InputStream inputStream, int maxBytes) {
+            super(inputStream);
+            this.maxBytes = Math.max(0, maxBytes);
+        }
+
+        @Override
+        protected synchronized void append(byte[] bytes, int length) {
+            totalBytes += length;
+            buffer.write(bytes, 0, length);
+            // 超出上限时丢弃前面的内容，保留最后 maxBytes 字节
+            if (buffer.size() > maxBytes * 2L) {
+                byte[] data = buffer.toByteArray();
+                buffer.reset();
+                buffer.write(data, data.length - maxBytes, maxBytes);
+            }
+        }
+
+        @Override
+        protected synchronized String getOutput() {
+            byte[] data = buffer.toByteArray();
+            int from = Math.max(0, data.length - maxBytes);
+            String output = new String(data, from, data.length - from, Charset.defaultCharset());
+            if (totalBytes > maxBytes) {
+                return "...(省略 " + (totalBytes - maxBytes) + " 字节)\n" + output;
+            }
+            return output;
+        }
+    }
+}
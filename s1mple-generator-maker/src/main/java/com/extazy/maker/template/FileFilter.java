@@ -2,19 +2,69 @@ package com.extazy.maker.template;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
 import com.extazy.maker.template.enums.FileFilterRangeEnum;
 import com.extazy.maker.template.enums.FileFilterRuleEnum;
 import com.extazy.maker.template.model.FileFilterConfig;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 /**
  * 文件过滤器
+ * <p>
+ * 过滤配置先编译为规则链（正则只编译一次），按文件名的规则先判断；
+ * 只有存在按文件内容的规则时才读取文件，而且能流式判断的规则不会把整个文件读入内存，
+ * 二进制文件和超过大小限制的文件不满足任何按内容的规则；
+ * 遍历目录时按 .gitignore 和目录名称规则跳过整个子目录
  */
 public class FileFilter {
 
+    /**
+     * 参与内容匹配的文件大小上限，可以通过系统属性 generator.filter.max-content-mb 配置
+     */
+    private static final long MAX_CONTENT_SIZE = Long.getLong("generator.filter.max-content-mb", 16L) * 1024 * 1024;
+
+    /**
+     * 判断是否为二进制文件时读取的字节数
+     */
+    private static final int SNIFF_SIZE = 8 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 默认忽略规则
+     */
+    private static final IgnoreRules DEFAULT_IGNORE_RULES = new IgnoreRules("", buildDefaultIgnoreLines());
+
+    private static List<String> buildDefaultIgnoreLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(".git/");
+        lines.addAll(StrUtil.split(System.getProperty("generator.template.ignore", ""), ',', true, true));
+        return lines;
+    }
+
     /**
      * 对某个文件或目录进行过滤，返回文件列表
      *
@@ -23,11 +73,131 @@ public class FileFilter {
      * @return
      */
     public static List<File> doFilter(String filePath, List<FileFilterConfig> fileFilterConfigList) {
-        // 根据路径获取所有文件
-        List<File> fileList = FileUtil.loopFiles(filePath);
-        return fileList.stream()
-                .filter(file -> doSingleFileFilter(fileFilterConfigList, file))
-                .collect(Collectors.toList());
+        List<File> fileList = new ArrayList<>();
+        doFilter(filePath, filePath, fileFilterConfigList, fileList::add);
+        return fileList;
+    }
+
+    /**
+     * 遍历某个文件或目录进行过滤，满足条件的文件逐个交给调用方，不会先列出整棵目录树
+     * <p>
+     * 遍历时直接跳过被忽略的目录：从项目根目录到当前目录的 .gitignore、默认忽略的 .git 目录
+     * 和系统属性 generator.template.ignore（逗号分隔的 .gitignore 风格规则），以及不满足目录名称规则的目录
+     *
+     * @param rootPath             项目根目录，.gitignore 从这里开始读取，路径也相对它匹配
+     * @param filePath             要过滤的文件或目录（本身不会被忽略）
+     * @param fileFilterConfigList 过滤规则
+     * @param consumer             满足条件的文件
+     */
+    public static void doFilter(String rootPath, String filePath, List<FileFilterConfig> fileFilterConfigList,
+                                Consumer<File> consumer) {
+        Predicate<File> filter = compile(fileFilterConfigList);
+        Predicate<String> directoryFilter = compileDirectoryFilter(fileFilterConfigList);
+        Path start = Paths.get(filePath).toAbsolutePath().normalize();
+        if (!Files.exists(start)) {
+            return;
+        }
+        Path startDir = Files.isDirectory(start) ? start : start.getParent();
+        Path root = Paths.get(rootPath).toAbsolutePath().normalize();
+        if (!startDir.startsWith(root)) {
+            root = startDir;
+        }
+        Path rootDir = root;
+        try {
+            // 根目录到起始目录的规则
+            List<IgnoreRules> ignoreRulesStack = new ArrayList<>();
+            ignoreRulesStack.add(DEFAULT_IGNORE_RULES);
+            Path ignoreDir = rootDir;
+            pushIgnoreRules(ignoreRulesStack, rootDir, ignoreDir);
+            for (Path name : rootDir.relativize(startDir)) {
+                if (name.toString().isEmpty()) {
+                    continue;
+                }
+                ignoreDir = ignoreDir.resolve(name.toString());
+                pushIgnoreRules(ignoreRulesStack, rootDir, ignoreDir);
+            }
+
+            Deque<Integer> stackSizeDeque = new ArrayDeque<>();
+            Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    int stackSize = ignoreRulesStack.size();
+                    if (!dir.equals(start)) {
+                        if (!directoryFilter.test(dir.getFileName().toString())
+                                || isIgnored(ignoreRulesStack, toRelativePath(rootDir, dir), true)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        pushIgnoreRules(ignoreRulesStack, rootDir, dir);
+                    }
+                    stackSizeDeque.push(stackSize);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!file.equals(start) && isIgnored(ignoreRulesStack, toRelativePath(rootDir, file), false)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    File inputFile = file.toFile();
+                    if (filter.test(inputFile)) {
+                        consumer.accept(inputFile);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    // 符号链接成环时跳过
+                    if (e instanceof FileSystemLoopException) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    throw e;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    if (e != null) {
+                        throw e;
+                    }
+                    int stackSize = stackSizeDeque.pop();
+                    while (ignoreRulesStack.size() > stackSize) {
+                        ignoreRulesStack.remove(ignoreRulesStack.size() - 1);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void pushIgnoreRules(List<IgnoreRules> ignoreRulesStack, Path rootDir, Path dir) throws IOException {
+        IgnoreRules ignoreRules = IgnoreRules.load(dir, toRelativePath(rootDir, dir));
+        if (ignoreRules != null) {
+            ignoreRulesStack.add(ignoreRules);
+        }
+    }
+
+    /**
+     * 是否被忽略：越深的规则文件优先，第一个匹配的规则决定结果
+     *
+     * @param ignoreRulesStack
+     * @param relativePath
+     * @param dir
+     * @return
+     */
+    private static boolean isIgnored(List<IgnoreRules> ignoreRulesStack, String relativePath, boolean dir) {
+        for (int i = ignoreRulesStack.size() - 1; i >= 0; i--) {
+            Boolean ignored = ignoreRulesStack.get(i).match(relativePath, dir);
+            if (ignored != null) {
+                return ignored;
+            }
+        }
+        return false;
+    }
+
+    private static String toRelativePath(Path rootDir, Path path) {
+        return rootDir.relativize(path).toString().replace('\\', '/');
     }
 
     /**
@@ -38,69 +208,287 @@ public class FileFilter {
      * @return 是否保留
      */
     public static boolean doSingleFileFilter(List<FileFilterConfig> fileFilterConfigList, File file) {
-        String fileName = file.getName();
-        String fileContent = FileUtil.readUtf8String(file);
-
-        // 所有过滤器校验结束的结果
-        boolean result = true;
+        return compile(fileFilterConfigList).test(file);
+    }
 
+    /**
+     * 把过滤配置编译为文件过滤规则链，所有规则都满足才保留文件
+     * <p>
+     * 范围或规则无法识别的配置会被忽略，目录名称规则只在遍历目录时使用
+     *
+     * @param fileFilterConfigList 过滤规则
+     * @return
+     */
+    public static Predicate<File> compile(List<FileFilterConfig> fileFilterConfigList) {
         if (CollUtil.isEmpty(fileFilterConfigList)) {
-            return true;
+            return file -> true;
         }
-
+        List<Predicate<String>> nameRuleList = new ArrayList<>();
+        List<ContentRule> contentRuleList = new ArrayList<>();
         for (FileFilterConfig fileFilterConfig : fileFilterConfigList) {
-            String range = fileFilterConfig.getRange();
-            String rule = fileFilterConfig.getRule();
-            String value = fileFilterConfig.getValue();
-
-            FileFilterRangeEnum fileFilterRangeEnum = FileFilterRangeEnum.getEnumByValue(range);
-            if (fileFilterRangeEnum == null) {
+            FileFilterRangeEnum fileFilterRangeEnum = FileFilterRangeEnum.getEnumByValue(fileFilterConfig.getRange());
+            FileFilterRuleEnum filterRuleEnum = FileFilterRuleEnum.getEnumByValue(fileFilterConfig.getRule());
+            if (fileFilterRangeEnum == null || filterRuleEnum == null) {
                 continue;
             }
-
-            // 要过滤的原内容
-            String content = fileName;
+            String value = StrUtil.nullToEmpty(fileFilterConfig.getValue());
             switch (fileFilterRangeEnum) {
                 case FILE_NAME:
-                    content = fileName;
+                    nameRuleList.add(compileNameRule(filterRuleEnum, value));
                     break;
                 case FILE_CONTENT:
-                    content = fileContent;
+                    contentRuleList.add(compileContentRule(filterRuleEnum, value));
                     break;
                 default:
             }
+        }
+        if (nameRuleList.isEmpty() && contentRuleList.isEmpty()) {
+            return file -> true;
+        }
+        return file -> {
+            String fileName = file.getName();
+            for (Predicate<String> nameRule : nameRuleList) {
+                // 有一个不满足，就直接返回
+                if (!nameRule.test(fileName)) {
+                    return false;
+                }
+            }
+            if (contentRuleList.isEmpty()) {
+                return true;
+            }
+            FileContent fileContent = new FileContent(file);
+            try {
+                if (!fileContent.isMatchable()) {
+                    return false;
+                }
+                for (ContentRule contentRule : contentRuleList) {
+                    if (!contentRule.test(fileContent)) {
+                        return false;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // 都满足
+            return true;
+        };
+    }
 
-            FileFilterRuleEnum filterRuleEnum = FileFilterRuleEnum.getEnumByValue(rule);
-            if (filterRuleEnum == null) {
+    /**
+     * 把目录名称规则编译为目录过滤器，不满足的目录整个跳过
+     *
+     * @param fileFilterConfigList
+     * @return
+     */
+    private static Predicate<String> compileDirectoryFilter(List<FileFilterConfig> fileFilterConfigList) {
+        Predicate<String> directoryFilter = name -> true;
+        if (CollUtil.isEmpty(fileFilterConfigList)) {
+            return directoryFilter;
+        }
+        for (FileFilterConfig fileFilterConfig : fileFilterConfigList) {
+            FileFilterRuleEnum filterRuleEnum = FileFilterRuleEnum.getEnumByValue(fileFilterConfig.getRule());
+            if (FileFilterRangeEnum.DIRECTORY_NAME != FileFilterRangeEnum.getEnumByValue(fileFilterConfig.getRange())
+                    || filterRuleEnum == null) {
                 continue;
             }
-            switch (filterRuleEnum) {
-                case CONTAINS:
-                    result = content.contains(value);
-                    break;
-                case STARTS_WITH:
-                    result = content.startsWith(value);
-                    break;
-                case ENDS_WITH:
-                    result = content.endsWith(value);
-                    break;
-                case REGEX:
-                    result = content.matches(value);
-                    break;
-                case EQUALS:
-                    result = content.equals(value);
-                    break;
-                default:
+            directoryFilter = directoryFilter.and(compileNameRule(filterRuleEnum, StrUtil.nullToEmpty(fileFilterConfig.getValue())));
+        }
+        return directoryFilter;
+    }
+
+    private static Predicate<String> compileNameRule(FileFilterRuleEnum filterRuleEnum, String value) {
+        switch (filterRuleEnum) {
+            case CONTAINS:
+                return content -> content.contains(value);
+            case STARTS_WITH:
+                return content -> content.startsWith(value);
+            case ENDS_WITH:
+                return content -> content.endsWith(value);
+            case REGEX:
+                Pattern pattern = Pattern.compile(value);
+                return content -> pattern.matcher(content).matches();
+            case EQUALS:
+                return content -> content.equals(value);
+            default:
+                return content -> true;
+        }
+    }
+
+    private static ContentRule compileContentRule(FileFilterRuleEnum filterRuleEnum, String value) {
+        // UTF-8 是自同步编码，按字节匹配和按解码后的字符串匹配结果相同
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        switch (filterRuleEnum) {
+            case CONTAINS:
+                int[] next = buildNext(bytes);
+                return fileContent -> fileContent.contains(bytes, next);
+            case STARTS_WITH:
+                return fileContent -> fileContent.startsWith(bytes);
+            case ENDS_WITH:
+                return fileContent -> fileContent.endsWith(bytes);
+            case REGEX:
+                Pattern pattern = Pattern.compile(value);
+                return fileContent -> pattern.matcher(fileContent.getString()).matches();
+            case EQUALS:
+                return fileContent -> fileContent.length() == bytes.length && fileContent.startsWith(bytes);
+            default:
+                return fileContent -> true;
+        }
+    }
+
+    /**
+     * KMP 部分匹配表
+     *
+     * @param pattern
+     * @return
+     */
+    private static int[] buildNext(byte[] pattern) {
+        int[] next = new int[pattern.length];
+        for (int i = 1, j = 0; i < pattern.length; i++) {
+            while (j > 0 && pattern[i] != pattern[j]) {
+                j = next[j - 1];
+            }
+            if (pattern[i] == pattern[j]) {
+                j++;
+            }
+            next[i] = j;
+        }
+        return next;
+    }
+
+    /**
+     * 按文件内容的规则
+     */
+    private interface ContentRule {
+
+        boolean test(FileContent fileContent) throws IOException;
+    }
+
+    /**
+     * 单个文件的内容，按需读取
+     */
+    private static class FileContent {
+
+        private final File file;
+
+        private long length = -1;
+
+        /**
+         * 文件开头的内容（最多 SNIFF_SIZE 字节）
+         */
+        private byte[] head;
+
+        private String content;
+
+        private FileContent(File file) {
+            this.file = file;
+        }
+
+        private long length() {
+            if (length < 0) {
+                length = file.length();
+            }
+            return length;
+        }
+
+        /**
+         * 是否参与内容匹配：不超过大小限制，且开头没有 NUL 字节（不是二进制文件）
+         *
+         * @return
+         * @throws IOException
+         */
+        private boolean isMatchable() throws IOException {
+            if (length() > MAX_CONTENT_SIZE) {
+                return false;
+            }
+            head = readHead(SNIFF_SIZE);
+            for (byte b : head) {
+                if (b == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String getString() {
+            if (content == null) {
+                content = FileUtil.readUtf8String(file);
+            }
+            return content;
+        }
+
+        private boolean startsWith(byte[] prefix) throws IOException {
+            if (length() < prefix.length) {
+                return false;
+            }
+            if (prefix.length <= head.length) {
+                return Arrays.equals(Arrays.copyOf(head, prefix.length), prefix);
+            }
+            return Arrays.equals(readHead(prefix.length), prefix);
+        }
+
+        private boolean endsWith(byte[] suffix) throws IOException {
+            long fileLength = length();
+            if (fileLength < suffix.length) {
+                return false;
             }
+            byte[] tail = new byte[suffix.length];
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+                randomAccessFile.seek(fileLength - suffix.length);
+                randomAccessFile.readFully(tail);
+            }
+            return Arrays.equals(tail, suffix);
+        }
 
-            // 有一个不满足，就直接返回
-            if (!result) {
+        /**
+         * 流式查找，找到后立即返回
+         *
+         * @param pattern
+         * @param next    KMP 部分匹配表
+         * @return
+         * @throws IOException
+         */
+        private boolean contains(byte[] pattern, int[] next) throws IOException {
+            if (pattern.length == 0) {
+                return true;
+            }
+            if (content != null) {
+                return content.contains(new String(pattern, StandardCharsets.UTF_8));
+            }
+            if (length() < pattern.length) {
                 return false;
             }
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int j = 0;
+                int count;
+                while ((count = inputStream.read(buffer)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        while (j > 0 && buffer[i] != pattern[j]) {
+                            j = next[j - 1];
+                        }
+                        if (buffer[i] == pattern[j] && ++j == pattern.length) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
         }
 
-        // 都满足
-        return true;
+        private byte[] readHead(int size) throws IOException {
+            int headLength = (int) Math.min(size, length());
+            byte[] head = new byte[headLength];
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                int offset = 0;
+                while (offset < headLength) {
+                    int count = inputStream.read(head, offset, headLength - offset);
+                    if (count < 0) {
+                        return Arrays.copyOf(head, offset);
+                    }
+                    offset += count;
+                }
+            }
+            return head;
+        }
     }
 }
-
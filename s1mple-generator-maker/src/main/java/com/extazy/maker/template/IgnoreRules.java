@@ -0,0 +1,209 @@
+package com.extazy.maker.template;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * .gitignore 风格的忽略规则
+ * <p>
+ * 支持注释、! 取反、结尾 / 只匹配目录、以 / 开头或中间含 / 的规则相对规则文件所在目录匹配、
+ * 否则匹配任意层级的文件名，以及 *、?、[...]、** 通配符；同一组规则中后面的规则优先
+ */
+public class IgnoreRules {
+
+    /**
+     * 规则文件名
+     */
+    public static final String IGNORE_FILE_NAME = ".gitignore";
+
+    private static class Rule {
+
+        private final Pattern pattern;
+
+        private final boolean negate;
+
+        private final boolean dirOnly;
+
+        /**
+         * 是否按相对路径匹配（否则只匹配文件名）
+         */
+        private final boolean anchored;
+
+        private Rule(Pattern pattern, boolean negate, boolean dirOnly, boolean anchored) {
+            this.pattern = pattern;
+            this.negate = negate;
+            this.dirOnly = dirOnly;
+            this.anchored = anchored;
+        }
+    }
+
+    /**
+     * 规则所在目录相对于遍历根目录的路径，根目录为空字符串
+     */
+    private final String basePath;
+
+    private final List<Rule> ruleList = new ArrayList<>();
+
+    /**
+     * @param basePath 规则所在目录相对于遍历根目录的路径（使用 / 分隔），根目录为空字符串
+     * @param lines    规则行
+     */
+    public IgnoreRules(String basePath, Collection<String> lines) {
+        this.basePath = StrUtil.isEmpty(basePath) ? "" : StrUtil.addSuffixIfNot(basePath, "/");
+        for (String line : lines) {
+            Rule rule = parseRule(line);
+            if (rule != null) {
+                ruleList.add(rule);
+            }
+        }
+    }
+
+    /**
+     * 读取目录下的 .gitignore，不存在或没有规则时返回 null
+     *
+     * @param dir
+     * @param basePath 目录相对于遍历根目录的路径
+     * @return
+     * @throws IOException
+     */
+    public static IgnoreRules load(Path dir, String basePath) throws IOException {
+        Path ignoreFile = dir.resolve(IGNORE_FILE_NAME);
+        if (!Files.isRegularFile(ignoreFile)) {
+            return null;
+        }
+        IgnoreRules ignoreRules = new IgnoreRules(basePath, Files.readAllLines(ignoreFile, StandardCharsets.UTF_8));
+        return ignoreRules.ruleList.isEmpty() ? null : ignoreRules;
+    }
+
+    /**
+     * 匹配路径
+     *
+     * @param relativePath 相对于遍历根目录的路径（使用 / 分隔）
+     * @param dir          是否为目录
+     * @return 被忽略返回 TRUE，被 ! 规则重新包含返回 FALSE，没有规则匹配返回 null
+     */
+    public Boolean match(String relativePath, boolean dir) {
+        if (!relativePath.startsWith(basePath)) {
+            return null;
+        }
+        String path = relativePath.substring(basePath.length());
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        for (int i = ruleList.size() - 1; i >= 0; i--) {
+            Rule rule = ruleList.get(i);
+            if (rule.dirOnly && !dir) {
+                continue;
+            }
+            if (rule.pattern.matcher(rule.anchored ? path : name).matches()) {
+                return !rule.negate;
+            }
+        }
+        return null;
+    }
+
+    private static Rule parseRule(String line) {
+        // 去掉行尾未转义的空格
+        String text = line;
+        while (text.endsWith(" ") && !text.endsWith("\\ ")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.isEmpty() || text.startsWith("#")) {
+            return null;
+        }
+        boolean negate = false;
+        if (text.startsWith("!")) {
+            negate = true;
+            text = text.substring(1);
+        } else if (text.startsWith("\\!") || text.startsWith("\\#")) {
+            text = text.substring(1);
+        }
+        boolean dirOnly = false;
+        if (text.endsWith("/")) {
+            dirOnly = true;
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.isEmpty()) {
+            return null;
+        }
+        // 以 / 开头或中间含 / 时相对规则文件所在目录匹配
+        boolean anchored = text.indexOf('/') >= 0;
+        if (text.startsWith("/")) {
+            text = text.substring(1);
+        }
+        return new Rule(Pattern.compile(toRegex(text)), negate, dirOnly, anchored);
+    }
+
+    /**
+     * 通配符转正则
+     *
+     * @param glob
+     * @return
+     */
+    private static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int length = glob.length();
+        int i = 0;
+        while (i < length) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < length && glob.charAt(i + 1) == '*') {
+                boolean atStart = i == 0 || glob.charAt(i - 1) == '/';
+                boolean atEnd = i + 2 == length;
+                boolean beforeSlash = i + 2 < length && glob.charAt(i + 2) == '/';
+                if (atStart && beforeSlash) {
+                    // **/ 匹配零或多层目录
+                    regex.append("(?:.*/)?");
+                    i += 3;
+                    continue;
+                }
+                if (atStart && atEnd) {
+                    // 结尾的 /** 匹配目录下的所有内容
+                    regex.append(".*");
+                    i += 2;
+                    continue;
+                }
+                // 其他位置的 ** 和 * 相同
+                regex.append("[^/]*");
+                i += 2;
+                continue;
+            }
+            switch (c) {
+                case '*':
+                    regex.append("[^/]*");
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i + 2);
+                    if (end < 0) {
+                        regex.append("\\[");
+                        break;
+                    }
+                    String set = glob.substring(i + 1, end);
+                    if (set.startsWith("!")) {
+                        set = "^" + set.substring(1);
+                    }
+                    regex.append('[').append(set.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+                    i = end;
+                    break;
+                case '\\':
+                    if (i + 1 < length) {
+                        i++;
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(i))));
+                    }
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+            }
+            i++;
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package com.extazy.maker.template;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * 多模式串替换（Aho–Corasick 自动机）
+ * <p>
+ * 构造时把所有被替换文本编译为自动机，之后每个文件只需从左到右扫描一遍；
+ * 多个匹配重叠时取最靠左的，同一位置取最长的，替换后的内容不会再被其他模式串匹配
+ */
+public class MultiPatternReplacer {
+
+    /**
+     * 自动机节点
+     */
+    private static class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+
+        /**
+         * 从根节点到该节点的字符数
+         */
+        private final int depth;
+
+        private Node fail;
+
+        /**
+         * 以该节点结尾的最长模式串（自身或失配链上的节点），没有时为 null
+         */
+        private Node output;
+
+        /**
+         * 模式串对应的替换文本，不是模式串结尾时为 null
+         */
+        private String replacement;
+
+        private Node(int depth) {
+            this.depth = depth;
+        }
+    }
+
+    private final Node root = new Node(0);
+
+    private final boolean empty;
+
+    /**
+     * @param replacementMap 被替换文本 => 替换文本，空的被替换文本会被忽略
+     */
+    public MultiPatternReplacer(Map<String, String> replacementMap) {
+        boolean hasPattern = false;
+        for (Map.Entry<String, String> entry : replacementMap.entrySet()) {
+            String pattern = entry.getKey();
+            if (StrUtil.isEmpty(pattern)) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < pattern.length(); i++) {
+                int depth = i + 1;
+                node = node.children.computeIfAbsent(pattern.charAt(i), key -> new Node(depth));
+            }
+            node.replacement = StrUtil.nullToEmpty(entry.getValue());
+            hasPattern = true;
+        }
+        this.empty = !hasPattern;
+        buildFailLinks();
+    }
+
+    /**
+     * 广度优先计算失配指针和每个节点的最长输出
+     */
+    private void buildFailLinks() {
+        Queue<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node child : root.children.values()) {
+            child.fail = root;
+            child.output = child.replacement != null ? child : null;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                char c = entry.getKey();
+                Node child = entry.getValue();
+                Node fail = node.fail;
+                while (fail != root && !fail.children.containsKey(c)) {
+                    fail = fail.fail;
+                }
+                Node next = fail.children.get(c);
+                child.fail = next != null ? next : root;
+                // 自身是模式串结尾时最长，否则取失配节点的输出
+                child.output = child.replacement != null ? child : child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    private Node next(Node node, char c) {
+        while (true) {
+            Node child = node.children.get(c);
+            if (child != null) {
+                return child;
+            }
+            if (node == root) {
+                return root;
+            }
+            node = node.fail;
+        }
+    }
+
+    /**
+     * 替换文本
+     *
+     * @param text
+     * @return 没有任何匹配时返回原字符串
+     */
+    public String replace(String text) {
+        if (empty || StrUtil.isEmpty(text)) {
+            return text;
+        }
+        StringBuilder result = null;
+        // 已输出到的位置
+        int copied = 0;
+        Node node = root;
+        // 当前候选匹配 [matchStart, matchEnd)
+        int matchStart = -1;
+        int matchEnd = -1;
+        String matchReplacement = null;
+        int length = text.length();
+        int i = 0;
+        while (i <= length) {
+            if (i < length) {
+                node = next(node, text.charAt(i));
+                Node output = node.output;
+                if (output != null) {
+                    int start = i + 1 - output.depth;
+                    // 更靠左，或同一起点但更长
+                    if (matchStart < 0 || start <= matchStart) {
+                        matchStart = start;
+                        matchEnd = i + 1;
+                        matchReplacement = output.replacement;
+                    }
+                }
+            }
+            // 之后的匹配起点都不会早于 i + 1 - depth，候选匹配已是最靠左最长的，可以确定
+            if (matchStart >= 0 && (i == length || i + 1 - node.depth > matchStart)) {
+                if (result == null) {
+                    result = new StringBuilder(length + 16);
+                }
+                result.append(text, copied, matchStart).append(matchReplacement);
+                copied = matchEnd;
+                // 从匹配结尾重新扫描，保证匹配不重叠
+                i = matchEnd;
+                node = root;
+                matchStart = -1;
+                continue;
+            }
+            i++;
+        }
+        if (result == null) {
+            return text;
+        }
+        return result.append(text, copied, length).toString();
+    }
+}
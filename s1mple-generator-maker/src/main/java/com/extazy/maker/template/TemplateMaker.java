@@ -198,6 +198,9 @@ public class TemplateMaker {
             return newFileInfoList;
         }
 
+        // 所有模型的替换规则编译一次，每个文件只扫描一遍
+        MultiPatternReplacer replacer = buildReplacer(templateMakerModelConfig);
+
         // 二、生成文件模板
         // 遍历输入文件
         for (TemplateMakerFileConfig.FileInfoConfig fileInfoConfig : fileConfigInfoList) {
@@ -208,16 +211,18 @@ public class TemplateMaker {
                 inputFilePath = sourceRootPath + File.separator + inputFilePath;
             }
 
-            // 获取过滤后的文件列表（不会存在目录）
-            List<File> fileList = FileFilter.doFilter(inputFilePath, fileInfoConfig.getFilterConfigList());
-            // 不处理已生成的 FTL 模板文件
-            fileList = fileList.stream()
-                    .filter(file -> !file.getAbsolutePath().endsWith(".ftl"))
-                    .collect(Collectors.toList());
+            // 获取过滤后的文件列表（不会存在目录），遍历时跳过 .gitignore 忽略的目录
+            List<File> fileList = new ArrayList<>();
+            FileFilter.doFilter(sourceRootPath, inputFilePath, fileInfoConfig.getFilterConfigList(), file -> {
+                // 不处理已生成的 FTL 模板文件
+                if (!file.getAbsolutePath().endsWith(".ftl")) {
+                    fileList.add(file);
+                }
+            });
 
 
             for (File file : fileList) {
-                Meta.FileConfig.FileInfo fileInfo = makeFileTemplate(templateMakerModelConfig, sourceRootPath, file, fileInfoConfig);
+                Meta.FileConfig.FileInfo fileInfo = makeFileTemplate(replacer, sourceRootPath, file, fileInfoConfig);
                 newFileInfoList.add(fileInfo);
             }
         }
@@ -244,16 +249,47 @@ public class TemplateMaker {
     }
 
     /**
-     * 制作文件模板
+     * 构造模型替换器：被替换文本 => 模型占位符，同一个被替换文本以先配置的模型为准
      *
      * @param templateMakerModelConfig
+     * @return
+     */
+    private static MultiPatternReplacer buildReplacer(TemplateMakerModelConfig templateMakerModelConfig) {
+        Map<String, String> replacementMap = new LinkedHashMap<>();
+        if (templateMakerModelConfig == null || CollUtil.isEmpty(templateMakerModelConfig.getModels())) {
+            return new MultiPatternReplacer(replacementMap);
+        }
+        TemplateMakerModelConfig.ModelGroupConfig modelGroupConfig = templateMakerModelConfig.getModelGroupConfig();
+        for (TemplateMakerModelConfig.ModelInfoConfig modelInfoConfig : templateMakerModelConfig.getModels()) {
+            String replacement;
+            // 不是分组
+            if (modelGroupConfig == null) {
+                replacement = String.format("${%s}", modelInfoConfig.getFieldName());
+            } else {
+                // 是分组
+                String groupKey = modelGroupConfig.getGroupKey();
+                // 注意挖坑要多一个层级
+                replacement = String.format("${%s.%s}", groupKey, modelInfoConfig.getFieldName());
+            }
+            String replaceText = modelInfoConfig.getReplaceText();
+            if (StrUtil.isNotEmpty(replaceText)) {
+                replacementMap.putIfAbsent(replaceText, replacement);
+            }
+        }
+        return new MultiPatternReplacer(replacementMap);
+    }
+
+    /**
+     * 制作文件模板
+     *
+     * @param replacer
      * @param sourceRootPath
      * @param inputFile
      * @param fileInfoConfig
      * @return
      */
     private static Meta.FileConfig.FileInfo makeFileTemplate(
-            TemplateMakerModelConfig templateMakerModelConfig,
+            MultiPatternReplacer replacer,
             String sourceRootPath,
             File inputFile,
             TemplateMakerFileConfig.FileInfoConfig fileInfoConfig)
@@ -277,23 +313,8 @@ public class TemplateMaker {
             fileContent = FileUtil.readUtf8String(fileInputAbsolutePath);
         }
 
-        // 支持多个模型：对同一个文件的内容，遍历模型进行多轮替换
-        TemplateMakerModelConfig.ModelGroupConfig modelGroupConfig = templateMakerModelConfig.getModelGroupConfig();
-        String newFileContent = fileContent;
-        String replacement;
-        for (TemplateMakerModelConfig.ModelInfoConfig modelInfoConfig : templateMakerModelConfig.getModels()) {
-            // 不是分组
-            if (modelGroupConfig == null) {
-                replacement = String.format("${%s}", modelInfoConfig.getFieldName());
-            } else {
-                // 是分组
-                String groupKey = modelGroupConfig.getGroupKey();
-                // 注意挖坑要多一个层级
-                replacement = String.format("${%s.%s}", groupKey, modelInfoConfig.getFieldName());
-            }
-            // 多次替换
-            newFileContent = StrUtil.replace(newFileContent, modelInfoConfig.getReplaceText(), replacement);
-        }
+        // 支持多个模型：一次扫描替换所有模型的文本
+        String newFileContent = replacer.replace(fileContent);
 
         // 文件配置信息
         Meta.FileConfig.FileInfo fileInfo = new Meta.FileConfig.FileInfo();
@@ -10,7 +10,8 @@ import lombok.Getter;
 public enum FileFilterRangeEnum {
 
     FILE_NAME("文件名称", "fileName"),
-    FILE_CONTENT("文件内容", "fileContent");
+    FILE_CONTENT("文件内容", "fileContent"),
+    DIRECTORY_NAME("目录名称", "directoryName");
 
     private final String text;
 
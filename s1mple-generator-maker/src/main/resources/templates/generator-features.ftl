@@ -0,0 +1 @@
+zip-stdout
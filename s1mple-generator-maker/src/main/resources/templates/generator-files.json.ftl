@@ -0,0 +1,5 @@
+[
+<#list files as file>
+  {"inputPath": "${file.inputPath?json_string}", "outputPath": "${file.outputPath?json_string}", "generateType": "${file.generateType?json_string}", "condition": ${file.condition?c}}<#sep>,</#sep>
+</#list>
+]
@@ -6,7 +6,8 @@ public class Main {
 
     public static void main(String[] args) {
         CommandExecutor commandExecutor = new CommandExecutor();
-        commandExecutor.doExecute(args);
+        // 退出码表示是否执行成功（如后端根据退出码判断生成是否失败）
+        System.exit(commandExecutor.doExecute(args));
     }
 }
 
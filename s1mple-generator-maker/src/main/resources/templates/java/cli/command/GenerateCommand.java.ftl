@@ -26,6 +26,9 @@ ${indent}${modelInfo.groupKey}CommandLine.execute(${modelInfo.allArgsStr});
 @Command(name = "generate", description = "Generate Code", mixinStandardHelpOptions = true)
 @Data
 public class GenerateCommand implements Callable<Integer> {
+
+    @Option(names = {"--parallelism"}, description = "并行生成的线程数，默认为 CPU 核数")
+    private int parallelism = MainGenerator.DEFAULT_PARALLELISM;
 <#list modelConfig.models as modelInfo>
 
     <#-- 有分组 -->
@@ -76,7 +79,7 @@ public class GenerateCommand implements Callable<Integer> {
         dataModel.${modelInfo.groupKey} = ${modelInfo.groupKey};
         </#if>
         </#list>
-        MainGenerator.doGenerate(dataModel);
+        MainGenerator.doGenerate(dataModel, MainGenerator.DEFAULT_INPUT_ROOT_PATH, MainGenerator.DEFAULT_OUTPUT_ROOT_PATH, parallelism);
         return 0;
     }
 }
\ No newline at end of file
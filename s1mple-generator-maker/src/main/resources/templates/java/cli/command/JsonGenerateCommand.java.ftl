@@ -3,11 +3,17 @@ package ${basePackage}.cli.command;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.json.JSONUtil;
 import ${basePackage}.generator.MainGenerator;
+import ${basePackage}.generator.OutputSink;
 import ${basePackage}.model.DataModel;
 import lombok.Data;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.concurrent.Callable;
 
 /**
@@ -17,14 +23,58 @@ import java.util.concurrent.Callable;
 @Data
 public class JsonGenerateCommand implements Callable<Integer> {
 
-    @Option(names = {"-f", "--file"}, arity = "0..1", description = "json 文件路径", interactive = true, echo = true)
+    @Option(names = {"-f", "--file"}, arity = "0..1", description = "json 文件路径，为目录时批量生成目录下的所有 json 文件", interactive = true, echo = true)
     private String filePath;
 
+    @Option(names = {"--parallelism"}, description = "并行生成的线程数，默认为 CPU 核数")
+    private int parallelism = MainGenerator.DEFAULT_PARALLELISM;
+
+    @Option(names = {"--zip-stdout"}, description = "把生成结果压缩后写入标准输出，不生成到输出目录（只支持单个 json 文件）")
+    private boolean zipStdout;
+
     public Integer call() throws Exception {
-        // 读取 json 文件，转换为数据模型
-        String jsonStr = FileUtil.readUtf8String(filePath);
-        DataModel dataModel = JSONUtil.toBean(jsonStr, DataModel.class);
-        MainGenerator.doGenerate(dataModel);
+        File file = new File(filePath);
+        if (zipStdout) {
+            if (file.isDirectory()) {
+                System.err.println("--zip-stdout 只支持单个 json 文件");
+                return 2;
+            }
+            // 标准输出只用于写入压缩包，其他打印改为输出到标准错误
+            OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+            System.setOut(System.err);
+            // 只有生成成功时才写入压缩包的目录区
+            OutputSink outputSink = OutputSink.zip(stdout);
+            MainGenerator.doGenerate(readDataModel(file), MainGenerator.DEFAULT_INPUT_ROOT_PATH, outputSink, parallelism);
+            outputSink.close();
+            return 0;
+        }
+        if (file.isDirectory()) {
+            // 批量生成：一个进程生成所有数据模型，每个 json 文件的结果放在输出目录下以文件名（不含后缀）命名的子目录中
+            File[] jsonFiles = file.listFiles((dir, name) -> name.endsWith(".json"));
+            if (jsonFiles == null) {
+                return 0;
+            }
+            Arrays.sort(jsonFiles);
+            for (File jsonFile : jsonFiles) {
+                String outputRootPath = new File(MainGenerator.DEFAULT_OUTPUT_ROOT_PATH, FileUtil.mainName(jsonFile)).getPath();
+                // 没有生成任何文件时也创建子目录，表示已经处理
+                FileUtil.mkdir(outputRootPath);
+                MainGenerator.doGenerate(readDataModel(jsonFile), MainGenerator.DEFAULT_INPUT_ROOT_PATH, outputRootPath, parallelism);
+            }
+            return 0;
+        }
+        MainGenerator.doGenerate(readDataModel(file), MainGenerator.DEFAULT_INPUT_ROOT_PATH, MainGenerator.DEFAULT_OUTPUT_ROOT_PATH, parallelism);
         return 0;
     }
+
+    /**
+     * 读取 json 文件，转换为数据模型
+     *
+     * @param jsonFile
+     * @return
+     */
+    private static DataModel readDataModel(File jsonFile) {
+        String jsonStr = FileUtil.readUtf8String(jsonFile);
+        return JSONUtil.toBean(jsonStr, DataModel.class);
+    }
 }
\ No newline at end of file
@@ -1,53 +1,172 @@
 package ${basePackage}.generator;
 
+import ${basePackage}.model.DataModel;
 import cn.hutool.core.io.FileUtil;
+import freemarker.cache.FileTemplateLoader;
+import freemarker.cache.MruCacheStorage;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 动态文件生成
+ * <p>
+ * 每个输入根路径只创建一个 Configuration，模板解析后缓存，多次生成之间复用
  */
 public class DynamicGenerator {
 
+    /**
+     * 最多缓存的输入根路径数
+     */
+    private static final int MAX_ROOT_COUNT = 16;
+
+    /**
+     * 输入根路径 => Configuration
+     */
+    private static final Map<String, Configuration> CONFIGURATION_MAP = new LinkedHashMap<String, Configuration>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Configuration> eldest) {
+            return size() > MAX_ROOT_COUNT;
+        }
+    };
+
     /**
      * 生成文件
      *
-     * @param inputPath 模板文件输入路径
-     * @param outputPath 输出路径
-     * @param model 数据模型
+     * @param inputRootPath     输入根路径
+     * @param relativeInputPath 模板文件相对于输入根路径的路径
+     * @param outputPath        输出路径
+     * @param model             数据模型
      * @throws IOException
      * @throws TemplateException
      */
-    public static void doGenerate(String inputPath, String outputPath, Object model) throws IOException, TemplateException {
-        // new 出 Configuration 对象，参数为 FreeMarker 版本号
-        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
+    public static void doGenerate(String inputRootPath, String relativeInputPath, String outputPath, Object model) throws IOException, TemplateException {
+        // 文件不存在则创建文件和父目录
+        if (!FileUtil.exist(outputPath)) {
+            FileUtil.touch(outputPath);
+        }
 
-        // 指定模板文件所在的路径
-        File templateDir = new File(inputPath).getParentFile();
-        configuration.setDirectoryForTemplateLoading(templateDir);
+        // 生成（UTF-8 缓冲写入）
+        try (Writer out = Files.newBufferedWriter(new File(outputPath).toPath(), StandardCharsets.UTF_8)) {
+            render(inputRootPath, relativeInputPath, model, out);
+        }
+    }
 
-        // 设置模板文件使用的字符集
-        configuration.setDefaultEncoding("utf-8");
+    /**
+     * 生成文件（增量：输入没有变化时不渲染，否则先渲染到内存，内容与已有文件相同时不重写，并记录到输出清单）
+     *
+     * @param inputRootPath     输入根路径
+     * @param relativeInputPath 模板文件相对于输入根路径的路径
+     * @param outputPath        输出路径
+     * @param model             数据模型
+     * @param outputManifest    输出清单
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void doGenerate(String inputRootPath, String relativeInputPath, String outputPath, Object model,
+                                  OutputManifest outputManifest) throws IOException, TemplateException {
+        File outputFile = new File(outputPath);
+        String inputHash = outputManifest.getInputHash(new File(inputRootPath, relativeInputPath));
+        if (outputManifest.isUpToDate(outputFile, inputHash)) {
+            return;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+            render(inputRootPath, relativeInputPath, model, out);
+        }
+        outputManifest.write(inputHash, outputFile, outputStream.toByteArray());
+    }
 
-        // 创建模板对象，加载指定模板
-        String templateName = new File(inputPath).getName();
-        Template template = configuration.getTemplate(templateName);
+    /**
+     * 生成文件到输出目标（如压缩流、内存）
+     *
+     * @param inputRootPath     输入根路径
+     * @param relativeInputPath 模板文件相对于输入根路径的路径
+     * @param outputSink        输出目标
+     * @param outputPath        相对于输出目标根的输出路径
+     * @param model             数据模型
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void doGenerate(String inputRootPath, String relativeInputPath, OutputSink outputSink, String outputPath,
+                                  Object model) throws IOException, TemplateException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(outputSink.open(outputPath), StandardCharsets.UTF_8))) {
+            render(inputRootPath, relativeInputPath, model, out);
+        }
+    }
 
-        // 文件不存在则创建文件和父目录
-        if (!FileUtil.exist(outputPath)) {
-            FileUtil.touch(outputPath);
+    /**
+     * 渲染模板：优先使用预编译的渲染器，不支持时再交给 FreeMarker
+     *
+     * @param inputRootPath
+     * @param relativeInputPath
+     * @param model
+     * @param out
+     * @throws IOException
+     * @throws TemplateException
+     */
+    private static void render(String inputRootPath, String relativeInputPath, Object model, Writer out) throws IOException, TemplateException {
+        TemplateRenderers.Renderer renderer = model instanceof DataModel ? TemplateRenderers.get(inputRootPath, relativeInputPath) : null;
+        // 需要交给 FreeMarker 时渲染器在写入任何内容之前就返回，可以直接写入输出
+        if (renderer != null && renderer.render((DataModel) model, out)) {
+            return;
         }
 
-        // 生成
-        Writer out = new FileWriter(outputPath);
+        // 创建模板对象，加载指定模板（已解析过的直接从缓存中取）
+        Template template = getConfiguration(inputRootPath).getTemplate(relativeInputPath.replace('\\', '/'));
         template.process(model, out);
-        out.close();
+    }
+
+    /**
+     * 生成文件
+     *
+     * @param inputPath 模板文件输入路径
+     * @param outputPath 输出路径
+     * @param model 数据模型
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public static void doGenerate(String inputPath, String outputPath, Object model) throws IOException, TemplateException {
+        File inputFile = new File(inputPath);
+        doGenerate(inputFile.getParent(), inputFile.getName(), outputPath, model);
+    }
+
+    /**
+     * 获取输入根路径对应的 Configuration
+     *
+     * @param inputRootPath
+     * @return
+     * @throws IOException
+     */
+    private static Configuration getConfiguration(String inputRootPath) throws IOException {
+        String rootPath = new File(inputRootPath).getCanonicalPath();
+        synchronized (CONFIGURATION_MAP) {
+            Configuration configuration = CONFIGURATION_MAP.get(rootPath);
+            if (configuration == null) {
+                // new 出 Configuration 对象，参数为 FreeMarker 版本号
+                configuration = new Configuration(Configuration.VERSION_2_3_32);
+                // 指定模板文件所在的根路径
+                configuration.setTemplateLoader(new FileTemplateLoader(new File(rootPath)));
+                // 设置模板文件使用的字符集
+                configuration.setDefaultEncoding("utf-8");
+                // 缓存解析后的模板，不查找本地化的模板
+                configuration.setCacheStorage(new MruCacheStorage(64, 1024));
+                configuration.setLocalizedLookup(false);
+                CONFIGURATION_MAP.put(rootPath, configuration);
+            }
+            return configuration;
+        }
     }
 
 }
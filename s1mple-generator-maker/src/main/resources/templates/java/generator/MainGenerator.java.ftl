@@ -1,26 +1,95 @@
 package ${basePackage}.generator;
 
 import ${basePackage}.model.DataModel;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
 import freemarker.template.TemplateException;
 
 import java.io.File;
 import java.io.IOException;
-
-<#macro generateFile indent fileInfo>
-${indent}inputPath = new File(inputRootPath, "${fileInfo.inputPath}").getAbsolutePath();
-${indent}outputPath = new File(outputRootPath, "${fileInfo.outputPath}").getAbsolutePath();
-<#if fileInfo.generateType == "static">
-${indent}StaticGenerator.copyFilesByHutool(inputPath, outputPath);
-<#else>
-${indent}DynamicGenerator.doGenerate(inputPath, outputPath, model);
-</#if>
-</#macro>
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * 核心生成器
+ * <p>
+ * 需要生成的文件记录在 jar 包中的文件清单（${manifestPath}）里，生成时按条件过滤后并行生成；
+ * 输出清单（OutputManifest）记录上次生成到同一输出目录的结果，没有变化的文件不再渲染和重写
  */
 public class MainGenerator {
 
+    /**
+     * 默认输入根路径
+     */
+    public static final String DEFAULT_INPUT_ROOT_PATH = "${fileConfig.inputRootPath}";
+
+    /**
+     * 默认输出根路径
+     */
+    public static final String DEFAULT_OUTPUT_ROOT_PATH = "${fileConfig.outputRootPath}";
+
+    /**
+     * 默认并行生成的线程数，可以通过系统属性 generator.parallelism 指定
+     */
+    public static final int DEFAULT_PARALLELISM = Integer.getInteger("generator.parallelism", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 文件清单的资源路径
+     */
+    private static final String MANIFEST_PATH = "/${manifestPath}";
+
+    /**
+     * 生成单个文件的任务
+     */
+    @FunctionalInterface
+    private interface FileTask {
+
+        void run() throws TemplateException, IOException;
+    }
+
+    /**
+     * 文件清单中的一项
+     */
+    private static class FileEntry {
+
+        private final String inputPath;
+
+        private final String outputPath;
+
+        private final boolean dynamic;
+
+        /**
+         * 生成条件的编号，-1 表示没有条件
+         */
+        private final int condition;
+
+        private FileEntry(JSONObject json) {
+            this.inputPath = json.getStr("inputPath");
+            this.outputPath = json.getStr("outputPath");
+            this.dynamic = !"static".equals(json.getStr("generateType"));
+            this.condition = json.getInt("condition", -1);
+        }
+    }
+
+    /**
+     * 延迟加载的文件清单
+     */
+    private static class FileManifestHolder {
+
+        private static final List<FileEntry> FILE_ENTRY_LIST = loadFileEntries();
+    }
+
     /**
      * 生成
      *
@@ -29,48 +98,209 @@ public class MainGenerator {
      * @throws IOException
      */
     public static void doGenerate(DataModel model) throws TemplateException, IOException {
-        String inputRootPath = "${fileConfig.inputRootPath}";
-        String outputRootPath = "${fileConfig.outputRootPath}";
+        doGenerate(model, DEFAULT_INPUT_ROOT_PATH, DEFAULT_OUTPUT_ROOT_PATH);
+    }
 
-        String inputPath;
-        String outputPath;
+    /**
+     * 生成（指定输入输出根路径，供进程内调用）
+     *
+     * @param model          数据模型
+     * @param inputRootPath  输入根路径
+     * @param outputRootPath 输出根路径
+     * @throws TemplateException
+     * @throws IOException
+     */
+    public static void doGenerate(DataModel model, String inputRootPath, String outputRootPath) throws TemplateException, IOException {
+        doGenerate(model, inputRootPath, outputRootPath, DEFAULT_PARALLELISM);
+    }
 
+    /**
+     * 生成（先按条件收集需要生成的文件，再并行生成）
+     *
+     * @param model          数据模型
+     * @param inputRootPath  输入根路径
+     * @param outputRootPath 输出根路径
+     * @param parallelism    并行生成的线程数，小于等于 1 时顺序生成
+     * @throws TemplateException
+     * @throws IOException
+     */
+    public static void doGenerate(DataModel model, String inputRootPath, String outputRootPath, int parallelism) throws TemplateException, IOException {
+        boolean[] conditionResults = evaluateConditions(model);
+        // 输出清单：内容没有变化的文件不重写
+        OutputManifest outputManifest = OutputManifest.load(outputRootPath, model);
+        // 先生成动态文件，再复制静态文件（跳过已存在的文件），同一路径动态文件优先
+        List<FileTask> dynamicTaskList = new ArrayList<>();
+        for (FileEntry fileEntry : selectFileEntries(conditionResults, true)) {
+            String outputPath = new File(outputRootPath, fileEntry.outputPath).getAbsolutePath();
+            if (outputManifest.isEnabled()) {
+                dynamicTaskList.add(() -> DynamicGenerator.doGenerate(inputRootPath, fileEntry.inputPath, outputPath, model, outputManifest));
+            } else {
+                // 未启用输出清单时边渲染边写入文件
+                dynamicTaskList.add(() -> DynamicGenerator.doGenerate(inputRootPath, fileEntry.inputPath, outputPath, model));
+            }
+        }
+        runTasks(dynamicTaskList, parallelism);
+        List<FileTask> staticTaskList = new ArrayList<>();
+        for (FileEntry fileEntry : selectFileEntries(conditionResults, false)) {
+            String inputPath = new File(inputRootPath, fileEntry.inputPath).getAbsolutePath();
+            String outputPath = new File(outputRootPath, fileEntry.outputPath).getAbsolutePath();
+            staticTaskList.add(() -> {
+                StaticGenerator.copyFiles(inputPath, outputPath);
+                outputManifest.recordStatic(new File(outputPath));
+            });
+        }
+        runTasks(staticTaskList, parallelism);
+
+        // 报告上次生成过、这次不再生成的文件（不自动删除）
+        List<String> staleList = outputManifest.getStaleList();
+        if (!staleList.isEmpty()) {
+            System.out.println("以下文件已不再生成，可以手动删除：");
+            staleList.forEach(stale -> System.out.println("  " + stale));
+        }
+        outputManifest.save();
+    }
+
+    /**
+     * 生成到输出目标（如压缩流、内存），不落地文件，不使用输出清单
+     *
+     * @param model         数据模型
+     * @param inputRootPath 输入根路径
+     * @param outputSink    输出目标，由调用方关闭
+     * @param parallelism   并行生成的线程数，小于等于 1 时顺序生成
+     * @throws TemplateException
+     * @throws IOException
+     */
+    public static void doGenerate(DataModel model, String inputRootPath, OutputSink outputSink, int parallelism) throws TemplateException, IOException {
+        boolean[] conditionResults = evaluateConditions(model);
+        // 压缩流不能覆盖已写入的文件，同一路径只写入一次：先生成动态文件，再复制静态文件（跳过已存在的文件）
+        List<FileTask> dynamicTaskList = new ArrayList<>();
+        for (FileEntry fileEntry : selectFileEntries(conditionResults, true)) {
+            dynamicTaskList.add(() -> DynamicGenerator.doGenerate(inputRootPath, fileEntry.inputPath, outputSink, fileEntry.outputPath, model));
+        }
+        runTasks(dynamicTaskList, parallelism);
+        List<FileTask> staticTaskList = new ArrayList<>();
+        for (FileEntry fileEntry : selectFileEntries(conditionResults, false)) {
+            String inputPath = new File(inputRootPath, fileEntry.inputPath).getAbsolutePath();
+            staticTaskList.add(() -> StaticGenerator.copyFiles(inputPath, outputSink, fileEntry.outputPath));
+        }
+        runTasks(staticTaskList, parallelism);
+    }
+
+    /**
+     * 筛选满足条件的动态文件或静态文件
+     *
+     * @param conditionResults 所有生成条件的结果
+     * @param dynamic          是否为动态文件
+     * @return 动态文件的同一输出路径只保留最后一个
+     */
+    private static Collection<FileEntry> selectFileEntries(boolean[] conditionResults, boolean dynamic) {
+        Map<String, FileEntry> fileEntryMap = new LinkedHashMap<>();
+        List<FileEntry> fileEntryList = new ArrayList<>();
+        for (FileEntry fileEntry : FileManifestHolder.FILE_ENTRY_LIST) {
+            if (fileEntry.dynamic != dynamic || (fileEntry.condition >= 0 && !conditionResults[fileEntry.condition])) {
+                continue;
+            }
+            if (dynamic) {
+                String outputPathKey = fileEntry.outputPath.replace('\\', '/');
+                fileEntryMap.remove(outputPathKey);
+                fileEntryMap.put(outputPathKey, fileEntry);
+            } else {
+                fileEntryList.add(fileEntry);
+            }
+        }
+        return dynamic ? fileEntryMap.values() : fileEntryList;
+    }
+
+    /**
+     * 计算所有生成条件（按编号）
+     *
+     * @param model 数据模型
+     * @return
+     */
+    private static boolean[] evaluateConditions(DataModel model) {
     <#-- 获取模型变量 -->
     <#list modelConfig.models as modelInfo>
     <#-- 有分组 -->
         <#if modelInfo.groupKey??>
             <#list modelInfo.models as subModelInfo>
-                ${subModelInfo.type} ${subModelInfo.fieldName} = model.${modelInfo.groupKey}.${subModelInfo.fieldName};
+        ${subModelInfo.type} ${subModelInfo.fieldName} = model.${modelInfo.groupKey}.${subModelInfo.fieldName};
             </#list>
         <#else>
-            ${modelInfo.type} ${modelInfo.fieldName} = model.${modelInfo.fieldName};
+        ${modelInfo.type} ${modelInfo.fieldName} = model.${modelInfo.fieldName};
         </#if>
     </#list>
+        return new boolean[]{
+        <#list conditions as condition>
+                ${condition}<#sep>,</#sep>
+        </#list>
+        };
+    }
 
+    /**
+     * 读取文件清单
+     *
+     * @return
+     */
+    private static List<FileEntry> loadFileEntries() {
+        try (InputStream inputStream = MainGenerator.class.getResourceAsStream(MANIFEST_PATH)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("文件清单不存在：" + MANIFEST_PATH);
+            }
+            JSONArray jsonArray = JSONUtil.parseArray(IoUtil.read(inputStream, StandardCharsets.UTF_8));
+            List<FileEntry> fileEntryList = new ArrayList<>(jsonArray.size());
+            for (int i = 0; i < jsonArray.size(); i++) {
+                fileEntryList.add(new FileEntry(jsonArray.getJSONObject(i)));
+            }
+            return Collections.unmodifiableList(fileEntryList);
+        } catch (IOException e) {
+            throw new IllegalStateException("读取文件清单失败：" + MANIFEST_PATH, e);
+        }
+    }
 
-    <#list fileConfig.files as fileInfo>
-        <#if fileInfo.groupKey??>
-        // groupKey = ${fileInfo.groupKey}
-        <#if fileInfo.condition??>
-        if(${fileInfo.condition}) {
-            <#list fileInfo.files as fileInfo>
-            <@generateFile fileInfo=fileInfo indent="           " />
-            </#list>
+    /**
+     * 执行生成任务，任一任务失败时取消其余任务并抛出它的异常
+     *
+     * @param taskList
+     * @param parallelism
+     * @throws TemplateException
+     * @throws IOException
+     */
+    private static void runTasks(List<FileTask> taskList, int parallelism) throws TemplateException, IOException {
+        if (parallelism <= 1 || taskList.size() <= 1) {
+            for (FileTask task : taskList) {
+                task.run();
+            }
+            return;
         }
-        <#else>
-        <#list fileInfo.files as fileInfo>
-        <@generateFile fileInfo=fileInfo indent="       " />
-        </#list>
-        </#if>
-        <#else>
-        <#if fileInfo.condition??>
-        if(${fileInfo.condition}) {
-            <@generateFile fileInfo=fileInfo indent="           " />
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, taskList.size()));
+        try {
+            List<ForkJoinTask<?>> futureList = new ArrayList<>(taskList.size());
+            for (FileTask task : taskList) {
+                futureList.add(pool.submit(() -> {
+                    task.run();
+                    return null;
+                }));
+            }
+            for (ForkJoinTask<?> future : futureList) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("生成被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TemplateException) {
+                throw (TemplateException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("生成失败", cause);
+        } finally {
+            pool.shutdownNow();
         }
-        <#else>
-        <@generateFile fileInfo=fileInfo indent="       " />
-        </#if>
-        </#if>
-    </#list>
     }
 }
@@ -0,0 +1,281 @@
+package ${basePackage}.generator;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 输出清单
+ * <p>
+ * 记录上次生成的每个输出文件的输入哈希（模板 + 数据模型）、内容哈希、大小和修改时间，
+ * 再次生成到同一个目录时输入没有变化的文件不再渲染，内容没有变化的文件不重写
+ * （保留修改时间，不触发 IDE 和构建工具的重新索引），并报告上次生成过、这次不再生成的文件
+ * <p>
+ * 清单保存在用户目录下（按输出根路径区分），不写入生成结果；
+ * 可以通过系统属性 generator.output.manifest 或环境变量 GENERATOR_OUTPUT_MANIFEST 设为 false 关闭
+ */
+public class OutputManifest {
+
+    /**
+     * 清单目录
+     */
+    private static final File MANIFEST_DIR = new File(System.getProperty("user.home"), ".s1mple-generator" + File.separator + "manifests");
+
+    /**
+     * 是否启用清单（每次都生成到新目录时没有意义，如在线生成）
+     */
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("generator.output.manifest",
+            System.getenv("GENERATOR_OUTPUT_MANIFEST")));
+
+    /**
+     * 一个输出文件的记录
+     */
+    private static class Entry {
+
+        private final String inputHash;
+
+        private final String contentHash;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private Entry(String inputHash, String contentHash, long size, long lastModified) {
+            this.inputHash = inputHash;
+            this.contentHash = contentHash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final File outputRoot;
+
+    private final File manifestFile;
+
+    private final String modelHash;
+
+    /**
+     * 上次生成的记录
+     */
+    private final Map<String, Entry> previousEntryMap;
+
+    /**
+     * 这次生成的记录
+     */
+    private final Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+
+    private OutputManifest(File outputRoot, File manifestFile, String modelHash, Map<String, Entry> previousEntryMap) {
+        this.outputRoot = outputRoot;
+        this.manifestFile = manifestFile;
+        this.modelHash = modelHash;
+        this.previousEntryMap = previousEntryMap;
+    }
+
+    /**
+     * 读取输出根路径对应的清单（不存在、损坏或未启用时视为第一次生成）
+     *
+     * @param outputRootPath 输出根路径
+     * @param model          数据模型
+     * @return
+     */
+    public static OutputManifest load(String outputRootPath, Object model) {
+        File outputRoot = new File(outputRootPath).getAbsoluteFile().toPath().normalize().toFile();
+        Map<String, Entry> previousEntryMap = new ConcurrentHashMap<>();
+        if (!ENABLED) {
+            return new OutputManifest(outputRoot, null, null, previousEntryMap);
+        }
+        File manifestFile = new File(MANIFEST_DIR, DigestUtil.sha256Hex(outputRoot.getPath()) + ".json");
+        if (manifestFile.isFile()) {
+            try {
+                JSONObject files = JSONUtil.parseObj(FileUtil.readUtf8String(manifestFile)).getJSONObject("files");
+                if (files != null) {
+                    for (String key : files.keySet()) {
+                        JSONObject entry = files.getJSONObject(key);
+                        previousEntryMap.put(key, new Entry(entry.getStr("inputHash"), entry.getStr("contentHash"),
+                                entry.getLong("size", -1L), entry.getLong("lastModified", -1L)));
+                    }
+                }
+            } catch (Exception e) {
+                previousEntryMap.clear();
+            }
+        }
+        return new OutputManifest(outputRoot, manifestFile, DigestUtil.sha256Hex(JSONUtil.toJsonStr(model)), previousEntryMap);
+    }
+
+    /**
+     * 是否启用（未启用时不需要先渲染到内存再比较，直接写入文件即可）
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return manifestFile != null;
+    }
+
+    /**
+     * 输入哈希（模板 + 数据模型），未启用时为 null
+     *
+     * @param templateFile 模板文件
+     * @return
+     */
+    public String getInputHash(File templateFile) {
+        return manifestFile == null ? null : DigestUtil.sha256Hex(DigestUtil.sha256Hex(templateFile) + modelHash);
+    }
+
+    /**
+     * 输入和上次生成时相同，且输出文件在上次生成后没有被修改过时，不需要再渲染（直接沿用上次的记录）
+     *
+     * @param outputFile 输出文件
+     * @param inputHash  输入哈希
+     * @return
+     */
+    public boolean isUpToDate(File outputFile, String inputHash) {
+        if (inputHash == null) {
+            return false;
+        }
+        String key = getKey(outputFile);
+        Entry previousEntry = previousEntryMap.get(key);
+        if (previousEntry == null || !inputHash.equals(previousEntry.inputHash) || !outputFile.isFile()
+                || previousEntry.size != outputFile.length() || previousEntry.lastModified != outputFile.lastModified()) {
+            return false;
+        }
+        entryMap.put(key, previousEntry);
+        return true;
+    }
+
+    /**
+     * 生成动态文件，渲染结果与已有文件相同时不重写
+     *
+     * @param inputHash  输入哈希
+     * @param outputFile 输出文件
+     * @param content    渲染结果
+     * @throws IOException
+     */
+    public void write(String inputHash, File outputFile, byte[] content) throws IOException {
+        String key = getKey(outputFile);
+        String contentHash = DigestUtil.sha256Hex(content);
+        if (!isSameContent(previousEntryMap.get(key), outputFile, content, contentHash)) {
+            FileUtil.mkParentDirs(outputFile);
+            Files.write(outputFile.toPath(), content);
+        }
+        entryMap.put(key, new Entry(inputHash, contentHash, outputFile.length(), outputFile.lastModified()));
+    }
+
+    /**
+     * 记录静态文件（静态文件已存在时不覆盖，只记录输出路径）
+     *
+     * @param outputFile
+     */
+    public void recordStatic(File outputFile) {
+        entryMap.put(getKey(outputFile), new Entry(null, null, -1L, -1L));
+    }
+
+    /**
+     * 上次生成过、这次没有生成，且仍然存在的输出文件
+     *
+     * @return
+     */
+    public List<String> getStaleList() {
+        List<String> staleList = new ArrayList<>();
+        for (String key : previousEntryMap.keySet()) {
+            if (!entryMap.containsKey(key) && new File(outputRoot, key).exists()) {
+                staleList.add(key);
+            }
+        }
+        Collections.sort(staleList);
+        return staleList;
+    }
+
+    /**
+     * 保存清单（仍然存在的过期文件继续保留在清单中，下次生成时继续报告）
+     *
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        if (manifestFile == null) {
+            return;
+        }
+        JSONObject files = new JSONObject();
+        List<String> keyList = new ArrayList<>(entryMap.keySet());
+        keyList.addAll(getStaleList());
+        Collections.sort(keyList);
+        for (String key : keyList) {
+            Entry entry = entryMap.containsKey(key) ? entryMap.get(key) : previousEntryMap.get(key);
+            JSONObject json = new JSONObject();
+            json.set("inputHash", entry.inputHash);
+            json.set("contentHash", entry.contentHash);
+            json.set("size", entry.size);
+            json.set("lastModified", entry.lastModified);
+            files.set(key, json);
+        }
+        JSONObject manifest = new JSONObject();
+        manifest.set("outputRoot", outputRoot.getPath());
+        manifest.set("files", files);
+        // 先写临时文件再替换，避免中途失败留下损坏的清单
+        FileUtil.mkdir(MANIFEST_DIR);
+        Path manifestPath = manifestFile.toPath();
+        Path tempPath = Files.createTempFile(MANIFEST_DIR.toPath(), manifestFile.getName(), ".tmp");
+        Files.write(tempPath, manifest.toStringPretty().getBytes(StandardCharsets.UTF_8));
+        Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 已有文件的内容是否与渲染结果相同：文件在上次生成后没有被修改过时比较哈希，否则比较内容
+     *
+     * @param previousEntry
+     * @param outputFile
+     * @param content
+     * @param contentHash
+     * @return
+     * @throws IOException
+     */
+    private static boolean isSameContent(Entry previousEntry, File outputFile, byte[] content, String contentHash) throws IOException {
+        if (!outputFile.isFile() || outputFile.length() != content.length) {
+            return false;
+        }
+        if (previousEntry != null && previousEntry.size == outputFile.length() && previousEntry.lastModified == outputFile.lastModified()) {
+            return contentHash.equals(previousEntry.contentHash);
+        }
+        // 分块读取比较，不把已有文件整个读入内存
+        try (InputStream inputStream = Files.newInputStream(outputFile.toPath())) {
+            byte[] buffer = new byte[8192];
+            int offset = 0;
+            int length;
+            while ((length = inputStream.read(buffer)) > 0) {
+                if (offset + length > content.length) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (buffer[i] != content[offset + i]) {
+                        return false;
+                    }
+                }
+                offset += length;
+            }
+            return offset == content.length;
+        }
+    }
+
+    /**
+     * 输出文件相对于输出根路径的路径
+     *
+     * @param outputFile
+     * @return
+     */
+    private String getKey(File outputFile) {
+        return outputRoot.toPath().relativize(outputFile.getAbsoluteFile().toPath()).toString().replace('\\', '/');
+    }
+}
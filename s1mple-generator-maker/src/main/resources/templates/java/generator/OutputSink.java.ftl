@@ -0,0 +1,258 @@
+package ${basePackage}.generator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 生成结果的输出目标（目录、压缩流、内存）
+ * <p>
+ * 路径均为相对于输出根的路径（使用 / 分隔）；实现需要支持多个线程同时写入不同的文件
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * 打开文件用于写入，调用方负责关闭返回的输出流
+     * <p>
+     * 同一路径只写入一次：输出到目录时会覆盖已存在的文件，压缩流无法覆盖已写入的条目，重复写入时抛出 IOException；
+     * 生成时先写动态文件（同一路径只写最后一个），再复制静态文件（跳过已存在的文件），两者的结果一致
+     *
+     * @param path 相对路径
+     * @return
+     * @throws IOException
+     */
+    OutputStream open(String path) throws IOException;
+
+    /**
+     * 文件是否已存在（静态文件不覆盖已存在的文件）
+     *
+     * @param path 相对路径
+     * @return
+     */
+    boolean exists(String path);
+
+    /**
+     * 创建目录（用于保留空目录）
+     *
+     * @param path 相对路径
+     * @throws IOException
+     */
+    default void mkdirs(String path) throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * 输出到目录
+     *
+     * @param rootPath
+     * @return
+     */
+    static OutputSink directory(String rootPath) {
+        return new DirectorySink(new File(rootPath).getAbsoluteFile());
+    }
+
+    /**
+     * 边生成边压缩写入输出流（输出流不会被关闭，close 时只写入压缩包的目录区）
+     *
+     * @param outputStream
+     * @return
+     */
+    static OutputSink zip(OutputStream outputStream) {
+        return new ZipSink(outputStream);
+    }
+
+    /**
+     * 输出到内存
+     *
+     * @param fileMap 相对路径 => 文件内容，需要支持并发写入（如 ConcurrentHashMap）
+     * @return
+     */
+    static OutputSink memory(Map<String, byte[]> fileMap) {
+        return new MemorySink(fileMap);
+    }
+
+    static String normalize(String path) {
+        String normalizedPath = path.replace('\\', '/');
+        while (normalizedPath.startsWith("/")) {
+            normalizedPath = normalizedPath.substring(1);
+        }
+        while (normalizedPath.endsWith("/")) {
+            normalizedPath = normalizedPath.substring(0, normalizedPath.length() - 1);
+        }
+        return normalizedPath;
+    }
+
+    /**
+     * 目录
+     */
+    class DirectorySink implements OutputSink {
+
+        private final File rootDir;
+
+        private DirectorySink(File rootDir) {
+            this.rootDir = rootDir;
+        }
+
+        public File resolve(String path) {
+            return new File(rootDir, path);
+        }
+
+        @Override
+        public OutputStream open(String path) throws IOException {
+            Path filePath = resolve(path).toPath();
+            if (filePath.getParent() != null) {
+                Files.createDirectories(filePath.getParent());
+            }
+            return Files.newOutputStream(filePath);
+        }
+
+        @Override
+        public boolean exists(String path) {
+            return resolve(path).exists();
+        }
+
+        @Override
+        public void mkdirs(String path) throws IOException {
+            Files.createDirectories(resolve(path).toPath());
+        }
+    }
+
+    /**
+     * 压缩流：文件内容直接写入压缩流，从打开到关闭期间持有锁（条目不会交错，同一线程不能同时打开两个文件），
+     * 同一文件重复写入时抛出 IOException
+     */
+    class ZipSink implements OutputSink {
+
+        private final ZipOutputStream zipOutputStream;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Set<String> entryNameSet = new HashSet<>();
+
+        private ZipSink(OutputStream outputStream) {
+            this.zipOutputStream = new ZipOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        }
+
+        @Override
+        public OutputStream open(String path) throws IOException {
+            String entryName = normalize(path);
+            if (lock.isHeldByCurrentThread()) {
+                throw new IOException("上一个文件还未关闭，不能打开：" + entryName);
+            }
+            lock.lock();
+            try {
+                if (!entryNameSet.add(entryName)) {
+                    throw new IOException("压缩包中已存在文件：" + entryName);
+                }
+                zipOutputStream.putNextEntry(new ZipEntry(entryName));
+            } catch (IOException | RuntimeException e) {
+                lock.unlock();
+                throw e;
+            }
+            return new FilterOutputStream(zipOutputStream) {
+                private boolean closed;
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        try {
+                            zipOutputStream.closeEntry();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean exists(String path) {
+            lock.lock();
+            try {
+                return entryNameSet.contains(normalize(path));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void mkdirs(String path) throws IOException {
+            String entryName = normalize(path);
+            if (entryName.isEmpty()) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (entryNameSet.add(entryName + "/")) {
+                    zipOutputStream.putNextEntry(new ZipEntry(entryName + "/"));
+                    zipOutputStream.closeEntry();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            lock.lock();
+            try {
+                zipOutputStream.finish();
+                zipOutputStream.flush();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 内存
+     */
+    class MemorySink implements OutputSink {
+
+        private final Map<String, byte[]> fileMap;
+
+        private MemorySink(Map<String, byte[]> fileMap) {
+            this.fileMap = fileMap;
+        }
+
+        @Override
+        public OutputStream open(String path) {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    fileMap.put(normalize(path), toByteArray());
+                }
+            };
+        }
+
+        @Override
+        public boolean exists(String path) {
+            return fileMap.containsKey(normalize(path));
+        }
+    }
+}
@@ -2,11 +2,71 @@ package ${basePackage}.generator;
 
 import cn.hutool.core.io.FileUtil;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 静态文件生成
+ * <p>
+ * 文件内容由内核直接拷贝（Files.copy / FileChannel.transferTo），文件较多且在 ForkJoinPool 中执行时并行拷贝；
+ * 可以通过系统属性 generator.copy.link-mode（copy / hardlink / reflink）选择硬链接或 reflink 代替拷贝，
+ * 通过 generator.copy.skip（逗号分隔的 glob，匹配文件名或相对路径）跳过文件和目录
  */
 public class StaticGenerator {
 
+    /**
+     * 超过该大小的文件使用 FileChannel.transferTo 拷贝
+     */
+    private static final long TRANSFER_THRESHOLD = 64 * 1024;
+
+    /**
+     * reflink 方式下超过该大小的文件才启动 cp 进程
+     */
+    private static final long REFLINK_THRESHOLD = 1024 * 1024;
+
+    /**
+     * 文件数超过该值时并行拷贝
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    /**
+     * 拷贝方式
+     */
+    private static final String LINK_MODE = System.getProperty("generator.copy.link-mode", "copy").trim().toLowerCase(Locale.ROOT);
+
+    /**
+     * 跳过的文件和目录
+     */
+    private static final List<PathMatcher> SKIP_MATCHER_LIST = new ArrayList<>();
+
+    static {
+        for (String pattern : System.getProperty("generator.copy.skip", "").split(",")) {
+            if (!pattern.trim().isEmpty()) {
+                SKIP_MATCHER_LIST.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern.trim()));
+            }
+        }
+    }
+
     /**
      * 拷贝文件（Hutool 实现，会将输入目录完整拷贝到输出目录下）
      *
@@ -16,4 +76,227 @@ public class StaticGenerator {
     public static void copyFilesByHutool(String inputPath, String outputPath) {
         FileUtil.copy(inputPath, outputPath, false);
     }
+
+    /**
+     * 拷贝文件（语义与 copyFilesByHutool 相同：目录拷贝到输出目录下，已存在的文件不覆盖）
+     *
+     * @param inputPath
+     * @param outputPath
+     * @throws IOException
+     */
+    public static void copyFiles(String inputPath, String outputPath) throws IOException {
+        Path source = Paths.get(inputPath);
+        Path target = Paths.get(outputPath);
+        if (!Files.exists(source)) {
+            throw new NoSuchFileException(inputPath);
+        }
+        if (Files.isDirectory(source)) {
+            copyDirectory(source, target.resolve(source.getFileName().toString()));
+            return;
+        }
+        Path dest = Files.isDirectory(target) ? target.resolve(source.getFileName().toString()) : target;
+        if (dest.getParent() != null) {
+            Files.createDirectories(dest.getParent());
+        }
+        copyFile(source, dest);
+    }
+
+    /**
+     * 拷贝文件到输出目标，语义与 copyFiles(inputPath, outputPath) 相同
+     *
+     * @param inputPath
+     * @param outputSink
+     * @param outputPath 相对于输出目标根的路径
+     * @throws IOException
+     */
+    public static void copyFiles(String inputPath, OutputSink outputSink, String outputPath) throws IOException {
+        if (outputSink instanceof OutputSink.DirectorySink) {
+            copyFiles(inputPath, ((OutputSink.DirectorySink) outputSink).resolve(outputPath).getAbsolutePath());
+            return;
+        }
+        Path source = Paths.get(inputPath);
+        if (!Files.exists(source)) {
+            throw new NoSuchFileException(inputPath);
+        }
+        if (!Files.isDirectory(source)) {
+            copyFile(source, outputSink, outputPath);
+            return;
+        }
+        String targetPath = joinPath(outputPath, source.getFileName().toString());
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(source) && isSkipped(source, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                outputSink.mkdirs(joinPath(targetPath, source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!isSkipped(source, file)) {
+                    copyFile(file, outputSink, joinPath(targetPath, source.relativize(file).toString()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void copyFile(Path source, OutputSink outputSink, String path) throws IOException {
+        if (outputSink.exists(path)) {
+            return;
+        }
+        try (OutputStream outputStream = outputSink.open(path)) {
+            Files.copy(source, outputStream);
+        }
+    }
+
+    private static String joinPath(String parent, String child) {
+        String path = child.replace('\\', '/');
+        if (path.isEmpty()) {
+            return parent;
+        }
+        return parent.isEmpty() || parent.endsWith("/") ? parent + path : parent + "/" + path;
+    }
+
+    /**
+     * 拷贝目录：遍历时创建目录并跳过匹配的子树，收集文件后再拷贝（在 ForkJoinPool 中时并行）
+     *
+     * @param source
+     * @param target
+     * @throws IOException
+     */
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        List<Path[]> fileList = new ArrayList<>();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(source) && isSkipped(source, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!isSkipped(source, file)) {
+                    fileList.add(new Path[]{file, target.resolve(source.relativize(file).toString())});
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        // 只在调用方所在的 ForkJoinPool 中并行（如 MainGenerator 的生成线程池），并发度由调用方控制；
+        // 不在其中时（如后端进程内执行）顺序拷贝，不占用公共池
+        if (fileList.size() < PARALLEL_THRESHOLD || !ForkJoinTask.inForkJoinPool()) {
+            for (Path[] file : fileList) {
+                copyFile(file[0], file[1]);
+            }
+            return;
+        }
+        try {
+            fileList.parallelStream().forEach(file -> {
+                try {
+                    copyFile(file[0], file[1]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isSkipped(Path root, Path path) {
+        if (SKIP_MATCHER_LIST.isEmpty()) {
+            return false;
+        }
+        Path relativePath = root.relativize(path);
+        Path fileName = path.getFileName();
+        for (PathMatcher matcher : SKIP_MATCHER_LIST) {
+            if (matcher.matches(relativePath) || (fileName != null && matcher.matches(fileName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拷贝单个文件，目标已存在时不覆盖
+     *
+     * @param source
+     * @param dest
+     * @throws IOException
+     */
+    private static void copyFile(Path source, Path dest) throws IOException {
+        if (Files.exists(dest, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try {
+            if ("hardlink".equals(LINK_MODE) && tryHardLink(source, dest)) {
+                return;
+            }
+            long size = Files.size(source);
+            if ("reflink".equals(LINK_MODE) && size >= REFLINK_THRESHOLD && tryReflink(source, dest)) {
+                return;
+            }
+            if (size < TRANSFER_THRESHOLD) {
+                Files.copy(source, dest);
+                return;
+            }
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < size) {
+                    long count = in.transferTo(position, size - position, out);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                }
+            }
+        } catch (FileAlreadyExistsException e) {
+            // 并发拷贝到同一个目标，保持不覆盖
+        }
+    }
+
+    private static boolean tryHardLink(Path source, Path dest) throws FileAlreadyExistsException {
+        try {
+            Files.createLink(dest, source);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // 跨文件系统或不支持硬链接，退回拷贝
+            return false;
+        }
+    }
+
+    private static boolean tryReflink(Path source, Path dest) {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
+            return false;
+        }
+        try {
+            Process process = new ProcessBuilder("cp", "--reflink=auto", "-n", source.toString(), dest.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File("/dev/null"))
+                    .start();
+            if (process.waitFor(60, TimeUnit.SECONDS) && process.exitValue() == 0) {
+                return true;
+            }
+            process.destroyForcibly();
+        } catch (IOException e) {
+            // 没有 cp 命令，退回拷贝
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 失败时清理可能残留的不完整文件
+        try {
+            Files.deleteIfExists(dest);
+        } catch (IOException e) {
+            // 忽略
+        }
+        return false;
+    }
 }
@@ -0,0 +1,135 @@
+package ${basePackage}.generator;
+
+import ${basePackage}.model.DataModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 预编译的模板渲染器
+ * <p>
+ * 制作生成器时由只用到简单语法的模板翻译而来，直接写入文本和数据模型字段；
+ * 模板文件被修改过（长度或 CRC32 不一致）时不使用，由 FreeMarker 渲染；
+ * 每个模板只缓存最近一次校验过的文件（大小、修改时间和文件标识），同一份文件换了目录（如硬链接到新的工作空间）不用重新校验
+ */
+public class TemplateRenderers {
+
+    /**
+     * 渲染器
+     */
+    public interface Renderer {
+
+        /**
+         * 渲染
+         *
+         * @param model 数据模型
+         * @param out   输出
+         * @return 需要交给 FreeMarker 渲染时（如字段值为 null）返回 false，此时没有写入任何内容
+         * @throws IOException
+         */
+        boolean render(DataModel model, Writer out) throws IOException;
+    }
+
+    /**
+     * 模板相对路径 => 渲染器
+     */
+    private static final Map<String, Renderer> RENDERER_MAP = new HashMap<>();
+
+    /**
+     * 模板相对路径 => 制作时的模板长度和 CRC32
+     */
+    private static final Map<String, long[]> CHECKSUM_MAP = new HashMap<>();
+
+    /**
+     * 已校验过的模板文件
+     */
+    private static class Checked {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final Object fileKey;
+
+        private final boolean matched;
+
+        private Checked(BasicFileAttributes attributes, boolean matched) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.fileKey = attributes.fileKey();
+            this.matched = matched;
+        }
+
+        private boolean isSameFile(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis()
+                    && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
+
+    /**
+     * 模板相对路径 => 最近一次校验的结果（条目数不超过渲染器数量）
+     */
+    private static final Map<String, Checked> CHECKED_MAP = new ConcurrentHashMap<>();
+
+    static {
+<#list renderers as renderer>
+        register(${renderer.inputPath}, ${renderer.length}L, ${renderer.crc}L, TemplateRenderers::${renderer.methodName});
+</#list>
+    }
+
+    private static void register(String relativeInputPath, long length, long crc, Renderer renderer) {
+        RENDERER_MAP.put(relativeInputPath, renderer);
+        CHECKSUM_MAP.put(relativeInputPath, new long[]{length, crc});
+    }
+
+    /**
+     * 获取模板对应的渲染器
+     *
+     * @param inputRootPath     输入根路径
+     * @param relativeInputPath 模板文件相对于输入根路径的路径
+     * @return 没有预编译或模板被修改过时返回 null
+     * @throws IOException
+     */
+    public static Renderer get(String inputRootPath, String relativeInputPath) throws IOException {
+        String key = relativeInputPath.replace('\\', '/');
+        Renderer renderer = RENDERER_MAP.get(key);
+        if (renderer == null) {
+            return null;
+        }
+        File templateFile = new File(inputRootPath, key);
+        if (!templateFile.isFile()) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(templateFile.toPath(), BasicFileAttributes.class);
+        Checked checked = CHECKED_MAP.get(key);
+        if (checked == null || !checked.isSameFile(attributes)) {
+            long[] checksum = CHECKSUM_MAP.get(key);
+            boolean matched = false;
+            if (attributes.size() == checksum[0]) {
+                CRC32 crc32 = new CRC32();
+                crc32.update(Files.readAllBytes(templateFile.toPath()));
+                matched = crc32.getValue() == checksum[1];
+            }
+            checked = new Checked(attributes, matched);
+            CHECKED_MAP.put(key, checked);
+        }
+        return checked.matched ? renderer : null;
+    }
+<#list renderers as renderer>
+
+    private static boolean ${renderer.methodName}(DataModel model, Writer out) throws IOException {
+<#list renderer.statements as statement>
+        ${statement}
+</#list>
+        return true;
+    }
+</#list>
+}
@@ -0,0 +1,64 @@
+package com.extazy.maker.generator.Main;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.json.JSONUtil;
+import com.extazy.maker.meta.Meta;
+import com.extazy.maker.meta.MetaValidator;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+public class GenerateTemplateTest {
+
+    @ClassRule
+    public static final TemporaryFolder TEMP = new TemporaryFolder();
+
+    private static Meta meta;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // 构建缓存放在临时目录，BuildCache 加载前设置
+        System.setProperty("generator.build.cache.dir", TEMP.newFolder("build-cache").getAbsolutePath());
+        File sourceRoot = TEMP.newFolder("acm-template");
+        FileUtil.writeUtf8String("public class Main {}\n", new File(sourceRoot, "Main.java"));
+
+        meta = JSONUtil.toBean(ResourceUtil.readUtf8Str("meta.json"), Meta.class);
+        meta.getFileConfig().setSourceRootPath(sourceRoot.getAbsolutePath());
+        Meta.FileConfig.FileInfo fileInfo = new Meta.FileConfig.FileInfo();
+        fileInfo.setInputPath("Main.java");
+        fileInfo.setOutputPath("Main.java");
+        fileInfo.setType("file");
+        fileInfo.setGenerateType("static");
+        List<Meta.FileConfig.FileInfo> fileInfoList = new ArrayList<>();
+        fileInfoList.add(fileInfo);
+        meta.getFileConfig().setFiles(fileInfoList);
+        MetaValidator.doValidAndFill(meta);
+    }
+
+    @Test
+    public void distCacheHitStillFillsNewOutputPath() throws Exception {
+        String firstOutputPath = TEMP.newFolder("first").getAbsolutePath() + File.separator + "gen";
+        new MainGenerator().doGenerate(meta, firstOutputPath);
+
+        // 第二次制作命中产物包缓存，新的输出目录也要有完整的项目
+        String secondOutputPath = TEMP.newFolder("second").getAbsolutePath() + File.separator + "gen";
+        new MainGenerator().doGenerate(meta, secondOutputPath);
+
+        assertTrue(new File(secondOutputPath + "-dist", "generator.bat").isFile());
+        assertTrue(new File(secondOutputPath, "pom.xml").isFile());
+        assertTrue(new File(secondOutputPath, "generator.bat").isFile());
+        assertTrue(new File(secondOutputPath, "generator").canExecute());
+        assertTrue(new File(secondOutputPath, "source/acm-template/Main.java").isFile());
+        assertTrue(FileUtil.exist(new File(secondOutputPath, "src/main/java")));
+        File[] jarFiles = new File(secondOutputPath, "target").listFiles((dir, name) -> name.endsWith(".jar"));
+        assertTrue(jarFiles != null && jarFiles.length == 1);
+    }
+}
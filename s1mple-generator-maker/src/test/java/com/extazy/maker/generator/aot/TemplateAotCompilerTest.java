@@ -0,0 +1,223 @@
+package com.extazy.maker.generator.aot;
+
+import freemarker.cache.StringTemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 预编译渲染器和 FreeMarker 的输出对比
+ */
+public class TemplateAotCompilerTest {
+
+    @ClassRule
+    public static final TemporaryFolder TEMP = new TemporaryFolder();
+
+    private static final Map<String, String> FIELD_TYPE_MAP = new LinkedHashMap<>();
+
+    /**
+     * 超过单个字符串常量长度、在切分位置有代理对的长文本
+     */
+    private static final String LONG_TEXT;
+
+    static {
+        FIELD_TYPE_MAP.put("author", "String");
+        FIELD_TYPE_MAP.put("loop", "boolean");
+        FIELD_TYPE_MAP.put("count", "int");
+        FIELD_TYPE_MAP.put("mainTemplate.outputText", "String");
+        FIELD_TYPE_MAP.put("mainTemplate.enabled", "boolean");
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 8191; i++) {
+            sb.append('a');
+        }
+        // 😀 的高位代理在第 8192 个字符，低位代理在第 8193 个字符
+        sb.append("😀中文\n");
+        for (int i = 0; i < 9000; i++) {
+            sb.append("😀");
+        }
+        LONG_TEXT = sb.toString();
+    }
+
+    /**
+     * 参与对比的模板
+     */
+    private static final String[] TEMPLATES = {
+            // 文本和插值
+            "作者：${author}\n次数：${count?c}，循环：${loop?c}\n\"引号\" \\反斜杠\\ \ttab\n",
+            // 只包含标签的行（缩进、行尾空白和换行都会被去掉）
+            "public class Main {\n<#-- 方法体 -->\n    <#if loop>\n    for (;;) {}\n    <#else>  \n    // no loop\n    </#if>\n}\n",
+            "<#if loop>\n\t<#if !mainTemplate.enabled>\n\tdisabled\n\t</#if>\n</#if>\n",
+            // 嵌套条件、取反和注释
+            "<#-- 注释 -->\n<#if !loop>\nA\n<#if mainTemplate.enabled>B ${mainTemplate.outputText}</#if>\n</#if>\nC<#-- 行内注释 -->D\n",
+            // 分组字段
+            "<#if mainTemplate.enabled>${mainTemplate.outputText}<#else>none</#if> ${count?c}",
+            // CRLF 换行
+            "line1\r\n<#if loop>\r\nline2 ${author}\r\n</#if>\r\nline3\r\n",
+            // 超长文本
+            LONG_TEXT + "${author}" + LONG_TEXT,
+    };
+
+    private static Class<?> rendererClass;
+
+    private static Class<?> dataModelClass;
+
+    private static Class<?> groupClass;
+
+    @BeforeClass
+    public static void compileRenderers() throws Exception {
+        StringBuilder source = new StringBuilder();
+        source.append("public class GoldenRenderers {\n");
+        source.append("    public static class MainTemplate { public String outputText; public boolean enabled; }\n");
+        source.append("    public static class DataModel { public String author; public boolean loop; public int count;"
+                + " public MainTemplate mainTemplate; }\n");
+        for (int i = 0; i < TEMPLATES.length; i++) {
+            List<String> statementList = TemplateAotCompiler.compile(TEMPLATES[i], FIELD_TYPE_MAP);
+            assertNotNull("模板 " + i + " 应该可以预编译", statementList);
+            source.append("    public static boolean render").append(i)
+                    .append("(DataModel model, java.io.Writer out) throws java.io.IOException {\n");
+            for (String statement : statementList) {
+                source.append("        ").append(statement).append('\n');
+            }
+            source.append("        return true;\n    }\n");
+        }
+        source.append("}\n");
+
+        File dir = TEMP.newFolder("golden");
+        File sourceFile = new File(dir, "GoldenRenderers.java");
+        Files.write(sourceFile.toPath(), source.toString().getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("需要 JDK 运行测试", compiler);
+        assertEquals(0, compiler.run(null, null, null, "-encoding", "UTF-8", "-d", dir.getAbsolutePath(), sourceFile.getAbsolutePath()));
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, TemplateAotCompilerTest.class.getClassLoader());
+        rendererClass = classLoader.loadClass("GoldenRenderers");
+        dataModelClass = classLoader.loadClass("GoldenRenderers$DataModel");
+        groupClass = classLoader.loadClass("GoldenRenderers$MainTemplate");
+    }
+
+    @Test
+    public void matchesFreeMarker() throws Exception {
+        for (boolean loop : new boolean[]{true, false}) {
+            for (boolean enabled : new boolean[]{true, false}) {
+                for (int i = 0; i < TEMPLATES.length; i++) {
+                    Map<String, Object> model = buildModel("s1mple", loop, 1234567, "输出 ${x}", enabled);
+                    StringWriter out = new StringWriter();
+                    assertTrue(render(i, model, out));
+                    assertEquals("模板 " + i + ", loop = " + loop + ", enabled = " + enabled,
+                            renderWithFreeMarker(TEMPLATES[i], model), out.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void splitsLongTextOnCodePointBoundary() {
+        List<String> statementList = TemplateAotCompiler.compile(LONG_TEXT, FIELD_TYPE_MAP);
+        assertNotNull(statementList);
+        assertTrue(statementList.size() > 1);
+        for (String statement : statementList) {
+            String literal = statement.substring(statement.indexOf('"') + 1, statement.lastIndexOf('"'));
+            assertFalse(Character.isHighSurrogate(literal.charAt(literal.length() - 1)));
+            assertFalse(Character.isLowSurrogate(literal.charAt(0)));
+        }
+    }
+
+    @Test
+    public void fallsBackBeforeWritingWhenStringIsNull() throws Exception {
+        // 需要交给 FreeMarker 时还没有写入任何内容（渲染器直接写入输出，不先渲染到内存）
+        Map<String, Object> model = buildModel(null, true, 1, "x", true);
+        StringWriter out = new StringWriter();
+        assertFalse(render(0, model, out));
+        assertEquals("", out.toString());
+        // 分组对象为 null
+        model = buildModel("s1mple", true, 1, "x", true);
+        model.put("mainTemplate", null);
+        out = new StringWriter();
+        assertFalse(render(4, model, out));
+        assertEquals("", out.toString());
+        // 分组对象只在条件中使用
+        out = new StringWriter();
+        assertFalse(render(2, model, out));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void rejectsUnsupportedSyntax() {
+        assertNull(TemplateAotCompiler.compile("<#list items as item>${item}</#list>", FIELD_TYPE_MAP));
+        assertNull(TemplateAotCompiler.compile("${author!\"\"}", FIELD_TYPE_MAP));
+        assertNull(TemplateAotCompiler.compile("${count}", FIELD_TYPE_MAP));
+        assertNull(TemplateAotCompiler.compile("${unknown}", FIELD_TYPE_MAP));
+        assertNull(TemplateAotCompiler.compile("<#if count>x</#if>", FIELD_TYPE_MAP));
+        assertNull(TemplateAotCompiler.compile("<#if loop>x", FIELD_TYPE_MAP));
+        assertNull(TemplateAotCompiler.compile("<#if loop\n>x</#if>", FIELD_TYPE_MAP));
+        // FreeMarker 不去掉模板开头第一段文本的空白，第一个标签行有缩进时不预编译
+        assertNull(TemplateAotCompiler.compile("A\n    <#if loop>\nb\n    </#if>\n", FIELD_TYPE_MAP));
+        assertNull(TemplateAotCompiler.compile("\t<#-- 注释 -->\nb\n", FIELD_TYPE_MAP));
+    }
+
+    private static Map<String, Object> buildModel(String author, boolean loop, int count, String outputText, boolean enabled) {
+        Map<String, Object> mainTemplate = new HashMap<>();
+        mainTemplate.put("outputText", outputText);
+        mainTemplate.put("enabled", enabled);
+        Map<String, Object> model = new HashMap<>();
+        model.put("author", author);
+        model.put("loop", loop);
+        model.put("count", count);
+        model.put("mainTemplate", mainTemplate);
+        return model;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean render(int index, Map<String, Object> model, Writer out) throws Exception {
+        Object dataModel = dataModelClass.newInstance();
+        dataModelClass.getField("author").set(dataModel, model.get("author"));
+        dataModelClass.getField("loop").setBoolean(dataModel, (Boolean) model.get("loop"));
+        dataModelClass.getField("count").setInt(dataModel, (Integer) model.get("count"));
+        Map<String, Object> mainTemplate = (Map<String, Object>) model.get("mainTemplate");
+        if (mainTemplate != null) {
+            Object group = groupClass.newInstance();
+            groupClass.getField("outputText").set(group, mainTemplate.get("outputText"));
+            groupClass.getField("enabled").setBoolean(group, (Boolean) mainTemplate.get("enabled"));
+            dataModelClass.getField("mainTemplate").set(dataModel, group);
+        }
+        Method method = rendererClass.getMethod("render" + index, dataModelClass, Writer.class);
+        return (Boolean) method.invoke(null, dataModel, out);
+    }
+
+    private static String renderWithFreeMarker(String source, Map<String, Object> model) throws Exception {
+        // 和生成器中 DynamicGenerator 的配置一致
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
+        StringTemplateLoader templateLoader = new StringTemplateLoader();
+        templateLoader.putTemplate("template", source);
+        configuration.setTemplateLoader(templateLoader);
+        configuration.setDefaultEncoding("utf-8");
+        Template template = configuration.getTemplate("template");
+        StringWriter out = new StringWriter();
+        template.process(model, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.extazy.maker.interpreter;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import com.extazy.maker.generator.output.ZipOutputSink;
+import com.extazy.maker.meta.Meta;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 同一输出路径有多个文件时，输出到目录和压缩流的结果一致
+ */
+public class MetaInterpreterTest {
+
+    @ClassRule
+    public static final TemporaryFolder TEMP = new TemporaryFolder();
+
+    private static String inputRootPath;
+
+    private static Meta.FileConfig fileConfig;
+
+    private static Map<String, Object> dataModel;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        File inputRoot = TEMP.newFolder("template");
+        FileUtil.writeUtf8String("static", new File(inputRoot, "Main.java"));
+        FileUtil.writeUtf8String("first ${author}", new File(inputRoot, "First.java.ftl"));
+        FileUtil.writeUtf8String("second ${author}", new File(inputRoot, "Second.java.ftl"));
+        inputRootPath = inputRoot.getAbsolutePath();
+
+        // 静态文件在前，两个动态文件在后，输出路径相同
+        List<Meta.FileConfig.FileInfo> fileInfoList = new ArrayList<>();
+        fileInfoList.add(newFileInfo("Main.java", "static"));
+        fileInfoList.add(newFileInfo("First.java.ftl", "dynamic"));
+        fileInfoList.add(newFileInfo("Second.java.ftl", "dynamic"));
+        fileConfig = new Meta.FileConfig();
+        fileConfig.setFiles(fileInfoList);
+
+        dataModel = new HashMap<>();
+        dataModel.put("author", "s1mple");
+    }
+
+    @Test
+    public void lastDynamicFileWinsInDirectory() throws Exception {
+        String outputRootPath = TEMP.newFolder("generated").getAbsolutePath();
+        MetaInterpreter.doGenerate(fileConfig, new Meta.ModelConfig(), inputRootPath, outputRootPath, dataModel);
+        assertEquals("second s1mple", FileUtil.readUtf8String(new File(outputRootPath, "Main.java")));
+    }
+
+    @Test
+    public void lastDynamicFileWinsInZip() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ZipOutputSink zipOutputSink = new ZipOutputSink(outputStream);
+        MetaInterpreter.doGenerate(fileConfig, new Meta.ModelConfig(), inputRootPath, zipOutputSink, dataModel);
+        zipOutputSink.close();
+        assertEquals(Collections.singletonMap("Main.java", "second s1mple"), readZip(outputStream.toByteArray()));
+    }
+
+    @Test
+    public void zipRejectsDuplicateFile() throws Exception {
+        ZipOutputSink zipOutputSink = new ZipOutputSink(new ByteArrayOutputStream());
+        zipOutputSink.mkdirs("a");
+        zipOutputSink.mkdirs("a");
+        writeFile(zipOutputSink, "a/Main.java");
+        try {
+            writeFile(zipOutputSink, "a\\Main.java");
+            fail("压缩包中的文件不能重复写入");
+        } catch (IOException e) {
+            // 预期
+        }
+    }
+
+    @Test
+    public void zipRejectsNestedOpen() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ZipOutputSink zipOutputSink = new ZipOutputSink(outputStream);
+        try (OutputStream first = zipOutputSink.open("a.txt")) {
+            first.write('a');
+            try {
+                zipOutputSink.open("b.txt");
+                fail("上一个文件还未关闭时不能打开下一个文件");
+            } catch (IOException e) {
+                // 预期
+            }
+        }
+        writeFile(zipOutputSink, "b.txt");
+        zipOutputSink.close();
+        assertEquals(2, readZip(outputStream.toByteArray()).size());
+    }
+
+    private static Meta.FileConfig.FileInfo newFileInfo(String inputPath, String generateType) {
+        Meta.FileConfig.FileInfo fileInfo = new Meta.FileConfig.FileInfo();
+        fileInfo.setInputPath(inputPath);
+        fileInfo.setOutputPath("Main.java");
+        fileInfo.setType("file");
+        fileInfo.setGenerateType(generateType);
+        return fileInfo;
+    }
+
+    private static void writeFile(ZipOutputSink zipOutputSink, String path) throws IOException {
+        try (OutputStream outputStream = zipOutputSink.open(path)) {
+            outputStream.write(1);
+        }
+    }
+
+    private static Map<String, String> readZip(byte[] bytes) throws IOException {
+        Map<String, String> entryMap = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                ByteArrayOutputStream entryOutputStream = new ByteArrayOutputStream();
+                IoUtil.copy(zipInputStream, entryOutputStream);
+                entryMap.put(zipEntry.getName(), new String(entryOutputStream.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return entryMap;
+    }
+}
@@ -0,0 +1,91 @@
+package com.extazy.maker.template;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IgnoreRulesTest {
+
+    @Test
+    public void leadingDoubleStarMatchesAnyDepth() {
+        IgnoreRules ignoreRules = rules("", "**/build", "a/**/b");
+        assertEquals(Boolean.TRUE, ignoreRules.match("build", true));
+        assertEquals(Boolean.TRUE, ignoreRules.match("x/y/build", true));
+        assertNull(ignoreRules.match("x/build2", true));
+        assertEquals(Boolean.TRUE, ignoreRules.match("a/b", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("a/x/y/b", false));
+        assertNull(ignoreRules.match("x/a/b", false));
+    }
+
+    @Test
+    public void trailingDoubleStarMatchesContentsOnly() {
+        IgnoreRules ignoreRules = rules("", "logs/**");
+        assertEquals(Boolean.TRUE, ignoreRules.match("logs/a.log", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("logs/a/b.log", false));
+        assertNull(ignoreRules.match("logs", true));
+        assertNull(ignoreRules.match("x/logs/a.log", false));
+    }
+
+    @Test
+    public void slashAnchorsToRuleDirectory() {
+        IgnoreRules ignoreRules = rules("", "/target", "doc/*.txt", "*.log");
+        assertEquals(Boolean.TRUE, ignoreRules.match("target", true));
+        assertNull(ignoreRules.match("a/target", true));
+        assertEquals(Boolean.TRUE, ignoreRules.match("doc/a.txt", false));
+        assertNull(ignoreRules.match("doc/sub/a.txt", false));
+        assertNull(ignoreRules.match("x/doc/a.txt", false));
+        // 不含 / 的规则匹配任意层级的文件名
+        assertEquals(Boolean.TRUE, ignoreRules.match("a/b/c.log", false));
+    }
+
+    @Test
+    public void rulesAreRelativeToBasePath() {
+        IgnoreRules ignoreRules = rules("sub", "/a", "b");
+        assertEquals(Boolean.TRUE, ignoreRules.match("sub/a", false));
+        assertNull(ignoreRules.match("a", false));
+        assertNull(ignoreRules.match("sub/x/a", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("sub/x/b", false));
+        assertNull(ignoreRules.match("other/b", false));
+    }
+
+    @Test
+    public void trailingSlashMatchesDirectoriesOnly() {
+        IgnoreRules ignoreRules = rules("", "tmp/");
+        assertEquals(Boolean.TRUE, ignoreRules.match("tmp", true));
+        assertEquals(Boolean.TRUE, ignoreRules.match("a/tmp", true));
+        assertNull(ignoreRules.match("tmp", false));
+    }
+
+    @Test
+    public void laterRuleWinsAndNegationReincludes() {
+        IgnoreRules ignoreRules = rules("", "*.log", "!keep.log");
+        assertEquals(Boolean.TRUE, ignoreRules.match("a.log", false));
+        assertEquals(Boolean.FALSE, ignoreRules.match("x/keep.log", false));
+
+        IgnoreRules reversed = rules("", "!keep.log", "*.log");
+        assertEquals(Boolean.TRUE, reversed.match("keep.log", false));
+    }
+
+    @Test
+    public void commentsEscapesAndWildcards() {
+        IgnoreRules ignoreRules = rules("", "# 注释", "", "\\#hash", "\\!bang", "file?.[ch]", "[!a]x", "trailing   ");
+        assertNull(ignoreRules.match("# 注释", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("#hash", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("!bang", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("file1.c", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("file2.h", false));
+        assertNull(ignoreRules.match("file10.c", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("bx", false));
+        assertNull(ignoreRules.match("ax", false));
+        assertEquals(Boolean.TRUE, ignoreRules.match("trailing", false));
+        // 单个 * 不跨目录
+        assertNull(rules("", "src/*").match("src/a/b", false));
+    }
+
+    private static IgnoreRules rules(String basePath, String... lines) {
+        return new IgnoreRules(basePath, Arrays.asList(lines));
+    }
+}
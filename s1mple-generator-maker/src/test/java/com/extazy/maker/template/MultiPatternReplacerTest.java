@@ -0,0 +1,81 @@
+package com.extazy.maker.template;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MultiPatternReplacerTest {
+
+    @Test
+    public void leftmostMatchWins() {
+        // she、he、hers 重叠，取最靠左的 she
+        MultiPatternReplacer replacer = new MultiPatternReplacer(replacementMap(
+                "he", "[he]",
+                "she", "[she]",
+                "hers", "[hers]",
+                "his", "[his]"));
+        assertEquals("u[she]rs", replacer.replace("ushers"));
+        assertEquals("[his] [hers][he]", replacer.replace("his hershe"));
+    }
+
+    @Test
+    public void longestMatchWinsAtSameStart() {
+        MultiPatternReplacer replacer = new MultiPatternReplacer(replacementMap(
+                "a", "[a]",
+                "abc", "[abc]",
+                "ab", "[ab]"));
+        assertEquals("[abc][ab][a]", replacer.replace("abcaba"));
+    }
+
+    @Test
+    public void shorterMatchInsideFailedLongerPattern() {
+        // abcd 没有匹配上，其中的 bc 仍然要替换
+        MultiPatternReplacer replacer = new MultiPatternReplacer(replacementMap(
+                "abcd", "[abcd]",
+                "bc", "[bc]"));
+        assertEquals("a[bc]x", replacer.replace("abcx"));
+        assertEquals("a[bc]", replacer.replace("abc"));
+        assertEquals("[abcd][bc]", replacer.replace("abcdbc"));
+    }
+
+    @Test
+    public void replacementIsNotMatchedAgain() {
+        // 前一个模型挖的坑 ${className} 中包含后一个模型的被替换文本 className
+        MultiPatternReplacer replacer = new MultiPatternReplacer(replacementMap(
+                "MainTemplate", "${className}",
+                "className", "${mainTemplate.name}"));
+        assertEquals("class ${className} { String ${mainTemplate.name}; }",
+                replacer.replace("class MainTemplate { String className; }"));
+    }
+
+    @Test
+    public void noMatchReturnsSameString() {
+        String text = "public class Main {}";
+        MultiPatternReplacer replacer = new MultiPatternReplacer(replacementMap("author", "${author}"));
+        assertSame(text, replacer.replace(text));
+        assertEquals("", replacer.replace(""));
+        assertSame(text, new MultiPatternReplacer(Collections.emptyMap()).replace(text));
+        // 空的被替换文本被忽略
+        assertSame(text, new MultiPatternReplacer(replacementMap("", "x")).replace(text));
+    }
+
+    @Test
+    public void nullReplacementRemovesText() {
+        Map<String, String> replacementMap = new LinkedHashMap<>();
+        replacementMap.put("//TODO", null);
+        assertEquals("a  b", new MultiPatternReplacer(replacementMap).replace("a //TODO b"));
+    }
+
+    private static Map<String, String> replacementMap(String... keyValues) {
+        Map<String, String> replacementMap = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            replacementMap.put(keyValues[i], keyValues[i + 1]);
+        }
+        return replacementMap;
+    }
+}